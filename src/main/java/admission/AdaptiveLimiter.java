@@ -0,0 +1,150 @@
+package admission;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Адаптивный ограничитель количества одновременно обрабатываемых запросов (AIMD).
+ * Лимит медленно растёт на единицу за каждые {@code limit} успешных запросов, пока задержка в норме
+ * и лимит используется хотя бы наполовину, и сразу уменьшается в {@code decreaseFactor} раз, если запрос
+ * выполнялся дольше порога или завершился ошибкой. Так при замедлении базы данных лишние запросы
+ * отклоняются сразу, вместо того чтобы выстраиваться в очередь за соединениями.
+ * <p>
+ * Часть лимита зарезервирована для приоритетных запросов: запросы с приоритетом {@link Priority#LOW}
+ * допускаются, только пока занято не более {@code lowPriorityShare} лимита.
+ */
+public final class AdaptiveLimiter {
+    private static final Map<String, AdaptiveLimiter> REGISTRY = new ConcurrentHashMap<>();
+
+    /**
+     * Приоритет запроса при допуске.
+     */
+    public enum Priority {
+        /**
+         * Запросы, которые можно повторить позже без потерь, например чтение каталога.
+         */
+        LOW,
+        /**
+         * Запросы, для которых используется весь лимит, например создание заказов.
+         */
+        HIGH
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double decreaseFactor;
+    private final double lowPriorityShare;
+    private final LongAdder rejected = new LongAdder();
+
+    private double limit;
+    private int inFlight;
+    private long lastDecreaseNanos;
+
+    /**
+     * Создаёт ограничитель и регистрирует его для выдачи метрик.
+     *
+     * @param name                   Имя ограничителя, например путь сервлета.
+     * @param initialLimit           Начальный лимит одновременных запросов.
+     * @param minLimit               Минимальный лимит.
+     * @param maxLimit               Максимальный лимит.
+     * @param latencyThresholdMillis Задержка, начиная с которой лимит уменьшается.
+     * @param decreaseFactor         Множитель уменьшения лимита, от 0 до 1.
+     * @param lowPriorityShare       Доля лимита, доступная запросам с низким приоритетом, от 0 до 1.
+     */
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                           long latencyThresholdMillis, double decreaseFactor, double lowPriorityShare) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Некорректные границы лимита: " + minLimit + " <= "
+                    + initialLimit + " <= " + maxLimit);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.decreaseFactor = decreaseFactor;
+        this.lowPriorityShare = lowPriorityShare;
+        this.limit = initialLimit;
+        this.lastDecreaseNanos = System.nanoTime() - latencyThresholdNanos;
+        REGISTRY.put(name, this);
+    }
+
+    /**
+     * Возвращает все зарегистрированные ограничители для выдачи метрик.
+     */
+    public static Collection<AdaptiveLimiter> all() {
+        return Collections.unmodifiableCollection(REGISTRY.values());
+    }
+
+    /**
+     * Пытается занять место для запроса.
+     *
+     * @param priority Приоритет запроса.
+     * @return true, если запрос допущен и после обработки нужно вызвать {@link #release(long, boolean)};
+     * false, если запрос нужно отклонить.
+     */
+    public synchronized boolean tryAcquire(Priority priority) {
+        double available = priority == Priority.HIGH ? limit : Math.max(1, limit * lowPriorityShare);
+        if (inFlight >= (int) available) {
+            rejected.increment();
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    /**
+     * Освобождает место и корректирует лимит по результату запроса.
+     *
+     * @param latencyNanos Время обработки запроса.
+     * @param failed       true, если запрос завершился ошибкой сервера.
+     */
+    public synchronized void release(long latencyNanos, boolean failed) {
+        // Лимит растёт, только если он используется хотя бы наполовину, иначе он рос бы бесконечно при любой нагрузке.
+        boolean utilized = inFlight * 2 >= limit;
+        inFlight--;
+        long now = System.nanoTime();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            // Уменьшаем лимит не чаще одного раза за пороговое время, чтобы одна волна медленных
+            // запросов, начатых при старом лимите, не обрушила его до минимума.
+            if (now - lastDecreaseNanos >= latencyThresholdNanos) {
+                limit = Math.max(minLimit, limit * decreaseFactor);
+                lastDecreaseNanos = now;
+            }
+        } else if (utilized) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Освобождает место, не изменяя лимит. Используется, если запрос допущен этим ограничителем,
+     * но отклонён следующим, или если длительность запроса не говорит о нагрузке на базу данных.
+     */
+    public synchronized void cancel() {
+        inFlight--;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Возвращает количество отклонённых запросов.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,138 @@
+package admission;
+
+import database.ConfigLoader;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static util.ServletUtils.writeResponse;
+
+/**
+ * Фильтр контроля допуска запросов к API.
+ * Каждый запрос должен получить место и в ограничителе ({@link AdaptiveLimiter}) своего эндпоинта,
+ * и в общем ограничителе {@code database}, который делят все эндпоинты, обращающиеся к базе данных.
+ * Если места нет, запрос сразу получает 503 Service Unavailable с заголовком {@code Retry-After},
+ * не дожидаясь соединения с базой данных.
+ * Приоритет определяется маршрутом: высокий имеют только изменения заказов на {@code /orders},
+ * все остальные запросы, в том числе чтения, изменения каталога и пользователей и импорт, — низкий.
+ * Общий ограничитель применяет приоритет ко всем эндпоинтам сразу: низкоприоритетные запросы занимают не больше
+ * {@code admission.lowPriorityShare} общего лимита, и остаток всегда доступен созданию заказов.
+ * Эндпоинты импорта имеют собственный постоянный лимит {@code admission.import.maxConcurrent}:
+ * импорт удерживает место до двух минут, а его длительность зависит от объёма тела запроса,
+ * поэтому она не используется для подстройки общего лимита. По той же причине её не учитывают
+ * для полных выгрузок {@code GET /products} и {@code GET /users} без параметров: их длительность растёт
+ * с размером таблицы и не говорит о перегрузке базы данных.
+ * Служебные эндпоинты, например {@code /metrics}, не ограничиваются.
+ */
+public class AdmissionControlFilter extends HttpFilter {
+    private static final Set<String> IMPORT_PATHS = Set.of("/products/import", "/orders/import");
+    private static final Set<String> BULK_READ_PATHS = Set.of("/products", "/users");
+    private static final Set<String> LIMITED_PATHS = Set.of("/products", "/products/autocomplete", "/users", "/orders",
+            "/products/import", "/orders/import");
+
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private final boolean enabled = ConfigLoader.getBooleanProperty("admission.enabled", true);
+    private final int initialLimit = ConfigLoader.getIntProperty("admission.initialLimit", 50);
+    private final int minLimit = ConfigLoader.getIntProperty("admission.minLimit", 4);
+    private final int maxLimit = ConfigLoader.getIntProperty("admission.maxLimit", 400);
+    private final long latencyThresholdMillis = ConfigLoader.getLongProperty("admission.latencyThresholdMillis", 500);
+    private final double decreaseFactor =
+            Double.parseDouble(ConfigLoader.getProperty("admission.decreaseFactor", "0.9"));
+    private final double lowPriorityShare =
+            Double.parseDouble(ConfigLoader.getProperty("admission.lowPriorityShare", "0.75"));
+    private final String retryAfterSeconds = ConfigLoader.getProperty("admission.retryAfterSeconds", "1");
+    private final int importMaxConcurrent = ConfigLoader.getIntProperty("admission.import.maxConcurrent", 2);
+    private final AdaptiveLimiter databaseLimiter = createDatabaseLimiter();
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String path = request.getServletPath();
+        if (!enabled || !LIMITED_PATHS.contains(path)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AdaptiveLimiter limiter = limiters.computeIfAbsent(path, this::createLimiter);
+        AdaptiveLimiter.Priority priority = priorityOf(request);
+        if (!limiter.tryAcquire(priority)) {
+            reject(response);
+            return;
+        }
+        if (!databaseLimiter.tryAcquire(priority)) {
+            limiter.cancel();
+            reject(response);
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        } finally {
+            long latencyNanos = System.nanoTime() - start;
+            if (IMPORT_PATHS.contains(path) || isBulkRead(request)) {
+                databaseLimiter.cancel();
+            } else {
+                databaseLimiter.release(latencyNanos, failed);
+            }
+            limiter.release(latencyNanos, failed);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", retryAfterSeconds);
+        writeResponse(response, "Сервер перегружен, повторите запрос позже",
+                HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    static AdaptiveLimiter.Priority priorityOf(HttpServletRequest request) {
+        return "/orders".equals(request.getServletPath()) && !isRead(request)
+                ? AdaptiveLimiter.Priority.HIGH
+                : AdaptiveLimiter.Priority.LOW;
+    }
+
+    /**
+     * Проверяет, что запрос выгружает всю таблицу: чтение {@code /products} или {@code /users} без параметров
+     * выбора по идентификатору или поиска.
+     */
+    static boolean isBulkRead(HttpServletRequest request) {
+        return isRead(request) && BULK_READ_PATHS.contains(request.getServletPath())
+                && request.getParameterMap().isEmpty();
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method);
+    }
+
+    /**
+     * Создаёт общий ограничитель базы данных. При включённом пуле его лимит не превышает
+     * {@code database.pool.maximumPoolSize}: запросы сверх числа соединений только ждали бы соединение в пуле.
+     */
+    private AdaptiveLimiter createDatabaseLimiter() {
+        int max = ConfigLoader.getIntProperty("admission.database.maxLimit", 20);
+        if (ConfigLoader.getBooleanProperty("database.pool.enabled", false)) {
+            max = Math.min(max, ConfigLoader.getIntProperty("database.pool.maximumPoolSize", 20));
+        }
+        int min = Math.min(minLimit, max);
+        int initial = Math.max(min, Math.min(ConfigLoader.getIntProperty("admission.database.initialLimit", 20), max));
+        return new AdaptiveLimiter("database", initial, min, max, latencyThresholdMillis, decreaseFactor,
+                lowPriorityShare);
+    }
+
+    private AdaptiveLimiter createLimiter(String path) {
+        if (IMPORT_PATHS.contains(path)) {
+            return new AdaptiveLimiter(path, importMaxConcurrent, importMaxConcurrent, importMaxConcurrent,
+                    latencyThresholdMillis, decreaseFactor, 1.0);
+        }
+        return new AdaptiveLimiter(path, initialLimit, minLimit, maxLimit,
+                latencyThresholdMillis, decreaseFactor, lowPriorityShare);
+    }
+}
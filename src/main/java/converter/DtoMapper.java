@@ -0,0 +1,71 @@
+package converter;
+
+import model.dto.OrderDto;
+import model.dto.ProductDto;
+import model.dto.UserDto;
+import model.entity.Product;
+import model.entity.User;
+
+/**
+ * Преобразования между сущностями и DTO продуктов и пользователей.
+ * Поля копируются явными вызовами конструкторов и геттеров, без рефлексии и промежуточных объектов,
+ * поэтому все сервлеты используют одно и то же отображение полей.
+ */
+public final class DtoMapper {
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляра утилитного класса.
+     */
+    private DtoMapper() {
+    }
+
+    /**
+     * Преобразует продукт в DTO вместе с версией.
+     *
+     * @param product Продукт.
+     * @return DTO продукта.
+     */
+    public static ProductDto toDto(Product product) {
+        return new ProductDto(product.getId(), product.getName(), product.getPriceCents(), product.getVersion());
+    }
+
+    /**
+     * Преобразует DTO продукта в сущность. Версия из DTO не переносится: её назначает база данных.
+     *
+     * @param productDto DTO продукта.
+     * @return сущность продукта.
+     */
+    public static Product toEntity(ProductDto productDto) {
+        return new Product(productDto.getId(), productDto.getName(), productDto.getPriceCents());
+    }
+
+    /**
+     * Преобразует пользователя в DTO.
+     *
+     * @param user Пользователь.
+     * @return DTO пользователя.
+     */
+    public static UserDto toDto(User user) {
+        return new UserDto(user.getId(), user.getUsername(), user.getEmail());
+    }
+
+    /**
+     * Преобразует DTO пользователя в сущность.
+     *
+     * @param userDto DTO пользователя.
+     * @return сущность пользователя.
+     */
+    public static User toEntity(UserDto userDto) {
+        return new User(userDto.getId(), userDto.getUsername(), userDto.getEmail());
+    }
+
+    /**
+     * Преобразует продукт в позицию заказа.
+     *
+     * @param product Продукт.
+     * @return информация о продукте для {@link OrderDto}.
+     */
+    public static OrderDto.ProductInfo toProductInfo(Product product) {
+        return new OrderDto.ProductInfo(product.getId(), product.getName(), product.getPriceCents());
+    }
+}
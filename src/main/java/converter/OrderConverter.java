@@ -10,7 +10,9 @@ import model.entity.User;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -24,7 +26,7 @@ public class OrderConverter {
     /**
      * Преобразует OrderDto в сущность Order.
      * Извлекает пользователя и продукты из базы данных по ID, указанным в OrderDto,
-     * и формирует из них объект Order.
+     * и формирует из них объект Order. Все продукты загружаются одним запросом.
      *
      * @param orderDto DTO заказа, который нужно преобразовать в сущность.
      * @return сущность Order, соответствующая предоставленному DTO.
@@ -45,8 +47,9 @@ public class OrderConverter {
         if (orderDto.getProductIds() == null || orderDto.getProductIds().isEmpty()) {
             throw new IllegalArgumentException("В заказе должен быть хотя бы один товар.");
         }
+        Map<Integer, Product> productsById = productDao.getProductsByIds(new HashSet<>(orderDto.getProductIds()));
         for (Integer productId : orderDto.getProductIds()) {
-            Product product = productDao.getProductById(productId);
+            Product product = productsById.get(productId);
             if (product == null) {
                 throw new IllegalStateException("Продукт с идентификатором " + productId + " не найден");
             }
@@ -63,7 +66,8 @@ public class OrderConverter {
     /**
      * Конвертирует сущность Order в OrderDto.
      * Использует данные о заказе для создания DTO, который содержит базовую
-     * информацию о заказе, а также детализированную информацию о каждом продукте.
+     * информацию о заказе, детализированную информацию о каждом продукте
+     * и точную итоговую сумму заказа в копейках.
      *
      * @param order сущность заказа, которую нужно преобразовать в DTO.
      * @return DTO заказа, содержащий данные из сущности.
@@ -73,9 +77,14 @@ public class OrderConverter {
         orderDto.setId(order.getId());
         orderDto.setUserId(order.getUser().getId());
         List<OrderDto.ProductInfo> productInfos = order.getProducts().stream()
-                .map(p -> new OrderDto.ProductInfo(p.getId(), p.getName(), p.getPrice()))
+                .map(DtoMapper::toProductInfo)
                 .collect(Collectors.toList());
         orderDto.setProducts(productInfos);
+        long totalCents = 0;
+        for (Product product : order.getProducts()) {
+            totalCents = Math.addExact(totalCents, product.getPriceCents());
+        }
+        orderDto.setTotalCents(totalCents);
         return orderDto;
     }
 }
@@ -0,0 +1,33 @@
+package dao;
+
+import database.ConfigLoader;
+import util.BatchLoader;
+
+/**
+ * Настройки пакетной загрузки по идентификаторам для DAO.
+ * При включённом свойстве {@code dao.batching.enabled} одиночные запросы по идентификатору
+ * из разных потоков объединяются {@link BatchLoader} в запросы {@code WHERE id = ANY(?)}.
+ */
+final class DaoBatching {
+    private static final boolean ENABLED = ConfigLoader.getBooleanProperty("dao.batching.enabled", false);
+    private static final int MAX_BATCH_SIZE = ConfigLoader.getIntProperty("dao.batching.maxBatchSize", 100);
+    private static final long MAX_DELAY_MICROS = ConfigLoader.getLongProperty("dao.batching.maxDelayMicros", 1000);
+    private static final int WORKER_THREADS = ConfigLoader.getIntProperty("dao.batching.workerThreads", 4);
+
+    private DaoBatching() {
+    }
+
+    /**
+     * Создаёт пакетный загрузчик, если пакетная загрузка включена в конфигурации.
+     *
+     * @param name          Имя загрузчика в метриках.
+     * @param batchFunction Пакетная загрузка значений по идентификаторам.
+     * @return загрузчик или null, если пакетная загрузка выключена.
+     */
+    static <V> BatchLoader<Integer, V> createIfEnabled(String name, BatchLoader.BatchFunction<Integer, V> batchFunction) {
+        if (!ENABLED) {
+            return null;
+        }
+        return new BatchLoader<>(name, batchFunction, MAX_BATCH_SIZE, MAX_DELAY_MICROS, WORKER_THREADS);
+    }
+}
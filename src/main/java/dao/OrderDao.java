@@ -1,11 +1,13 @@
 package dao;
 
 import database.ConnectionFactory;
+import database.Resilience;
 import model.entity.User;
 import model.entity.Order;
 import model.entity.Product;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import util.SingleFlight;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -18,95 +20,338 @@ import java.util.List;
 public class OrderDao {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderDao.class);
+    private static final SingleFlight<Integer, Order> ORDER_BY_ID =
+            new SingleFlight<>("orders.getOrderById", Order::new);
 
     /**
      * Получает заказ по идентификатору.
+     * Одновременные запросы одного и того же заказа объединяются в один набор запросов к базе данных.
      *
      * @param id Идентификатор заказа.
      * @return Order объект заказа или null, если заказ не найден.
      * @throws SQLException в случае ошибок SQL.
      */
     public Order getOrderById(int id) throws SQLException {
-        String sql = "SELECT * FROM orders WHERE id = ?";
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setInt(1, id);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                if (!resultSet.next()) {
-                    return null;  // Если заказ не найден, возвращаем null.
+        return ORDER_BY_ID.execute(id, () -> loadOrderById(id));
+    }
+
+    /**
+     * Загружает заказ вместе с пользователем и продуктами одним запросом на одном соединении.
+     */
+    private Order loadOrderById(int id) throws SQLException {
+        return Resilience.read(() -> {
+            String sql = "SELECT o.id AS order_id, u.id AS user_id, u.username, u.email, " +
+                    "p.id AS product_id, p.name, " + ProductDao.PRICE_CENTS_COLUMN + " " +
+                    "FROM orders o " +
+                    "INNER JOIN users u ON u.id = o.user_id " +
+                    "LEFT JOIN order_products op ON op.order_id = o.id " +
+                    "LEFT JOIN products p ON p.id = op.product_id " +
+                    "WHERE o.id = ? ORDER BY p.id";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setInt(1, id);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    Order order = null;
+                    while (resultSet.next()) {
+                        if (order == null) {
+                            order = new Order(resultSet.getInt("order_id"));
+                            order.setUser(new User(resultSet.getInt("user_id"),
+                                    resultSet.getString("username"),
+                                    resultSet.getString("email")));
+                        }
+                        int productId = resultSet.getInt("product_id");
+                        if (!resultSet.wasNull()) {
+                            order.getProducts().add(new Product(productId, resultSet.getString("name"),
+                                    resultSet.getLong("price_cents")));
+                        }
+                    }
+                    return order;  // Если заказ не найден, возвращаем null.
                 }
-                return createOrderFromResultSet(resultSet);
             }
-        }
+        });
+    }
+
+    /**
+     * Получает страницу истории заказов пользователя вместе с продуктами одним запросом.
+     * Заказы выбираются по индексу {@code orders(user_id, id)} в порядке возрастания идентификатора,
+     * начиная после {@code afterId} (keyset-пагинация), поэтому стоимость страницы не зависит от её номера.
+     *
+     * @param userId  Идентификатор пользователя.
+     * @param afterId Идентификатор последнего заказа предыдущей страницы или 0 для первой страницы.
+     * @param limit   Максимальное количество заказов на странице.
+     * @return List заказы пользователя; пустой список, если заказов нет.
+     * @throws SQLException при ошибках SQL.
+     */
+    public List<Order> getOrdersByUserId(int userId, int afterId, int limit) throws SQLException {
+        return Resilience.read(() -> {
+            String sql = "SELECT o.id AS order_id, u.id AS user_id, u.username, u.email, " +
+                    "p.id AS product_id, p.name, " + ProductDao.PRICE_CENTS_COLUMN + " " +
+                    "FROM (SELECT id, user_id FROM orders WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?) o " +
+                    "INNER JOIN users u ON u.id = o.user_id " +
+                    "LEFT JOIN order_products op ON op.order_id = o.id " +
+                    "LEFT JOIN products p ON p.id = op.product_id " +
+                    "ORDER BY o.id, p.id";
+            List<Order> orders = new ArrayList<>();
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setInt(1, userId);
+                preparedStatement.setInt(2, afterId);
+                preparedStatement.setInt(3, limit);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    User user = null;
+                    Order current = null;
+                    while (resultSet.next()) {
+                        if (user == null) {
+                            user = new User(resultSet.getInt("user_id"),
+                                    resultSet.getString("username"),
+                                    resultSet.getString("email"));
+                        }
+                        int orderId = resultSet.getInt("order_id");
+                        if (current == null || current.getId() != orderId) {
+                            current = new Order(orderId);
+                            current.setUser(user);
+                            orders.add(current);
+                        }
+                        int productId = resultSet.getInt("product_id");
+                        if (!resultSet.wasNull()) {
+                            current.getProducts().add(new Product(productId, resultSet.getString("name"),
+                                    resultSet.getLong("price_cents")));
+                        }
+                    }
+                }
+            }
+            return orders;
+        });
     }
 
     /**
-     * Создаёт объект Order из данных ResultSet.
+     * Возвращает идентификаторы продуктов, чаще всего встречающихся в последних заказах.
+     * Просматриваются только позиции последних {@code recentOrders} заказов по диапазону первичного ключа
+     * {@code order_products}, поэтому запрос не сканирует всю таблицу позиций.
      *
-     * @param resultSet Результат запроса SQL.
-     * @return сформированный объект Order.
-     * @throws SQLException при ошибках обработки запроса.
+     * @param recentOrders Количество последних заказов для подсчёта.
+     * @param limit        Максимальное количество идентификаторов.
+     * @return List идентификаторы в порядке убывания популярности.
+     * @throws SQLException при ошибках SQL.
      */
-    private Order createOrderFromResultSet(ResultSet resultSet) throws SQLException {
-        int orderId = resultSet.getInt("id");
-        User user = new UserDao().getUserById(resultSet.getInt("user_id"));
-        List<Product> products = getProductsForOrder(orderId);
-        Order order = new Order();
-        order.setId(orderId);
-        order.setUser(user);
-        order.setProducts(products);
-        return order;
+    public List<Integer> getPopularProductIds(int recentOrders, int limit) throws SQLException {
+        return getTopIds("SELECT product_id FROM order_products " +
+                "WHERE order_id > (SELECT coalesce(max(id), 0) - ? FROM orders) " +
+                "GROUP BY product_id ORDER BY count(*) DESC LIMIT ?", recentOrders, limit);
     }
 
     /**
-     * Получает список продуктов для заказа.
+     * Возвращает идентификаторы пользователей, сделавших больше всего последних заказов.
      *
-     * @param orderId Идентификатор заказа.
-     * @return Список продуктов.
+     * @param recentOrders Количество последних заказов для подсчёта.
+     * @param limit        Максимальное количество идентификаторов.
+     * @return List идентификаторы в порядке убывания количества заказов.
      * @throws SQLException при ошибках SQL.
      */
-    private List<Product> getProductsForOrder(int orderId) throws SQLException {
-        String sql = "SELECT p.* FROM products p INNER JOIN order_products op " +
-                "ON p.id = op.product_id WHERE op.order_id = ?";
-        List<Product> products = new ArrayList<>();
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setInt(1, orderId);
-            try (ResultSet resultSet = preparedStatement.executeQuery()) {
-                while (resultSet.next()) {
-                    products.add(new Product(resultSet.getInt("id"), resultSet.getString("name"),
-                            resultSet.getDouble("price")));
+    public List<Integer> getActiveUserIds(int recentOrders, int limit) throws SQLException {
+        return getTopIds("SELECT user_id FROM orders " +
+                "WHERE id > (SELECT coalesce(max(id), 0) - ? FROM orders) " +
+                "GROUP BY user_id ORDER BY count(*) DESC LIMIT ?", recentOrders, limit);
+    }
+
+    private List<Integer> getTopIds(String sql, int recentOrders, int limit) throws SQLException {
+        return Resilience.read(() -> {
+            List<Integer> ids = new ArrayList<>(limit);
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setInt(1, recentOrders);
+                preparedStatement.setInt(2, limit);
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        ids.add(resultSet.getInt(1));
+                    }
                 }
             }
-        }
-        return products;
+            return ids;
+        });
     }
 
     /**
      * Добавляет заказ в базу данных.
      *
      * @param order Заказ для добавления.
+     * @return идентификатор созданного заказа.
      * @throws SQLException при ошибках SQL.
      */
-    public void addOrder(Order order) throws SQLException {
-        String sql = "INSERT INTO orders (user_id) VALUES (?)";
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement preparedStatement =
-                     connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            preparedStatement.setInt(1, order.getUser().getId());
-            int affectedRows = preparedStatement.executeUpdate();
-            if (affectedRows == 0) {
-                throw new SQLException("Не удалось создать заказ, ни одна строка не затронута.");
-            }
-            try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    int orderId = generatedKeys.getInt(1);
+    public int addOrder(Order order) throws SQLException {
+        return addOrder(order, null);
+    }
+
+    /**
+     * Добавляет заказ в базу данных с привязкой к ключу идемпотентности.
+     * Заказ, его продукты и ключ сохраняются в одной транзакции. Если ключ уже был
+     * сохранён параллельным запросом, транзакция откатывается и возвращается
+     * идентификатор ранее созданного заказа.
+     *
+     * @param order          Заказ для добавления.
+     * @param idempotencyKey Ключ идемпотентности запроса или null, если ключ не передан.
+     * @return идентификатор созданного (или ранее созданного по этому ключу) заказа.
+     * @throws SQLException при ошибках SQL.
+     */
+    public int addOrder(Order order, String idempotencyKey) throws SQLException {
+        return Resilience.transaction(() -> {
+            String sql = "INSERT INTO orders (user_id) VALUES (?)";
+            try (Connection connection = ConnectionFactory.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    int orderId;
+                    try (PreparedStatement preparedStatement =
+                                 connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                        preparedStatement.setInt(1, order.getUser().getId());
+                        int affectedRows = preparedStatement.executeUpdate();
+                        if (affectedRows == 0) {
+                            throw new SQLException("Не удалось создать заказ, ни одна строка не затронута.");
+                        }
+                        try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                            if (!generatedKeys.next()) {
+                                logger.error("Не удалось создать заказ, идентификатор не получен.");
+                                throw new SQLException();
+                            }
+                            orderId = generatedKeys.getInt(1);
+                        }
+                    }
                     linkProductsToOrder(order.getProducts(), orderId, connection);
-                } else {
-                    logger.error("Не удалось создать заказ, идентификатор не получен.");
-                    throw new SQLException();
+                    if (idempotencyKey != null && !saveIdempotencyKey(idempotencyKey, orderId, connection)) {
+                        connection.rollback();
+                        Integer existingOrderId = findOrderIdByIdempotencyKey(idempotencyKey, connection);
+                        if (existingOrderId == null) {
+                            throw new SQLException("Ключ идемпотентности " + idempotencyKey + " занят, но заказ не найден.");
+                        }
+                        return existingOrderId;
+                    }
+                    connection.commit();
+                    return orderId;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
                 }
             }
+        });
+    }
+
+    /**
+     * Добавляет группу заказов в базу данных одной транзакцией (group commit).
+     * Заказы вставляются пакетом, после чего одним пакетом создаются связи с продуктами.
+     * Если хотя бы один заказ не удалось сохранить, транзакция откатывается целиком.
+     *
+     * @param orders Список заказов для добавления.
+     * @return идентификаторы созданных заказов в порядке следования заказов в списке.
+     * @throws SQLException при ошибках SQL.
+     */
+    public int[] addOrders(List<Order> orders) throws SQLException {
+        return addOrders(orders, null);
+    }
+
+    /**
+     * Добавляет группу заказов одной транзакцией вместе с их ключами идемпотентности.
+     * Ключи сохраняются обычной вставкой: если хотя бы один ключ уже занят, транзакция откатывается
+     * с нарушением уникальности (23505), и такой заказ нужно сохранить отдельно через
+     * {@link #addOrder(Order, String)}, который вернёт ранее созданный заказ.
+     *
+     * @param orders          Список заказов для добавления.
+     * @param idempotencyKeys Ключи идемпотентности в порядке заказов (элемент может быть null)
+     *                        или null, если ключей нет.
+     * @return идентификаторы созданных заказов в порядке следования заказов в списке.
+     * @throws SQLException при ошибках SQL.
+     */
+    public int[] addOrders(List<Order> orders, List<String> idempotencyKeys) throws SQLException {
+        return Resilience.transaction(() -> {
+            String sqlOrders = "INSERT INTO orders (user_id) VALUES (?)";
+            String sqlOrderProducts = "INSERT INTO order_products (order_id, product_id) VALUES (?, ?)";
+            String sqlIdempotencyKeys = "INSERT INTO idempotency_keys (idempotency_key, order_id) VALUES (?, ?)";
+            int[] orderIds = new int[orders.size()];
+            try (Connection connection = ConnectionFactory.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    try (PreparedStatement psOrders =
+                                 connection.prepareStatement(sqlOrders, Statement.RETURN_GENERATED_KEYS)) {
+                        for (Order order : orders) {
+                            psOrders.setInt(1, order.getUser().getId());
+                            psOrders.addBatch();
+                        }
+                        psOrders.executeBatch();
+                        try (ResultSet generatedKeys = psOrders.getGeneratedKeys()) {
+                            for (int i = 0; i < orderIds.length; i++) {
+                                if (!generatedKeys.next()) {
+                                    throw new SQLException("Не удалось получить идентификаторы созданных заказов.");
+                                }
+                                orderIds[i] = generatedKeys.getInt(1);
+                            }
+                        }
+                    }
+                    try (PreparedStatement psOrderProducts = connection.prepareStatement(sqlOrderProducts)) {
+                        for (int i = 0; i < orderIds.length; i++) {
+                            addProductLinksToBatch(psOrderProducts, orders.get(i).getProducts(), orderIds[i]);
+                        }
+                        psOrderProducts.executeBatch();
+                    }
+                    if (idempotencyKeys != null) {
+                        try (PreparedStatement psKeys = connection.prepareStatement(sqlIdempotencyKeys)) {
+                            for (int i = 0; i < orderIds.length; i++) {
+                                if (idempotencyKeys.get(i) != null) {
+                                    psKeys.setString(1, idempotencyKeys.get(i));
+                                    psKeys.setInt(2, orderIds[i]);
+                                    psKeys.addBatch();
+                                }
+                            }
+                            psKeys.executeBatch();
+                        }
+                    }
+                    connection.commit();
+                    return orderIds;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+        });
+    }
+
+    /**
+     * Ищет заказ, ранее созданный с указанным ключом идемпотентности.
+     *
+     * @param idempotencyKey Ключ идемпотентности.
+     * @return идентификатор заказа или null, если ключ ещё не использовался.
+     * @throws SQLException при ошибках SQL.
+     */
+    public Integer findOrderIdByIdempotencyKey(String idempotencyKey) throws SQLException {
+        return Resilience.read(() -> {
+            try (Connection connection = ConnectionFactory.getConnection()) {
+                return findOrderIdByIdempotencyKey(idempotencyKey, connection);
+            }
+        });
+    }
+
+    private Integer findOrderIdByIdempotencyKey(String idempotencyKey, Connection connection) throws SQLException {
+        String sql = "SELECT order_id FROM idempotency_keys WHERE idempotency_key = ?";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, idempotencyKey);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt("order_id") : null;
+            }
+        }
+    }
+
+    /**
+     * Сохраняет ключ идемпотентности в рамках текущей транзакции.
+     * Если ключ уже существует, запись не выполняется: конкурирующая транзакция
+     * дожидается фиксации первой и получает конфликт по первичному ключу.
+     *
+     * @return true, если ключ сохранён; false, если ключ уже был занят.
+     */
+    private boolean saveIdempotencyKey(String idempotencyKey, int orderId,
+                                       Connection connection) throws SQLException {
+        String sql = "INSERT INTO idempotency_keys (idempotency_key, order_id) VALUES (?, ?) " +
+                "ON CONFLICT (idempotency_key) DO NOTHING";
+        try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+            preparedStatement.setString(1, idempotencyKey);
+            preparedStatement.setInt(2, orderId);
+            return preparedStatement.executeUpdate() > 0;
         }
     }
 
@@ -122,11 +367,25 @@ public class OrderDao {
                                      Connection connection) throws SQLException {
         String sql = "INSERT INTO order_products (order_id, product_id) VALUES (?, ?)";
         try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            for (Product product : products) {
-                preparedStatement.setInt(1, orderId);
-                preparedStatement.setInt(2, product.getId());
-                preparedStatement.executeUpdate();
-            }
+            addProductLinksToBatch(preparedStatement, products, orderId);
+            preparedStatement.executeBatch();
+        }
+    }
+
+    /**
+     * Добавляет в пакет подготовленного запроса связи продуктов с заказом.
+     *
+     * @param preparedStatement Запрос вставки в таблицу order_products.
+     * @param products          Список продуктов.
+     * @param orderId           Идентификатор заказа.
+     * @throws SQLException при ошибках SQL.
+     */
+    private void addProductLinksToBatch(PreparedStatement preparedStatement, List<Product> products,
+                                        int orderId) throws SQLException {
+        for (Product product : products) {
+            preparedStatement.setInt(1, orderId);
+            preparedStatement.setInt(2, product.getId());
+            preparedStatement.addBatch();
         }
     }
 }
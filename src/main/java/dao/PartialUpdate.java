@@ -0,0 +1,168 @@
+package dao;
+
+import database.ConnectionFactory;
+import database.Resilience;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Построитель частичного UPDATE-запроса для одной строки таблицы.
+ * В запрос попадают только переданные столбцы, а условие {@code IS DISTINCT FROM}
+ * исключает запись строки, если ни одно значение фактически не меняется.
+ * Благодаря этому no-op обновления не порождают новых версий строк, записей WAL и обновлений индексов.
+ */
+class PartialUpdate {
+    private final String table;
+    private final List<String> columns = new ArrayList<>();
+    private final List<String> placeholders = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+    private final List<String> incrementedColumns = new ArrayList<>();
+    private String returningColumn;
+
+    PartialUpdate(String table) {
+        this.table = table;
+    }
+
+    /**
+     * Добавляет столбец в обновление, если значение передано.
+     *
+     * @param column Имя столбца.
+     * @param value  Новое значение или null, если столбец не нужно менять.
+     * @return этот же построитель.
+     */
+    PartialUpdate set(String column, Object value) {
+        return set(column, value, "?");
+    }
+
+    /**
+     * Добавляет столбец в обновление с явным выражением для параметра, например приведением типа.
+     *
+     * @param column      Имя столбца.
+     * @param value       Новое значение или null, если столбец не нужно менять.
+     * @param placeholder SQL-выражение с одним параметром, например {@code CAST(? AS NUMERIC(10, 2))}.
+     * @return этот же построитель.
+     */
+    PartialUpdate set(String column, Object value, String placeholder) {
+        if (value != null) {
+            columns.add(column);
+            placeholders.add(placeholder);
+            values.add(value);
+        }
+        return this;
+    }
+
+    /**
+     * Увеличивает значение столбца на единицу, если строка обновляется.
+     * Используется для счётчиков версий и не участвует в проверке наличия изменений.
+     *
+     * @param column Имя столбца.
+     * @return этот же построитель.
+     */
+    PartialUpdate increment(String column) {
+        incrementedColumns.add(column);
+        return this;
+    }
+
+    /**
+     * Возвращает из обновлённой строки значение столбца, например новую версию после {@link #increment}.
+     *
+     * @param column Имя целочисленного столбца.
+     * @return этот же построитель.
+     */
+    PartialUpdate returning(String column) {
+        returningColumn = column;
+        return this;
+    }
+
+    boolean isEmpty() {
+        return columns.isEmpty();
+    }
+
+    /**
+     * Формирует текст запроса. Параметры идут в порядке: новые значения, идентификатор строки,
+     * затем те же значения для условий {@code IS DISTINCT FROM}.
+     */
+    String toSql() {
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append(columns.get(i)).append(" = ").append(placeholders.get(i));
+        }
+        for (String column : incrementedColumns) {
+            sql.append(", ").append(column).append(" = ").append(column).append(" + 1");
+        }
+        sql.append(" WHERE id = ? AND (");
+        for (int i = 0; i < columns.size(); i++) {
+            sql.append(i == 0 ? "" : " OR ").append(columns.get(i))
+                    .append(" IS DISTINCT FROM ").append(placeholders.get(i));
+        }
+        sql.append(')');
+        if (returningColumn != null) {
+            sql.append(" RETURNING ").append(returningColumn);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Выполняет обновление строки с указанным идентификатором.
+     *
+     * @param id Идентификатор строки.
+     * @return true, если строка была изменена; false, если строка не найдена или значения совпадают.
+     * @throws SQLException             при ошибках SQL.
+     * @throws IllegalArgumentException если не передано ни одного столбца.
+     */
+    boolean execute(int id) throws SQLException {
+        checkNotEmpty();
+        return Resilience.transaction(() -> {
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = prepare(connection, id)) {
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Выполняет обновление строки и возвращает значение столбца, заданного через {@link #returning}.
+     *
+     * @param id Идентификатор строки.
+     * @return значение столбца после обновления или null, если строка не найдена или значения совпадают.
+     * @throws SQLException             при ошибках SQL.
+     * @throws IllegalArgumentException если не передано ни одного столбца.
+     */
+    Integer executeReturning(int id) throws SQLException {
+        checkNotEmpty();
+        if (returningColumn == null) {
+            throw new IllegalStateException("Не задан столбец RETURNING");
+        }
+        return Resilience.transaction(() -> {
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = prepare(connection, id);
+                 ResultSet resultSet = preparedStatement.executeQuery()) {
+                return resultSet.next() ? resultSet.getInt(1) : null;
+            }
+        });
+    }
+
+    private void checkNotEmpty() {
+        if (isEmpty()) {
+            throw new IllegalArgumentException("Не передано ни одного поля для обновления");
+        }
+    }
+
+    private PreparedStatement prepare(Connection connection, int id) throws SQLException {
+        PreparedStatement preparedStatement = connection.prepareStatement(toSql());
+        int index = 1;
+        for (Object value : values) {
+            preparedStatement.setObject(index++, value);
+        }
+        preparedStatement.setInt(index++, id);
+        for (Object value : values) {
+            preparedStatement.setObject(index++, value);
+        }
+        return preparedStatement;
+    }
+}
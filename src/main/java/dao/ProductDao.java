@@ -1,44 +1,123 @@
 package dao;
 
 import database.ConnectionFactory;
+import database.Resilience;
+import model.columnar.ProductTable;
 import model.entity.Product;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import search.ProductNameIndex;
+import util.BatchLoader;
+import util.SingleFlight;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Класс ProductDao предоставляет методы для управления данными продуктов в базе данных.
  * Он включает операции получения, добавления, обновления и удаления продуктов.
+ * Успешные изменения названий сразу отражаются в индексе автодополнения {@link ProductNameIndex},
+ * а чтения продукта после записи не присоединяются к загрузке, начатой до неё.
  */
 public class ProductDao {
-    private static final Logger logger = LoggerFactory.getLogger(ProductDao.class);
+    /**
+     * Выражение, читающее цену из столбца {@code NUMERIC(10, 2)} сразу в копейках без потери точности.
+     */
+    static final String PRICE_CENTS_COLUMN = "CAST(price * 100 AS BIGINT) AS price_cents";
+    /**
+     * Выражение для параметра цены в копейках при записи в столбец {@code NUMERIC(10, 2)}.
+     */
+    static final String PRICE_FROM_CENTS = "CAST(? AS NUMERIC) / 100";
+    /**
+     * Выражение полнотекстового поиска по названию; должно совпадать с выражением индекса
+     * {@code products_name_tsv_idx}, иначе планировщик не сможет его использовать.
+     */
+    private static final String TSVECTOR_EXPRESSION = "to_tsvector('russian', name)";
+    private static final int BULK_FETCH_SIZE = 1000;
+    private static final SingleFlight<Integer, Product> PRODUCT_BY_ID =
+            new SingleFlight<>("products.getProductById", Product::new);
+    private static final BatchLoader<Integer, Product> PRODUCT_LOADER =
+            DaoBatching.createIfEnabled("products.getProductById", ids -> new ProductDao().getProductsByIds(ids));
+
+    private final ProductNameIndex nameIndex;
+
+    public ProductDao() {
+        this(ProductNameIndex.getInstance());
+    }
+
+    /**
+     * Создаёт DAO, поддерживающий в актуальном состоянии указанный индекс названий.
+     *
+     * @param nameIndex Индекс автодополнения, обновляемый при записи.
+     */
+    public ProductDao(ProductNameIndex nameIndex) {
+        this.nameIndex = nameIndex;
+    }
 
     /**
      * Получает продукт по его идентификатору из базы данных.
+     * Одновременные запросы одного и того же продукта объединяются в один запрос к базе данных,
+     * а при включённой пакетной загрузке запросы разных продуктов — в общий запрос {@code id = ANY(?)}.
      *
      * @param id Идентификатор продукта для поиска.
      * @return Product объект продукта, если он найден, иначе null.
      * @throws SQLException если происходит ошибка SQL при выполнении запроса.
      */
     public Product getProductById(int id) throws SQLException {
-        String sql = "SELECT * FROM products WHERE id = ?";
+        return PRODUCT_BY_ID.execute(id, () -> loadProductById(id));
+    }
+
+    private Product loadProductById(int id) throws SQLException {
+        if (PRODUCT_LOADER != null) {
+            return PRODUCT_LOADER.load(id);
+        }
+        return Resilience.read(() -> queryProductById(id));
+    }
+
+    private Product queryProductById(int id) throws SQLException {
+        String sql = "SELECT id, name, " + PRICE_CENTS_COLUMN + ", version FROM products WHERE id = ?";
         try (Connection conn = ConnectionFactory.getConnection();
              PreparedStatement preparedStatement = conn.prepareStatement(sql)) {
             preparedStatement.setInt(1, id);
             try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 if (resultSet.next()) {
-                    return new Product(resultSet.getInt("id"),
-                            resultSet.getString("name"),
-                            resultSet.getDouble("price"));
+                    return createProductFromResultSet(resultSet);
                 }
             }
         }
         return null;
     }
 
+    /**
+     * Получает продукты по набору идентификаторов одним запросом.
+     *
+     * @param ids Идентификаторы продуктов.
+     * @return Map найденные продукты по идентификаторам; отсутствующие идентификаторы пропускаются.
+     * @throws SQLException если происходит ошибка SQL при выполнении запроса.
+     */
+    public Map<Integer, Product> getProductsByIds(Collection<Integer> ids) throws SQLException {
+        return Resilience.read(() -> {
+            Map<Integer, Product> products = new HashMap<>(ids.size() * 2);
+            if (ids.isEmpty()) {
+                return products;
+            }
+            String sql = "SELECT id, name, " + PRICE_CENTS_COLUMN + ", version FROM products WHERE id = ANY(?)";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        Product product = createProductFromResultSet(resultSet);
+                        products.put(product.getId(), product);
+                    }
+                }
+            }
+            return products;
+        });
+    }
+
     /**
      * Получает список всех продуктов из базы данных.
      *
@@ -46,52 +125,286 @@ public class ProductDao {
      * @throws SQLException если происходит ошибка SQL при выполнении запроса.
      */
     public List<Product> getAllProducts() throws SQLException {
-        List<Product> products = new ArrayList<>();
-        String sql = "SELECT * FROM products";
-        try (Connection connection = ConnectionFactory.getConnection();
-             Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(sql)) {
-            while (resultSet.next()) {
-                products.add(new Product(resultSet.getInt("id"),
-                        resultSet.getString("name"),
-                        resultSet.getDouble("price")));
+        return Resilience.read(() -> {
+            List<Product> products = new ArrayList<>();
+            String sql = "SELECT id, name, " + PRICE_CENTS_COLUMN + ", version FROM products";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(sql)) {
+                while (resultSet.next()) {
+                    products.add(createProductFromResultSet(resultSet));
+                }
             }
-        }
-        return products;
+            return products;
+        });
+    }
+
+    /**
+     * Получает все продукты в компактном колоночном представлении.
+     * Строки читаются курсором порциями по {@value #BULK_FETCH_SIZE} и сразу складываются в массивы,
+     * а цена читается в копейках как {@code long}. Драйвер по-прежнему создаёт кортеж и {@code String} названия
+     * на каждую строку, но DAO не создаёт для неё {@link Product} и {@code BigDecimal}, и после обработки
+     * порции эти временные объекты сразу становятся мусором.
+     *
+     * @return таблица всех продуктов.
+     * @throws SQLException если происходит ошибка SQL при выполнении запроса.
+     */
+    public ProductTable getAllProductsTable() throws SQLException {
+        return Resilience.read(() -> {
+            ProductTable.Builder builder = new ProductTable.Builder();
+            String sql = "SELECT id, name, " + PRICE_CENTS_COLUMN + ", version FROM products";
+            try (Connection connection = ConnectionFactory.getConnection()) {
+                connection.setAutoCommit(false);
+                try (Statement statement = connection.createStatement()) {
+                    statement.setFetchSize(BULK_FETCH_SIZE);
+                    try (ResultSet resultSet = statement.executeQuery(sql)) {
+                        while (resultSet.next()) {
+                            builder.add(resultSet.getInt(1),
+                                    resultSet.getString(2),
+                                    resultSet.getLong(3),
+                                    resultSet.getInt(4));
+                        }
+                    }
+                } finally {
+                    connection.commit();
+                }
+            }
+            return builder.build();
+        });
+    }
+
+    /**
+     * Ищет продукты по названию и диапазону цен и возвращает одну страницу результатов.
+     * Поиск по префиксу упорядочивается по названию, нечёткий и полнотекстовый — по релевантности.
+     * Без текста запроса продукты фильтруются только по цене и упорядочиваются по идентификатору.
+     *
+     * @param criteria Параметры поиска.
+     * @return найденные продукты в колоночном представлении.
+     * @throws SQLException если происходит ошибка SQL при выполнении запроса.
+     */
+    public ProductTable searchProducts(ProductSearchCriteria criteria) throws SQLException {
+        return Resilience.read(() -> {
+            List<Object> parameters = new ArrayList<>();
+            StringBuilder sql = new StringBuilder("SELECT id, name, ")
+                    .append(PRICE_CENTS_COLUMN).append(", version FROM products WHERE TRUE");
+            String orderBy = "id";
+            Object rankParameter = null;
+            String query = criteria.getQuery();
+            if (query != null) {
+                switch (criteria.getMode()) {
+                    case PREFIX:
+                        sql.append(" AND lower(name) LIKE ? ESCAPE '\\'");
+                        parameters.add(escapeLike(query.toLowerCase()) + "%");
+                        orderBy = "lower(name), id";
+                        break;
+                    case FUZZY:
+                        sql.append(" AND lower(name) % ?");
+                        parameters.add(query.toLowerCase());
+                        orderBy = "similarity(lower(name), ?) DESC, id";
+                        rankParameter = query.toLowerCase();
+                        break;
+                    case FULL_TEXT:
+                        sql.append(" AND " + TSVECTOR_EXPRESSION + " @@ websearch_to_tsquery('russian', ?)");
+                        parameters.add(query);
+                        orderBy = "ts_rank(" + TSVECTOR_EXPRESSION + ", websearch_to_tsquery('russian', ?)) DESC, id";
+                        rankParameter = query;
+                        break;
+                }
+            }
+            if (criteria.getMinPriceCents() != null) {
+                sql.append(" AND price >= ").append(PRICE_FROM_CENTS);
+                parameters.add(criteria.getMinPriceCents());
+            }
+            if (criteria.getMaxPriceCents() != null) {
+                sql.append(" AND price <= ").append(PRICE_FROM_CENTS);
+                parameters.add(criteria.getMaxPriceCents());
+            }
+            sql.append(" ORDER BY ").append(orderBy).append(" LIMIT ? OFFSET ?");
+            if (rankParameter != null) {
+                parameters.add(rankParameter);
+            }
+            parameters.add(criteria.getLimit());
+            parameters.add(criteria.getOffset());
+
+            ProductTable.Builder builder = new ProductTable.Builder(criteria.getLimit());
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+                for (int i = 0; i < parameters.size(); i++) {
+                    preparedStatement.setObject(i + 1, parameters.get(i));
+                }
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    while (resultSet.next()) {
+                        builder.add(resultSet.getInt(1),
+                                resultSet.getString(2),
+                                resultSet.getLong(3),
+                                resultSet.getInt(4));
+                    }
+                }
+            }
+            return builder.build();
+        });
     }
 
     /**
      * Добавляет новый продукт в базу данных.
      *
      * @param product Объект продукта для добавления.
+     * @return созданный продукт с идентификатором, сгенерированным базой данных.
+     * @throws SQLException если происходит ошибка SQL при выполнении запроса.
+     */
+    public Product addProduct(Product product) throws SQLException {
+        Product created = Resilience.transaction(() -> {
+            String sql = "INSERT INTO products (name, price) VALUES (?, " + PRICE_FROM_CENTS + ") " +
+                    "RETURNING id, name, " + PRICE_CENTS_COLUMN + ", version";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, product.getName());
+                preparedStatement.setLong(2, product.getPriceCents());
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new SQLException("Не удалось создать продукт, идентификатор не получен.");
+                    }
+                    return createProductFromResultSet(resultSet);
+                }
+            }
+        });
+        nameIndex.put(created.getId(), created.getName());
+        return created;
+    }
+
+    /**
+     * Добавляет группу продуктов в базу данных одной транзакцией.
+     * Продукты вставляются одним пакетом; если хотя бы один продукт не удалось сохранить,
+     * транзакция откатывается целиком.
+     *
+     * @param products Список продуктов для добавления.
+     * @return идентификаторы созданных продуктов в порядке следования продуктов в списке.
+     * @throws SQLException если происходит ошибка SQL при выполнении запроса.
      */
-    public void addProduct(Product product) {
-        String sql = "INSERT INTO products (name, price) VALUES (?, ?)";
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, product.getName());
-            preparedStatement.setDouble(2, product.getPrice());
-            preparedStatement.executeUpdate();
-        } catch (SQLException e) {
-            logger.error("Не удалось добавить товар: {}", e.getMessage(), e);
+    public int[] addProducts(List<Product> products) throws SQLException {
+        int[] productIds = Resilience.transaction(() -> {
+            String sql = "INSERT INTO products (name, price) VALUES (?, " + PRICE_FROM_CENTS + ")";
+            int[] ids = new int[products.size()];
+            try (Connection connection = ConnectionFactory.getConnection()) {
+                connection.setAutoCommit(false);
+                try (PreparedStatement preparedStatement =
+                             connection.prepareStatement(sql, new String[]{"id"})) {
+                    for (Product product : products) {
+                        preparedStatement.setString(1, product.getName());
+                        preparedStatement.setLong(2, product.getPriceCents());
+                        preparedStatement.addBatch();
+                    }
+                    preparedStatement.executeBatch();
+                    try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                        for (int i = 0; i < ids.length; i++) {
+                            if (!generatedKeys.next()) {
+                                throw new SQLException("Не удалось получить идентификаторы созданных продуктов.");
+                            }
+                            ids[i] = generatedKeys.getInt(1);
+                        }
+                    }
+                    connection.commit();
+                    return ids;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+        });
+        Map<Integer, String> names = new HashMap<>(productIds.length * 2);
+        for (int i = 0; i < productIds.length; i++) {
+            names.put(productIds[i], products.get(i).getName());
         }
+        nameIndex.putAll(names);
+        return productIds;
     }
 
     /**
-     * Обновляет данные продукта в базе данных.
+     * Обновляет данные продукта в базе данных без проверки версии.
+     * Версия продукта увеличивается на единицу.
      *
      * @param product Объект продукта с обновленными данными.
+     * @return новая версия продукта или null, если продукт не найден.
+     * @throws SQLException если происходит ошибка SQL при выполнении запроса.
+     */
+    public Integer updateProduct(Product product) throws SQLException {
+        Integer version = Resilience.transaction(() -> {
+            String sql = "UPDATE products SET name = ?, price = " + PRICE_FROM_CENTS + ", " +
+                    "version = version + 1 WHERE id = ? RETURNING version";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, product.getName());
+                preparedStatement.setLong(2, product.getPriceCents());
+                preparedStatement.setInt(3, product.getId());
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    return resultSet.next() ? resultSet.getInt(1) : null;
+                }
+            }
+        });
+        if (version != null) {
+            PRODUCT_BY_ID.forget(product.getId());
+            nameIndex.put(product.getId(), product.getName());
+        }
+        return version;
+    }
+
+    /**
+     * Обновляет данные продукта, только если его текущая версия совпадает с ожидаемой
+     * (оптимистическая блокировка). Проверка и запись выполняются одним условным UPDATE,
+     * поэтому блокировки строк не удерживаются между запросами.
+     *
+     * @param product         Объект продукта с обновленными данными.
+     * @param expectedVersion Версия продукта, на основе которой клиент сделал изменения.
+     * @return true, если продукт обновлён; false, если продукт не найден или его версия уже изменилась.
      * @throws SQLException если происходит ошибка SQL при выполнении запроса.
      */
-    public void updateProduct(Product product) throws SQLException {
-        String sql = "UPDATE products SET name = ?, price = ? WHERE id = ?";
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, product.getName());
-            preparedStatement.setDouble(2, product.getPrice());
-            preparedStatement.setInt(3, product.getId());
-            preparedStatement.executeUpdate();
+    public boolean updateProduct(Product product, int expectedVersion) throws SQLException {
+        boolean updated = Resilience.transaction(() -> {
+            String sql = "UPDATE products SET name = ?, price = " + PRICE_FROM_CENTS + ", version = version + 1 " +
+                    "WHERE id = ? AND version = ?";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, product.getName());
+                preparedStatement.setLong(2, product.getPriceCents());
+                preparedStatement.setInt(3, product.getId());
+                preparedStatement.setInt(4, expectedVersion);
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
+        if (!updated) {
+            return false;
+        }
+        PRODUCT_BY_ID.forget(product.getId());
+        nameIndex.put(product.getId(), product.getName());
+        return true;
+    }
+
+    /**
+     * Частично обновляет данные продукта: изменяются только переданные поля,
+     * и только если их значения отличаются от текущих. При изменении версия продукта увеличивается.
+     *
+     * @param id         Идентификатор продукта.
+     * @param name       Новое название или null, если его не нужно менять.
+     * @param priceCents Новая цена в копейках или null, если её не нужно менять.
+     * @return новая версия продукта, если его данные изменились; null, если продукт не найден или изменений нет.
+     * @throws SQLException             если происходит ошибка SQL при выполнении запроса.
+     * @throws IllegalArgumentException если не передано ни одного поля.
+     */
+    public Integer patchProduct(int id, String name, Long priceCents) throws SQLException {
+        Integer version = new PartialUpdate("products")
+                .set("name", name)
+                .set("price", priceCents, PRICE_FROM_CENTS)
+                .increment("version")
+                .returning("version")
+                .executeReturning(id);
+        boolean changed = version != null;
+        if (changed) {
+            PRODUCT_BY_ID.forget(id);
         }
+        if (changed && name != null) {
+            nameIndex.put(id, name);
+        }
+        return version;
     }
 
     /**
@@ -103,32 +416,61 @@ public class ProductDao {
      * @throws SQLException если происходит ошибка SQL в процессе удаления.
      */
     public void deleteProduct(int id) throws SQLException {
-        String sqlDeleteOrderProducts = "DELETE FROM order_products WHERE product_id = ?";
-        String sqlDeleteProduct = "DELETE FROM products WHERE id = ?";
+        Resilience.transaction(() -> {
+            String sqlDeleteOrderProducts = "DELETE FROM order_products WHERE product_id = ?";
+            String sqlDeleteProduct = "DELETE FROM products WHERE id = ?";
 
-        try (Connection connection = ConnectionFactory.getConnection()) {
-            connection.setAutoCommit(false);
+            try (Connection connection = ConnectionFactory.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    try (PreparedStatement psOrderProducts = connection.prepareStatement(sqlDeleteOrderProducts)) {
+                        psOrderProducts.setInt(1, id);
+                        psOrderProducts.executeUpdate();
+                    }
 
-            try (PreparedStatement psOrderProducts = connection.prepareStatement(sqlDeleteOrderProducts)) {
-                psOrderProducts.setInt(1, id);
-                psOrderProducts.executeUpdate();
-            }
+                    try (PreparedStatement psProduct = connection.prepareStatement(sqlDeleteProduct)) {
+                        psProduct.setInt(1, id);
+                        psProduct.executeUpdate();
+                    }
 
-            try (PreparedStatement psProduct = connection.prepareStatement(sqlDeleteProduct)) {
-                psProduct.setInt(1, id);
-                psProduct.executeUpdate();
+                    connection.commit();
+                    return null;
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw e;
+                }
             }
+        });
+        PRODUCT_BY_ID.forget(id);
+        nameIndex.remove(id);
+    }
 
-            connection.commit();
-        } catch (SQLException e) {
-            try (Connection connection = ConnectionFactory.getConnection()) {
-                connection.rollback();
-            }
-            throw e;
-        } finally {
-            try (Connection connection = ConnectionFactory.getConnection()) {
-                connection.setAutoCommit(true);
+    /**
+     * Экранирует спецсимволы шаблона LIKE, чтобы текст запроса сравнивался буквально.
+     */
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%' || c == '_' || c == '\\') {
+                escaped.append('\\');
             }
+            escaped.append(c);
         }
+        return escaped.toString();
+    }
+
+    /**
+     * Создаёт объект Product из текущей строки ResultSet.
+     *
+     * @param resultSet Результат запроса SQL, содержащий столбцы id, name, price_cents и version.
+     * @return сформированный объект Product.
+     * @throws SQLException при ошибках обработки запроса.
+     */
+    private Product createProductFromResultSet(ResultSet resultSet) throws SQLException {
+        return new Product(resultSet.getInt("id"),
+                resultSet.getString("name"),
+                resultSet.getLong("price_cents"),
+                resultSet.getInt("version"));
     }
 }
@@ -0,0 +1,89 @@
+package dao;
+
+/**
+ * Параметры поиска продуктов: текст запроса, способ сопоставления, диапазон цен и страница результатов.
+ * Каждый способ поиска опирается на свой индекс таблицы products, поэтому запрос не требует полного сканирования.
+ */
+public class ProductSearchCriteria {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    /**
+     * Способ сопоставления текста запроса с названием продукта.
+     */
+    public enum Mode {
+        /**
+         * Название начинается с запроса (без учёта регистра), индекс {@code lower(name) text_pattern_ops}.
+         */
+        PREFIX,
+        /**
+         * Нечёткое совпадение по триграммам с допуском опечаток, GIN-индекс {@code gin_trgm_ops}.
+         */
+        FUZZY,
+        /**
+         * Полнотекстовый поиск по словам названия с учётом словоформ, GIN-индекс по {@code tsvector}.
+         */
+        FULL_TEXT
+    }
+
+    private final String query;
+    private final Mode mode;
+    private final Long minPriceCents;
+    private final Long maxPriceCents;
+    private final int limit;
+    private final int offset;
+
+    /**
+     * Создаёт параметры поиска.
+     *
+     * @param query         Текст запроса или null, если нужен только фильтр по цене.
+     * @param mode          Способ сопоставления; null означает поиск по префиксу.
+     * @param minPriceCents Минимальная цена в копейках включительно или null.
+     * @param maxPriceCents Максимальная цена в копейках включительно или null.
+     * @param limit         Размер страницы от 1 до {@value #MAX_LIMIT}.
+     * @param offset        Количество пропускаемых результатов.
+     * @throws IllegalArgumentException если параметры страницы или диапазон цен некорректны.
+     */
+    public ProductSearchCriteria(String query, Mode mode, Long minPriceCents, Long maxPriceCents,
+                                 int limit, int offset) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Параметр limit должен быть от 1 до " + MAX_LIMIT);
+        }
+        if (offset < 0) {
+            throw new IllegalArgumentException("Параметр offset не может быть отрицательным");
+        }
+        if (minPriceCents != null && maxPriceCents != null && minPriceCents > maxPriceCents) {
+            throw new IllegalArgumentException("Минимальная цена больше максимальной");
+        }
+        this.query = query == null || query.isBlank() ? null : query.trim();
+        this.mode = mode == null ? Mode.PREFIX : mode;
+        this.minPriceCents = minPriceCents;
+        this.maxPriceCents = maxPriceCents;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public Long getMinPriceCents() {
+        return minPriceCents;
+    }
+
+    public Long getMaxPriceCents() {
+        return maxPriceCents;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
@@ -1,26 +1,61 @@
 package dao;
 
 import database.ConnectionFactory;
+import database.Resilience;
+import model.columnar.UserTable;
 import model.entity.User;
+import util.BatchLoader;
+import util.SingleFlight;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Класс UserDao предоставляет доступ к данным пользователей в базе данных.
  * Включает методы для получения, добавления, обновления и удаления пользователей.
  */
 public class UserDao {
+    /**
+     * SQLSTATE PostgreSQL для нарушения ограничения уникальности.
+     */
+    public static final String UNIQUE_VIOLATION = "23505";
+    /**
+     * Максимальное количество адресов в одном пакетном поиске.
+     */
+    public static final int MAX_BATCH_LOOKUP_SIZE = 1000;
+    private static final int BULK_FETCH_SIZE = 1000;
+    private static final SingleFlight<Integer, User> USER_BY_ID =
+            new SingleFlight<>("users.getUserById", User::new);
+    private static final BatchLoader<Integer, User> USER_LOADER =
+            DaoBatching.createIfEnabled("users.getUserById", ids -> new UserDao().getUsersByIds(ids));
 
     /**
      * Получает пользователя по его идентификатору из базы данных.
      *
+     * Одновременные запросы одного и того же пользователя объединяются в один запрос к базе данных,
+     * а при включённой пакетной загрузке запросы разных пользователей — в общий запрос {@code id = ANY(?)}.
+     *
      * @param id Идентификатор пользователя.
      * @return User объект пользователя, если он найден, иначе null.
      * @throws SQLException при ошибках SQL запросов.
      */
     public User getUserById(int id) throws SQLException {
+        return USER_BY_ID.execute(id, () -> loadUserById(id));
+    }
+
+    private User loadUserById(int id) throws SQLException {
+        if (USER_LOADER != null) {
+            return USER_LOADER.load(id);
+        }
+        return Resilience.read(() -> queryUserById(id));
+    }
+
+    private User queryUserById(int id) throws SQLException {
         String sql = "SELECT * FROM users WHERE id = ?";
         try (Connection connection = ConnectionFactory.getConnection();
              PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
@@ -36,6 +71,91 @@ public class UserDao {
         return null;
     }
 
+    /**
+     * Получает пользователей по набору идентификаторов одним запросом.
+     *
+     * @param ids Идентификаторы пользователей.
+     * @return Map найденные пользователи по идентификаторам; отсутствующие идентификаторы пропускаются.
+     * @throws SQLException при ошибках SQL запросов.
+     */
+    public Map<Integer, User> getUsersByIds(Collection<Integer> ids) throws SQLException {
+        return Resilience.read(() -> {
+            Map<Integer, User> users = new HashMap<>(ids.size() * 2);
+            if (ids.isEmpty()) {
+                return users;
+            }
+            String sql = "SELECT id, username, email FROM users WHERE id = ANY(?)";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+                try (ResultSet rs = preparedStatement.executeQuery()) {
+                    while (rs.next()) {
+                        User user = createUserFromResultSet(rs);
+                        users.put(user.getId(), user);
+                    }
+                }
+            }
+            return users;
+        });
+    }
+
+    /**
+     * Получает пользователя по адресу электронной почты без учёта регистра.
+     * Поиск выполняется по уникальному индексу {@code users_email_lower_key}.
+     *
+     * @param email Адрес электронной почты.
+     * @return User объект пользователя, если он найден, иначе null.
+     * @throws SQLException при ошибках SQL запросов.
+     */
+    public User getUserByEmail(String email) throws SQLException {
+        return getUserBy("lower(email) = ?", normalizeEmail(email));
+    }
+
+    /**
+     * Получает пользователя по имени. Поиск выполняется по уникальному индексу {@code users_username_key}.
+     *
+     * @param username Имя пользователя.
+     * @return User объект пользователя, если он найден, иначе null.
+     * @throws SQLException при ошибках SQL запросов.
+     */
+    public User getUserByUsername(String username) throws SQLException {
+        return getUserBy("username = ?", username);
+    }
+
+    /**
+     * Получает пользователей по списку адресов электронной почты одним запросом {@code = ANY(?)},
+     * который выполняется пробами уникального индекса, а не сканированием таблицы.
+     * Адреса, для которых пользователь не найден, пропускаются.
+     *
+     * @param emails Адреса электронной почты, не более {@value #MAX_BATCH_LOOKUP_SIZE}.
+     * @return List найденные пользователи в порядке идентификаторов.
+     * @throws SQLException             при ошибках SQL запросов.
+     * @throws IllegalArgumentException если адресов больше допустимого.
+     */
+    public List<User> getUsersByEmails(Collection<String> emails) throws SQLException {
+        return Resilience.read(() -> {
+            if (emails.size() > MAX_BATCH_LOOKUP_SIZE) {
+                throw new IllegalArgumentException("Можно запросить не более " + MAX_BATCH_LOOKUP_SIZE + " адресов");
+            }
+            List<User> users = new ArrayList<>();
+            if (emails.isEmpty()) {
+                return users;
+            }
+            String[] normalized = emails.stream().map(UserDao::normalizeEmail).distinct().toArray(String[]::new);
+            String sql = "SELECT id, username, email FROM users WHERE lower(email) = ANY(?) ORDER BY id";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setArray(1, connection.createArrayOf("varchar", normalized));
+                try (ResultSet rs = preparedStatement.executeQuery()) {
+                    while (rs.next()) {
+                        users.add(createUserFromResultSet(rs));
+                    }
+                }
+            }
+            return users;
+        });
+    }
+
     /**
      * Получает список всех пользователей из базы данных.
      *
@@ -43,34 +163,74 @@ public class UserDao {
      * @throws SQLException при ошибках SQL запросов.
      */
     public List<User> getAllUsers() throws SQLException {
-        List<User> users = new ArrayList<>();
-        String sql = "SELECT * FROM users";
-        try (Connection connection = ConnectionFactory.getConnection();
-             Statement statement = connection.createStatement();
-             ResultSet rs = statement.executeQuery(sql)) {
-            while (rs.next()) {
-                users.add(new User(rs.getInt("id"),
-                        rs.getString("username"),
-                        rs.getString("email")));
+        return Resilience.read(() -> {
+            List<User> users = new ArrayList<>();
+            String sql = "SELECT * FROM users";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(sql)) {
+                while (rs.next()) {
+                    users.add(new User(rs.getInt("id"),
+                            rs.getString("username"),
+                            rs.getString("email")));
+                }
             }
-        }
-        return users;
+            return users;
+        });
+    }
+
+    /**
+     * Получает всех пользователей в компактном колоночном представлении.
+     * Строки читаются курсором порциями по {@value #BULK_FETCH_SIZE} и сразу складываются в массивы.
+     *
+     * @return таблица всех пользователей.
+     * @throws SQLException при ошибках SQL запросов.
+     */
+    public UserTable getAllUsersTable() throws SQLException {
+        return Resilience.read(() -> {
+            UserTable.Builder builder = new UserTable.Builder();
+            String sql = "SELECT id, username, email FROM users";
+            try (Connection connection = ConnectionFactory.getConnection()) {
+                connection.setAutoCommit(false);
+                try (Statement statement = connection.createStatement()) {
+                    statement.setFetchSize(BULK_FETCH_SIZE);
+                    try (ResultSet rs = statement.executeQuery(sql)) {
+                        while (rs.next()) {
+                            builder.add(rs.getInt(1), rs.getString(2), rs.getString(3));
+                        }
+                    }
+                } finally {
+                    connection.commit();
+                }
+            }
+            return builder.build();
+        });
     }
 
     /**
      * Добавляет нового пользователя в базу данных.
      *
      * @param user Объект пользователя для добавления.
+     * @return созданный пользователь с идентификатором, сгенерированным базой данных.
      * @throws SQLException при ошибках SQL запросов.
      */
-    public void addUser(User user) throws SQLException {
-        String sql = "INSERT INTO users (username, email) VALUES (?, ?)";
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, user.getUsername());
-            preparedStatement.setString(2, user.getEmail());
-            preparedStatement.executeUpdate();
-        }
+    public User addUser(User user) throws SQLException {
+        return Resilience.transaction(() -> {
+            String sql = "INSERT INTO users (username, email) VALUES (?, ?) RETURNING id, username, email";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, user.getUsername());
+                preparedStatement.setString(2, user.getEmail());
+                try (ResultSet rs = preparedStatement.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Не удалось создать пользователя, идентификатор не получен.");
+                    }
+                    return new User(rs.getInt("id"),
+                            rs.getString("username"),
+                            rs.getString("email"));
+                }
+            }
+        });
     }
 
     /**
@@ -80,16 +240,43 @@ public class UserDao {
      * @throws SQLException при ошибках SQL запросов.
      */
     public void updateUser(User user) throws SQLException {
-        String sql = "UPDATE users SET username = ?, email = ? WHERE id = ?";
-        try (Connection connection = ConnectionFactory.getConnection();
-             PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-            preparedStatement.setString(1, user.getUsername());
-            preparedStatement.setString(2, user.getEmail());
-            preparedStatement.setInt(3, user.getId());
-            preparedStatement.executeUpdate();
+        boolean updated = Resilience.transaction(() -> {
+            String sql = "UPDATE users SET username = ?, email = ? WHERE id = ?";
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, user.getUsername());
+                preparedStatement.setString(2, user.getEmail());
+                preparedStatement.setInt(3, user.getId());
+                return preparedStatement.executeUpdate() > 0;
+            }
+        });
+        if (updated) {
+            USER_BY_ID.forget(user.getId());
         }
     }
 
+    /**
+     * Частично обновляет данные пользователя: изменяются только переданные поля,
+     * и только если их значения отличаются от текущих.
+     *
+     * @param id       Идентификатор пользователя.
+     * @param username Новое имя пользователя или null, если его не нужно менять.
+     * @param email    Новый адрес электронной почты или null, если его не нужно менять.
+     * @return true, если данные пользователя изменились; false, если пользователь не найден или изменений нет.
+     * @throws SQLException             при ошибках SQL запросов.
+     * @throws IllegalArgumentException если не передано ни одного поля.
+     */
+    public boolean patchUser(int id, String username, String email) throws SQLException {
+        boolean changed = new PartialUpdate("users")
+                .set("username", username)
+                .set("email", email)
+                .execute(id);
+        if (changed) {
+            USER_BY_ID.forget(id);
+        }
+        return changed;
+    }
+
     /**
      * Удаляет пользователя и все связанные с ним записи из базы данных.
      * Этот метод сначала удаляет все продукты, связанные с заказами пользователя,
@@ -109,37 +296,74 @@ public class UserDao {
         String sqlDeleteOrders = "DELETE FROM orders WHERE user_id = ?";
         String sqlDeleteUser = "DELETE FROM users WHERE id = ?";
 
-        Connection connection = null;
-        try {
-            connection = ConnectionFactory.getConnection();
-            connection.setAutoCommit(false);
+        Resilience.transaction(() -> {
+            Connection connection = null;
+            try {
+                connection = ConnectionFactory.getConnection();
+                connection.setAutoCommit(false);
 
-            try (PreparedStatement psOrderProducts = connection.prepareStatement(sqlDeleteOrderProducts)) {
-                psOrderProducts.setInt(1, id);
-                psOrderProducts.executeUpdate();
-            }
+                try (PreparedStatement psOrderProducts = connection.prepareStatement(sqlDeleteOrderProducts)) {
+                    psOrderProducts.setInt(1, id);
+                    psOrderProducts.executeUpdate();
+                }
 
-            try (PreparedStatement psOrders = connection.prepareStatement(sqlDeleteOrders)) {
-                psOrders.setInt(1, id);
-                psOrders.executeUpdate();
-            }
+                try (PreparedStatement psOrders = connection.prepareStatement(sqlDeleteOrders)) {
+                    psOrders.setInt(1, id);
+                    psOrders.executeUpdate();
+                }
 
-            try (PreparedStatement psUser = connection.prepareStatement(sqlDeleteUser)) {
-                psUser.setInt(1, id);
-                psUser.executeUpdate();
-            }
+                try (PreparedStatement psUser = connection.prepareStatement(sqlDeleteUser)) {
+                    psUser.setInt(1, id);
+                    psUser.executeUpdate();
+                }
 
-            connection.commit();
-        } catch (SQLException e) {
-            if (connection != null) {
-                connection.rollback();
+                connection.commit();
+                return null;
+            } catch (SQLException e) {
+                if (connection != null) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (connection != null) {
+                    connection.setAutoCommit(true);
+                    connection.close();
+                }
             }
-            throw e;
-        } finally {
-            if (connection != null) {
-                connection.setAutoCommit(true);
-                connection.close();
+        });
+        USER_BY_ID.forget(id);
+    }
+
+    private User getUserBy(String condition, String value) throws SQLException {
+        return Resilience.read(() -> {
+            String sql = "SELECT id, username, email FROM users WHERE " + condition;
+            try (Connection connection = ConnectionFactory.getConnection();
+                 PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+                preparedStatement.setString(1, value);
+                try (ResultSet rs = preparedStatement.executeQuery()) {
+                    if (rs.next()) {
+                        return createUserFromResultSet(rs);
+                    }
+                }
             }
-        }
+            return null;
+        });
+    }
+
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Создаёт объект User из текущей строки ResultSet.
+     *
+     * @param rs Результат запроса SQL, содержащий столбцы id, username и email.
+     * @return сформированный объект User.
+     * @throws SQLException при ошибках обработки запроса.
+     */
+    private User createUserFromResultSet(ResultSet rs) throws SQLException {
+        return new User(rs.getInt("id"),
+                rs.getString("username"),
+                rs.getString("email"));
     }
 }
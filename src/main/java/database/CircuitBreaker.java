@@ -0,0 +1,157 @@
+package database;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Автоматический выключатель (circuit breaker) для обращений к базе данных.
+ * После {@code failureThreshold} подряд ошибок доступности выключатель размыкается, и в течение
+ * {@code openMillis} запросы сразу отклоняются, не нагружая восстанавливающуюся базу. Затем
+ * выключатель пропускает один пробный запрос: при успехе замыкается, при ошибке снова размыкается.
+ * Если проба завершилась, не обратившись к базе данных, поток пробы освобождает её {@link #releaseProbe()};
+ * если же итог пробы так и не был отмечен, через {@code probeTimeoutMillis} разрешается следующая проба.
+ */
+public final class CircuitBreaker {
+    private static final Map<String, CircuitBreaker> REGISTRY = new ConcurrentHashMap<>();
+
+    /**
+     * Состояние выключателя.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final long probeTimeoutNanos;
+    private final LongAdder rejected = new LongAdder();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long probeStartedAt;
+    private Thread probeOwner;
+
+    /**
+     * Создаёт выключатель с ожиданием итога пробы не более 30 секунд и регистрирует его для выдачи метрик.
+     *
+     * @param name             Имя выключателя в метриках.
+     * @param failureThreshold Количество ошибок подряд, после которого выключатель размыкается.
+     * @param openMillis       Время, в течение которого запросы отклоняются.
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this(name, failureThreshold, openMillis, TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Создаёт выключатель и регистрирует его для выдачи метрик.
+     *
+     * @param name               Имя выключателя в метриках.
+     * @param failureThreshold   Количество ошибок подряд, после которого выключатель размыкается.
+     * @param openMillis         Время, в течение которого запросы отклоняются.
+     * @param probeTimeoutMillis Время, после которого неотмеченная проба больше не блокирует следующую.
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis, long probeTimeoutMillis) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Порог ошибок должен быть положительным: " + failureThreshold);
+        }
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.probeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(probeTimeoutMillis);
+        REGISTRY.put(name, this);
+    }
+
+    /**
+     * Возвращает все зарегистрированные выключатели для выдачи метрик.
+     */
+    public static Collection<CircuitBreaker> all() {
+        return Collections.unmodifiableCollection(REGISTRY.values());
+    }
+
+    /**
+     * Проверяет, можно ли обратиться к базе данных. После разрешённого обращения нужно вызвать
+     * {@link #recordSuccess()} или {@link #recordFailure()}.
+     *
+     * @return true, если обращение разрешено.
+     */
+    public synchronized boolean allowRequest() {
+        long now = System.nanoTime();
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && (!probeInFlight || now - probeStartedAt >= probeTimeoutNanos)) {
+            probeInFlight = true;
+            probeStartedAt = now;
+            probeOwner = Thread.currentThread();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Отмечает успешное обращение и замыкает выключатель. Вызывается только после того, как база данных
+     * выполнила операцию: полученное соединение ещё не доказывает, что база работает.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        probeOwner = null;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Освобождает пробу, взятую текущим потоком, не отмечая ни успеха, ни ошибки: операция завершилась,
+     * не узнав, доступна ли база данных (например, соединение не было выдано пулом или операция отклонена
+     * до обращения к базе). Следующий запрос сразу станет новой пробой. Пробы других потоков не затрагиваются.
+     */
+    public synchronized void releaseProbe() {
+        if (probeInFlight && probeOwner == Thread.currentThread()) {
+            probeInFlight = false;
+            probeOwner = null;
+        }
+    }
+
+    /**
+     * Отмечает ошибку доступности базы данных.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        probeOwner = null;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Возвращает количество запросов, отклонённых без обращения к базе данных.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -1,42 +1,167 @@
 package database;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ConnectionFactory {
+    private static final boolean POOL_ENABLED = ConfigLoader.getBooleanProperty("database.pool.enabled", false);
+
     private static String url;
     private static String username;
     private static String password;
     private static boolean isEnvironment = false;
+    private static volatile HikariDataSource pool;
 
     public static void configureEnvironment(String url, String username, String password) {
         ConnectionFactory.url = url;
         ConnectionFactory.username = username;
         ConnectionFactory.password = password;
         isEnvironment = true;
+        closePool();
     }
 
     public static void clearEnvironment() {
         isEnvironment = false;
+        closePool();
+    }
+
+    /**
+     * Открывает соединение с базой данных через общий {@link CircuitBreaker}.
+     * Пока выключатель разомкнут, соединение не открывается, а сразу выбрасывается исключение.
+     * Здесь учитываются только ошибки соединения: успех отмечает {@link Resilience} после выполнения операции,
+     * потому что соединение из пула выдаётся без обращения к базе данных. Истечение ожидания свободного
+     * соединения в пуле ошибкой базы данных не считается: пул занят запросами самого приложения.
+     * При {@code database.pool.enabled=true} соединения берутся из пула HikariCP.
+     *
+     * @return соединение, создающее операторы с таймаутом текущего {@link QueryContext}.
+     * @throws DatabaseUnavailableException если база данных недоступна.
+     * @throws PoolExhaustedException       если пул не выдал соединение за время ожидания.
+     */
+    public static Connection getConnection() throws DatabaseUnavailableException {
+        CircuitBreaker breaker = Resilience.breaker();
+        if (!breaker.allowRequest()) {
+            throw new DatabaseUnavailableException("База данных временно недоступна");
+        }
+        try {
+            return QueryContext.wrap(openConnection());
+        } catch (SQLException e) {
+            if (isPoolExhausted(e)) {
+                breaker.releaseProbe();
+                throw new PoolExhaustedException("Нет свободных соединений в пуле: " + e.getMessage(), e);
+            }
+            breaker.recordFailure();
+            throw new DatabaseUnavailableException("Не удалось подключиться к базе данных: " + e.getMessage(), e);
+        }
     }
 
-    public static Connection getConnection() {
-        if (isEnvironment) {
-            try {
-                return DriverManager.getConnection(url, username, password);
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+    /**
+     * Заранее открывает минимальное количество соединений пула, чтобы первые запросы
+     * не тратили время на установку соединений. Без пула проверяет одно соединение.
+     * Выключатель проверяется один раз на весь прогрев, поэтому во время пробы прогрев не отклоняет
+     * собственные соединения; после прогрева проба освобождается, так как ни один запрос ещё не выполнен.
+     *
+     * @throws DatabaseUnavailableException если база данных недоступна.
+     */
+    public static void warmUp() throws DatabaseUnavailableException {
+        CircuitBreaker breaker = Resilience.breaker();
+        if (!breaker.allowRequest()) {
+            throw new DatabaseUnavailableException("База данных временно недоступна");
+        }
+        int connections = POOL_ENABLED ? pool().getMinimumIdle() : 1;
+        List<Connection> opened = new ArrayList<>(connections);
+        try {
+            for (int i = 0; i < connections; i++) {
+                opened.add(openConnection());
             }
-        } else {
-            String url = ConfigLoader.getProperty("database.url");
-            String username = ConfigLoader.getProperty("database.username");
-            String password = ConfigLoader.getProperty("database.password");
-            try {
-                return DriverManager.getConnection(url, username, password);
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
+            breaker.releaseProbe();
+        } catch (SQLException e) {
+            breaker.recordFailure();
+            throw new DatabaseUnavailableException("Не удалось подключиться к базе данных: " + e.getMessage(), e);
+        } finally {
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException ignored) {
+                    // Соединение возвращается в пул или закрывается, ошибка закрытия не влияет на прогрев.
+                }
             }
         }
     }
+
+    /**
+     * Проверяет, что соединение не выдано из-за истечения ожидания в пуле, а не из-за ошибки базы данных.
+     * HikariCP в этом случае выбрасывает {@link SQLTransientConnectionException}, причиной которого
+     * становится последняя ошибка открытия соединения; без причины все соединения пула исправны и заняты.
+     */
+    static boolean isPoolExhausted(SQLException e) {
+        return POOL_ENABLED && e instanceof SQLTransientConnectionException && e.getCause() == null;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        return POOL_ENABLED
+                ? pool().getConnection()
+                : DriverManager.getConnection(url(), username(), password());
+    }
+
+    /**
+     * Возвращает пул соединений или null, если пул выключен или ещё не создан.
+     */
+    public static HikariDataSource getPool() {
+        return pool;
+    }
+
+    private static HikariDataSource pool() {
+        HikariDataSource current = pool;
+        if (current == null) {
+            synchronized (ConnectionFactory.class) {
+                current = pool;
+                if (current == null) {
+                    current = createPool();
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static HikariDataSource createPool() {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("restjdbcapp");
+        config.setJdbcUrl(url());
+        config.setUsername(username());
+        config.setPassword(password());
+        config.setMaximumPoolSize(ConfigLoader.getIntProperty("database.pool.maximumPoolSize", 20));
+        config.setMinimumIdle(ConfigLoader.getIntProperty("database.pool.minimumIdle", 4));
+        config.setConnectionTimeout(ConfigLoader.getLongProperty("database.pool.connectionTimeoutMillis", 2000));
+        // Пул создаётся и при недоступной базе: ошибки соединения учитывает CircuitBreaker при выдаче соединений.
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    private static synchronized void closePool() {
+        HikariDataSource current = pool;
+        pool = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private static String url() {
+        return isEnvironment ? url : ConfigLoader.getProperty("database.url");
+    }
+
+    private static String username() {
+        return isEnvironment ? username : ConfigLoader.getProperty("database.username");
+    }
+
+    private static String password() {
+        return isEnvironment ? password : ConfigLoader.getProperty("database.password");
+    }
 }
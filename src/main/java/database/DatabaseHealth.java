@@ -0,0 +1,93 @@
+package database;
+
+import lombok.Data;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Диагностика базы данных для эндпоинта {@code /health}.
+ * Проверяет доступность базы дешёвым запросом {@code SELECT 1} с коротким таймаутом, а также читает
+ * долю попаданий в буферный кэш PostgreSQL и отставание реплик из {@code pg_stat_replication}.
+ * Реплики видны на основном сервере без дополнительной настройки приложения; если реплик нет, список пуст.
+ */
+public class DatabaseHealth {
+    private static final String CACHE_HIT_RATIO_SQL = "SELECT sum(blks_hit)::float8 / nullif(sum(blks_hit) + sum(blks_read), 0) "
+            + "FROM pg_stat_database WHERE datname = current_database()";
+    private static final String REPLICATION_SQL = "SELECT coalesce(application_name, client_addr::text), "
+            + "extract(epoch FROM replay_lag)::float8 FROM pg_stat_replication";
+
+    /**
+     * Результат проверки базы данных.
+     */
+    @Data
+    public static class Status {
+        private boolean reachable;
+        private long latencyMillis;
+        private String error;
+        private Double cacheHitRatio;
+        private List<Replica> replicas = new ArrayList<>();
+    }
+
+    /**
+     * Реплика и её отставание воспроизведения в секундах; null, если реплика не отстаёт или данных нет.
+     */
+    @Data
+    public static class Replica {
+        private final String name;
+        private final Double replayLagSeconds;
+    }
+
+    /**
+     * Проверяет базу данных. Ошибки не выбрасываются, а возвращаются в {@link Status#getError()}.
+     *
+     * @param timeoutSeconds Таймаут каждого диагностического запроса.
+     * @return результат проверки.
+     */
+    public Status check(int timeoutSeconds) {
+        Status status = new Status();
+        long start = System.nanoTime();
+        try (Connection connection = ConnectionFactory.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(timeoutSeconds);
+            try (ResultSet resultSet = statement.executeQuery("SELECT 1")) {
+                resultSet.next();
+            }
+            // Выполненный SELECT 1 доказывает доступность базы, поэтому проверка может завершить пробу выключателя.
+            Resilience.breaker().recordSuccess();
+            status.setReachable(true);
+            status.setLatencyMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            try (ResultSet resultSet = statement.executeQuery(CACHE_HIT_RATIO_SQL)) {
+                if (resultSet.next()) {
+                    double ratio = resultSet.getDouble(1);
+                    status.setCacheHitRatio(resultSet.wasNull() ? null : ratio);
+                }
+            }
+            try (ResultSet resultSet = statement.executeQuery(REPLICATION_SQL)) {
+                while (resultSet.next()) {
+                    double lag = resultSet.getDouble(2);
+                    status.getReplicas().add(new Replica(resultSet.getString(1), resultSet.wasNull() ? null : lag));
+                }
+            }
+        } catch (SQLException e) {
+            if (!status.isReachable()) {
+                status.setLatencyMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (e instanceof DatabaseUnavailableException) {
+                    Resilience.breaker().releaseProbe();
+                } else if (Resilience.isUnavailable(e)) {
+                    Resilience.breaker().recordFailure();
+                } else {
+                    // База данных ответила ошибкой, например отменой по таймауту, значит, она доступна.
+                    Resilience.breaker().recordSuccess();
+                }
+            }
+            status.setError(e.getMessage());
+        }
+        return status;
+    }
+}
@@ -0,0 +1,20 @@
+package database;
+
+import java.sql.SQLException;
+
+/**
+ * Исключение, означающее, что база данных временно недоступна: не удалось установить соединение
+ * или запросы отклоняются без обращения к базе, пока открыт {@link CircuitBreaker}.
+ * Клиенту в этом случае следует повторить запрос позже.
+ */
+public class DatabaseUnavailableException extends SQLException {
+    private static final String CONNECTION_EXCEPTION = "08000";
+
+    public DatabaseUnavailableException(String message) {
+        super(message, CONNECTION_EXCEPTION);
+    }
+
+    public DatabaseUnavailableException(String message, Throwable cause) {
+        super(message, CONNECTION_EXCEPTION, cause);
+    }
+}
@@ -0,0 +1,14 @@
+package database;
+
+/**
+ * Исключение, означающее, что за {@code database.pool.connectionTimeoutMillis} пул не выдал соединение,
+ * потому что все соединения заняты запросами этого же приложения.
+ * Это перегрузка приложения, а не отказ базы данных: ошибка не учитывается в {@link CircuitBreaker}
+ * и не повторяется {@link Resilience}, а клиент, как и при недоступности базы, получает 503.
+ */
+public class PoolExhaustedException extends DatabaseUnavailableException {
+
+    public PoolExhaustedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,211 @@
+package database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Контекст выполнения SQL-запросов в рамках одного HTTP-запроса.
+ * Хранит таймаут выполнения запросов для эндпоинта и отслеживает созданные в потоке запроса
+ * операторы, чтобы их можно было прервать через {@link Statement#cancel()}, если истёк срок
+ * обработки HTTP-запроса. Контекст привязывается к потоку на время обработки запроса фильтром
+ * {@link QueryTimeoutFilter}.
+ * <p>
+ * Соединения, выдаваемые {@link ConnectionFactory}, оборачиваются методом {@link #wrap(Connection)}:
+ * каждому созданному оператору устанавливается {@link Statement#setQueryTimeout(int)} — таймаут текущего
+ * контекста или, вне HTTP-запроса (фоновые потоки), таймаут по умолчанию {@code query.timeoutSeconds}.
+ */
+public final class QueryContext implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(QueryContext.class);
+    private static final String TIMEOUT_PROPERTY = "query.timeoutSeconds";
+    /**
+     * SQLSTATE PostgreSQL для запроса, отменённого по таймауту или по требованию (query_canceled).
+     */
+    public static final String QUERY_CANCELED = "57014";
+    private static final int DEFAULT_TIMEOUT_SECONDS = ConfigLoader.getIntProperty(TIMEOUT_PROPERTY, 30);
+    private static final ThreadLocal<QueryContext> CURRENT = new ThreadLocal<>();
+
+    private final int timeoutSeconds;
+    private final long startNanos = System.nanoTime();
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    private QueryContext(int timeoutSeconds) {
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Создаёт контекст и привязывает его к текущему потоку.
+     *
+     * @param timeoutSeconds Таймаут выполнения каждого SQL-запроса в секундах, 0 — без ограничения.
+     * @return контекст, который нужно закрыть по окончании обработки запроса.
+     */
+    public static QueryContext open(int timeoutSeconds) {
+        QueryContext context = new QueryContext(timeoutSeconds);
+        CURRENT.set(context);
+        return context;
+    }
+
+    /**
+     * Возвращает контекст текущего потока или null, если поток не обрабатывает HTTP-запрос.
+     */
+    public static QueryContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Возвращает время, оставшееся до истечения срока HTTP-запроса текущего потока.
+     * Вне HTTP-запроса срок отсчитывается от текущего момента по таймауту по умолчанию.
+     * Используется, когда запрос ожидает SQL-операцию, выполняемую в другом потоке.
+     *
+     * @return оставшееся время в миллисекундах, 0 — срок истёк, {@link Long#MAX_VALUE} — без ограничения.
+     */
+    public static long remainingMillis() {
+        QueryContext context = CURRENT.get();
+        if (context == null) {
+            return DEFAULT_TIMEOUT_SECONDS > 0 ? TimeUnit.SECONDS.toMillis(DEFAULT_TIMEOUT_SECONDS) : Long.MAX_VALUE;
+        }
+        if (context.timeoutSeconds <= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (context.cancelled) {
+            return 0;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - context.startNanos);
+        return Math.max(0, TimeUnit.SECONDS.toMillis(context.timeoutSeconds) - elapsedMillis);
+    }
+
+    /**
+     * Возвращает таймаут для эндпоинта из свойства {@code query.timeoutSeconds.<путь>}, где путь сервлета
+     * записан через точки, например {@code query.timeoutSeconds.products.autocomplete}.
+     * Если свойство не задано, используется таймаут по умолчанию.
+     *
+     * @param servletPath Путь сервлета, например {@code /products/autocomplete}.
+     * @return таймаут в секундах.
+     */
+    public static int timeoutFor(String servletPath) {
+        String endpoint = servletPath == null ? "" : servletPath.replaceFirst("^/", "").replace('/', '.');
+        if (endpoint.isEmpty()) {
+            return DEFAULT_TIMEOUT_SECONDS;
+        }
+        return ConfigLoader.getIntProperty(TIMEOUT_PROPERTY + "." + endpoint, DEFAULT_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Оборачивает соединение так, чтобы создаваемые им операторы получали таймаут и
+     * регистрировались в контексте текущего потока для возможной отмены.
+     *
+     * @param connection Исходное соединение.
+     * @return обёрнутое соединение.
+     */
+    public static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new StatementTracker(connection));
+    }
+
+    public int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Прерывает все выполняющиеся операторы контекста. Операторы, созданные после отмены,
+     * сразу завершаются ошибкой с SQLSTATE 57014 (query_canceled).
+     * Может вызываться из любого потока.
+     */
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : statements) {
+            cancel(statement);
+        }
+    }
+
+    /**
+     * Отвязывает контекст от текущего потока.
+     */
+    @Override
+    public void close() {
+        statements.clear();
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Регистрирует оператор для отмены. Закрытые операторы при этом удаляются из набора, поэтому набор
+     * не растёт в длинных запросах вроде импорта, а {@link #cancel()} обходит только открытые операторы.
+     */
+    private void register(Statement statement) throws SQLException {
+        statements.removeIf(QueryContext::isClosed);
+        statements.add(statement);
+        if (cancelled) {
+            statements.remove(statement);
+            statement.close();
+            throw new SQLException("Запрос отменён", QUERY_CANCELED);
+        }
+    }
+
+    private static boolean isClosed(Statement statement) {
+        try {
+            return statement.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void cancel(Statement statement) {
+        try {
+            if (!statement.isClosed()) {
+                statement.cancel();
+            }
+        } catch (SQLException e) {
+            logger.debug("Не удалось отменить SQL-запрос: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Обработчик обёрнутого соединения: настраивает операторы при создании.
+     */
+    private static final class StatementTracker implements InvocationHandler {
+        private final Connection connection;
+
+        private StatementTracker(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement) {
+                Statement statement = (Statement) result;
+                QueryContext context = CURRENT.get();
+                int timeout = context == null ? DEFAULT_TIMEOUT_SECONDS : context.timeoutSeconds;
+                if (timeout > 0) {
+                    statement.setQueryTimeout(timeout);
+                }
+                if (context != null) {
+                    context.register(statement);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package database;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Фильтр, ограничивающий время выполнения SQL-запросов в рамках HTTP-запроса.
+ * Для каждого запроса открывается {@link QueryContext} с таймаутом эндпоинта из {@code config.properties}:
+ * он устанавливается каждому оператору, а по истечении того же срока от начала обработки все ещё
+ * выполняющиеся операторы запроса отменяются, чтобы запрос из нескольких SQL-операций не удерживал
+ * соединение дольше срока.
+ */
+public class QueryTimeoutFilter extends HttpFilter {
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "query-timeout-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        int timeoutSeconds = QueryContext.timeoutFor(request.getServletPath());
+        QueryContext context = QueryContext.open(timeoutSeconds);
+        ScheduledFuture<?> deadline = timeoutSeconds > 0
+                ? WATCHDOG.schedule(context::cancel, timeoutSeconds, TimeUnit.SECONDS)
+                : null;
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            context.close();
+        }
+    }
+}
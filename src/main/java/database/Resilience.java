@@ -0,0 +1,157 @@
+package database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Устойчивое выполнение обращений к базе данных: общий {@link CircuitBreaker} и повтор
+ * с экспоненциальной задержкой и случайным разбросом (full jitter).
+ * <p>
+ * Повторяются только операции, которые безопасно выполнить ещё раз: чтения ({@link #read(Operation)})
+ * при любых временных ошибках и транзакции целиком ({@link #transaction(Operation)}) при конфликтах
+ * сериализации и взаимоблокировках, после которых база данных гарантированно откатила транзакцию.
+ * Пока выключатель разомкнут, операции сразу завершаются {@link DatabaseUnavailableException}.
+ * <p>
+ * Успех в выключателе отмечается здесь, после завершения операции: операция выполнена или база данных
+ * ответила ошибкой, не связанной с доступностью. {@link ConnectionFactory} учитывает только ошибки
+ * соединения, поэтому соединение из пула само по себе не сбрасывает счётчик ошибок и не замыкает выключатель.
+ * Каждое обращение DAO к базе данных выполняется через {@link #read(Operation)} или {@link #transaction(Operation)}
+ * на одном соединении: вложенное соединение во время пробы было бы отклонено выключателем.
+ */
+public final class Resilience {
+    private static final Logger logger = LoggerFactory.getLogger(Resilience.class);
+    private static final int MAX_ATTEMPTS = ConfigLoader.getIntProperty("database.retry.maxAttempts", 3);
+    private static final long BASE_DELAY_MILLIS = ConfigLoader.getLongProperty("database.retry.baseDelayMillis", 50);
+    private static final long MAX_DELAY_MILLIS = ConfigLoader.getLongProperty("database.retry.maxDelayMillis", 1000);
+    private static final long OPEN_MILLIS = ConfigLoader.getLongProperty("database.breaker.openMillis", 5000);
+    private static final CircuitBreaker BREAKER = new CircuitBreaker("database",
+            ConfigLoader.getIntProperty("database.breaker.failureThreshold", 5), OPEN_MILLIS,
+            ConfigLoader.getLongProperty("database.breaker.probeTimeoutMillis", 30000));
+
+    /**
+     * Операция с базой данных.
+     *
+     * @param <T> тип результата.
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T execute() throws SQLException;
+    }
+
+    private Resilience() {
+    }
+
+    /**
+     * Возвращает общий выключатель обращений к базе данных.
+     */
+    public static CircuitBreaker breaker() {
+        return BREAKER;
+    }
+
+    /**
+     * Возвращает рекомендуемую задержку повтора для клиента в секундах: время, на которое размыкается выключатель.
+     */
+    public static long retryAfterSeconds() {
+        return Math.max(1, (OPEN_MILLIS + 999) / 1000);
+    }
+
+    /**
+     * Выполняет идемпотентное чтение, повторяя его при ошибках доступности, конфликтах сериализации
+     * и взаимоблокировках.
+     *
+     * @param operation Операция чтения.
+     * @return результат операции.
+     * @throws SQLException ошибка последней попытки или {@link DatabaseUnavailableException}.
+     */
+    public static <T> T read(Operation<T> operation) throws SQLException {
+        return execute(operation, true);
+    }
+
+    /**
+     * Выполняет транзакцию целиком, повторяя её только при конфликтах сериализации и взаимоблокировках.
+     * Ошибки соединения не повторяются: неизвестно, была ли транзакция зафиксирована.
+     *
+     * @param operation Операция, открывающая и фиксирующая транзакцию.
+     * @return результат операции.
+     * @throws SQLException ошибка последней попытки или {@link DatabaseUnavailableException}.
+     */
+    public static <T> T transaction(Operation<T> operation) throws SQLException {
+        return execute(operation, false);
+    }
+
+    private static <T> T execute(Operation<T> operation, boolean idempotent) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = operation.execute();
+                BREAKER.recordSuccess();
+                return result;
+            } catch (DatabaseUnavailableException e) {
+                // Выключатель разомкнут или соединение не установлено: ошибка уже учтена в getConnection().
+                // Если же эта операция взяла пробу и завершилась, не дойдя до базы, проба освобождается.
+                BREAKER.releaseProbe();
+                if (!idempotent || e instanceof PoolExhaustedException || BREAKER.getState() != CircuitBreaker.State.CLOSED || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                backOff(attempt, e);
+            } catch (SQLException e) {
+                boolean unavailable = isUnavailable(e);
+                if (unavailable) {
+                    BREAKER.recordFailure();
+                } else {
+                    // База данных ответила, значит, она доступна, даже если сама операция отклонена.
+                    BREAKER.recordSuccess();
+                }
+                boolean retryable = isConflict(e) || (idempotent && unavailable);
+                if (!retryable || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                backOff(attempt, e);
+            } catch (RuntimeException e) {
+                BREAKER.releaseProbe();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Проверяет, означает ли ошибка недоступность базы данных: класс SQLSTATE 08 (ошибки соединения),
+     * 57P01–57P03 (остановка или перезапуск сервера) или 53300 (исчерпан лимит соединений).
+     */
+    static boolean isUnavailable(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("08") || state.startsWith("57P") || "53300".equals(state));
+    }
+
+    /**
+     * Проверяет, является ли ошибка конфликтом сериализации (40001) или взаимоблокировкой (40P01).
+     */
+    static boolean isConflict(SQLException e) {
+        String state = e.getSQLState();
+        return "40001".equals(state) || "40P01".equals(state);
+    }
+
+    /**
+     * Проверяет, отклонены ли сами данные: класс SQLSTATE 22 (некорректные данные) или 23 (нарушение
+     * ограничений целостности). Такая ошибка гарантирует, что транзакция откатилась, и зависит только от данных,
+     * поэтому остальные данные группы можно сохранить отдельно.
+     */
+    public static boolean isDataError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && (state.startsWith("22") || state.startsWith("23"));
+    }
+
+    private static void backOff(int attempt, SQLException cause) throws SQLException {
+        long ceiling = Math.min(MAX_DELAY_MILLIS, BASE_DELAY_MILLIS << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        logger.debug("Повтор обращения к базе данных через {} мс (попытка {}): {}", delay, attempt, cause.getMessage());
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ingestion;
+
+/**
+ * Исключение, сигнализирующее о некорректных данных в теле запроса импорта.
+ * Содержит количество элементов, сохранённых до обнаружения ошибки: пакеты, записанные раньше, не откатываются.
+ */
+public class ImportException extends Exception {
+    private final long imported;
+
+    public ImportException(String message, long imported) {
+        super(message);
+        this.imported = imported;
+    }
+
+    public ImportException(String message, long imported, Throwable cause) {
+        super(message, cause);
+        this.imported = imported;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+}
@@ -0,0 +1,281 @@
+package ingestion;
+
+import dao.OrderDao;
+import database.Resilience;
+import logging.RequestIdFilter;
+import model.entity.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Очередь приёма заказов с групповой фиксацией (group commit).
+ * Сервлет помещает проверенные заказы в ограниченную очередь, а отдельный поток-писатель
+ * забирает их группами и сохраняет каждую группу одной транзакцией через {@link OrderDao#addOrders(List, List)}
+ * вместе с ключами идемпотентности заказов.
+ * Запрос подтверждается только после фиксации транзакции, в которую попал его заказ.
+ * Если очередь заполнена, новые заказы отклоняются ({@link RejectedExecutionException}),
+ * что позволяет сервлету ответить клиенту 503 вместо неограниченного роста очереди.
+ * <p>
+ * Если подтверждение не получено вовремя, заказ, ещё ожидающий в очереди, отменяется и гарантированно
+ * не будет записан; заказ, уже попавший в записываемую группу, отменить нельзя, и вызывающий получает
+ * {@link OrderPendingException} с future, по которому можно узнать итог записи.
+ * <p>
+ * Если группа отклонена из-за данных (SQLSTATE класса 22 или 23), заказы сохраняются по одному, чтобы ошибка
+ * одного заказа не отклоняла остальные. При ошибках доступности и других ошибках, после которых неизвестно,
+ * зафиксирована ли группа, вся группа завершается ошибкой: повторная запись могла бы создать дубликаты.
+ */
+public class OrderIngestionQueue implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIngestionQueue.class);
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final OrderDao orderDao;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int maxBatchSize;
+    private final long offerTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    /**
+     * Создаёт очередь и запускает поток-писатель.
+     *
+     * @param orderDao           DAO для сохранения групп заказов.
+     * @param capacity           максимальное количество заказов, ожидающих записи.
+     * @param maxBatchSize       максимальное количество заказов в одной транзакции.
+     * @param offerTimeoutMillis время ожидания свободного места в очереди перед отказом.
+     */
+    public OrderIngestionQueue(OrderDao orderDao, int capacity, int maxBatchSize, long offerTimeoutMillis) {
+        this.orderDao = orderDao;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writer = new Thread(this::drainLoop, "order-ingestion-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Помещает заказ в очередь.
+     *
+     * @param order Заказ для сохранения.
+     * @return future, завершающийся идентификатором заказа после фиксации группы.
+     * @throws RejectedExecutionException если очередь заполнена или закрыта.
+     * @throws InterruptedException       если поток был прерван во время ожидания места в очереди.
+     */
+    public CompletableFuture<Integer> submit(Order order) throws InterruptedException {
+        return enqueue(order, null).result;
+    }
+
+    private PendingOrder enqueue(Order order, String idempotencyKey) throws InterruptedException {
+        if (!running) {
+            throw new RejectedExecutionException("Очередь приёма заказов остановлена");
+        }
+        PendingOrder pending = new PendingOrder(order, idempotencyKey, RequestIdFilter.current());
+        if (!queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+            throw new RejectedExecutionException("Очередь приёма заказов переполнена");
+        }
+        return pending;
+    }
+
+    /**
+     * Помещает заказ в очередь и ожидает фиксации транзакции, в которую он попал.
+     * Если подтверждение не получено вовремя и заказ ещё не забран писателем, он удаляется из очереди
+     * и запрос отклоняется как при переполнении: повтор запроса не создаст дубликат.
+     *
+     * @param order         Заказ для сохранения.
+     * @param timeoutMillis максимальное время ожидания подтверждения.
+     * @return идентификатор созданного заказа.
+     * @throws SQLException               если группу не удалось сохранить.
+     * @throws OrderPendingException      если время истекло, а заказ уже записывается и его итог пока неизвестен.
+     * @throws InterruptedException       если поток был прерван во время ожидания.
+     * @throws RejectedExecutionException если очередь заполнена или закрыта, либо заказ отменён по таймауту.
+     */
+    public int submitAndAwait(Order order, long timeoutMillis)
+            throws SQLException, OrderPendingException, InterruptedException {
+        return submitAndAwait(order, null, timeoutMillis);
+    }
+
+    /**
+     * Помещает заказ в очередь вместе с ключом идемпотентности, который сохраняется в той же транзакции,
+     * что и заказ, и ожидает фиксации этой транзакции. Если ключ уже занят, возвращается ранее созданный заказ.
+     *
+     * @param order          Заказ для сохранения.
+     * @param idempotencyKey Ключ идемпотентности или null.
+     * @param timeoutMillis  максимальное время ожидания подтверждения.
+     * @return идентификатор созданного (или ранее созданного по этому ключу) заказа.
+     * @throws SQLException               если группу не удалось сохранить.
+     * @throws OrderPendingException      если время истекло, а заказ уже записывается и его итог пока неизвестен.
+     * @throws InterruptedException       если поток был прерван во время ожидания.
+     * @throws RejectedExecutionException если очередь заполнена или закрыта, либо заказ отменён по таймауту.
+     */
+    public int submitAndAwait(Order order, String idempotencyKey, long timeoutMillis)
+            throws SQLException, OrderPendingException, InterruptedException {
+        PendingOrder pending = enqueue(order, idempotencyKey);
+        try {
+            return await(pending.result, timeoutMillis);
+        } catch (TimeoutException e) {
+            if (pending.cancel()) {
+                queue.remove(pending);
+                throw new RejectedExecutionException("Заказ не записан за " + timeoutMillis + " мс и отменён");
+            }
+            throw new OrderPendingException(pending.result);
+        }
+    }
+
+    /**
+     * Ожидает результат записи заказа, разворачивая ошибку записи в {@link SQLException}.
+     *
+     * @param result        future, полученный от очереди.
+     * @param timeoutMillis максимальное время ожидания.
+     * @return идентификатор созданного заказа.
+     * @throws SQLException         если заказ не удалось сохранить.
+     * @throws TimeoutException     если итог записи не получен вовремя.
+     * @throws InterruptedException если поток был прерван во время ожидания.
+     */
+    public static int await(CompletableFuture<Integer> result, long timeoutMillis)
+            throws SQLException, TimeoutException, InterruptedException {
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            throw new SQLException("Ошибка сохранения заказа: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Возвращает количество заказов, ожидающих записи.
+     */
+    public int size() {
+        return queue.size();
+    }
+
+    /**
+     * Останавливает поток-писатель. Заказы, оставшиеся в очереди, завершаются с ошибкой.
+     */
+    @Override
+    public void close() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingOrder> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        SQLException error = new SQLException("Очередь приёма заказов остановлена");
+        remaining.forEach(p -> p.result.completeExceptionally(error));
+    }
+
+    private void drainLoop() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingOrder first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                // Заказы, отменённые по таймауту до попадания в группу, не записываются.
+                batch.removeIf(pending -> !pending.claim());
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Сохраняет группу заказов одной транзакцией. Если группа отклонена из-за данных,
+     * заказы сохраняются по одному, чтобы ошибка одного заказа не отклоняла всю группу.
+     * Остальные ошибки завершают всю группу: группа могла быть зафиксирована до обрыва соединения.
+     */
+    private void writeBatch(List<PendingOrder> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        List<String> idempotencyKeys = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            orders.add(pending.order);
+            idempotencyKeys.add(pending.idempotencyKey);
+        }
+        try {
+            int[] orderIds = orderDao.addOrders(orders, idempotencyKeys);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result.complete(orderIds[i]);
+            }
+        } catch (SQLException e) {
+            if (!Resilience.isDataError(e)) {
+                logger.warn("Не удалось сохранить группу из {} заказов: {}", batch.size(), e.getMessage());
+                batch.forEach(p -> p.result.completeExceptionally(e));
+                return;
+            }
+            logger.warn("Группа из {} заказов отклонена из-за данных, сохраняем по одному: {}",
+                    batch.size(), e.getMessage());
+            for (PendingOrder pending : batch) {
+                // Записи журнала при сохранении заказа относятся к запросу, который его отправил.
+                try (MDC.MDCCloseable ignored = MDC.putCloseable(RequestIdFilter.MDC_KEY, pending.requestId)) {
+                    pending.result.complete(orderDao.addOrder(pending.order, pending.idempotencyKey));
+                } catch (SQLException singleError) {
+                    pending.result.completeExceptionally(singleError);
+                }
+            }
+        } catch (RuntimeException e) {
+            batch.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Заказ, ожидающий записи, и future для подтверждения запроса.
+     * Состояние переходит из QUEUED либо в WRITING (заказ забран писателем), либо в CANCELLED
+     * (запрос перестал ждать), и только один из этих переходов может состояться.
+     */
+    private static final class PendingOrder {
+        private static final int QUEUED = 0;
+        private static final int WRITING = 1;
+        private static final int CANCELLED = 2;
+
+        private final Order order;
+        private final String idempotencyKey;
+        private final String requestId;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private PendingOrder(Order order, String idempotencyKey, String requestId) {
+            this.order = order;
+            this.idempotencyKey = idempotencyKey;
+            this.requestId = requestId;
+        }
+
+        private boolean claim() {
+            return state.compareAndSet(QUEUED, WRITING);
+        }
+
+        private boolean cancel() {
+            if (!state.compareAndSet(QUEUED, CANCELLED)) {
+                return false;
+            }
+            result.cancel(false);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ingestion;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Исключение, сигнализирующее о том, что подтверждение записи заказа не получено вовремя,
+ * а сам заказ уже попал в записываемую группу и может быть зафиксирован позже.
+ * Содержит future, который завершится идентификатором заказа или ошибкой записи.
+ */
+public class OrderPendingException extends Exception {
+    private final transient CompletableFuture<Integer> result;
+
+    public OrderPendingException(CompletableFuture<Integer> result) {
+        super("Заказ записывается, итог записи пока неизвестен");
+        this.result = result;
+    }
+
+    public CompletableFuture<Integer> getResult() {
+        return result;
+    }
+}
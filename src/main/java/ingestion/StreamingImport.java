@@ -0,0 +1,148 @@
+package ingestion;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import database.Resilience;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковый импорт JSON-массива элементов пакетами.
+ * Тело запроса разбирается по токенам парсером Jackson: каждый элемент массива разбирается и проверяется
+ * сразу после чтения, а накопленные элементы передаются на запись пакетами фиксированного размера.
+ * Поэтому в памяти одновременно находится не больше одного пакета, независимо от размера тела,
+ * а некорректный JSON или элемент отклоняется, как только парсер до него дошёл, без чтения остатка тела.
+ * <p>
+ * Каждый пакет записывается отдельно: при ошибке в середине тела ранее записанные пакеты сохраняются,
+ * а их количество сообщается в {@link ImportException#getImported()}. Ошибки данных, которые обнаруживает
+ * сама база данных (SQLSTATE классов 22 и 23, например нарушение уникальности или внешнего ключа), тоже
+ * считаются некорректными данными, а не сбоем записи.
+ */
+public final class StreamingImport {
+    /**
+     * Ограничения разбора: элементы импорта — плоские объекты с короткими строками,
+     * поэтому длинные строки и глубокая вложенность отклоняются до буферизации.
+     */
+    private static final JsonFactory JSON = JsonFactory.builder()
+            .streamReadConstraints(StreamReadConstraints.builder()
+                    .maxStringLength(64 * 1024)
+                    .maxNestingDepth(16)
+                    .build())
+            .build();
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляра утилитного класса.
+     */
+    private StreamingImport() {
+    }
+
+    /**
+     * Разбор одного элемента массива. Парсер стоит на начале объекта элемента и после разбора
+     * должен стоять на его конце.
+     *
+     * @param <T> тип элемента.
+     */
+    @FunctionalInterface
+    public interface ItemParser<T> {
+        /**
+         * Разбирает и проверяет элемент.
+         *
+         * @throws IllegalArgumentException если элемент не проходит проверку.
+         */
+        T parse(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Запись пакета элементов.
+     *
+     * @param <T> тип элемента.
+     */
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+        /**
+         * Записывает пакет элементов. Список пакета переиспользуется после записи и не должен сохраняться.
+         *
+         * @throws IllegalArgumentException если пакет ссылается на несуществующие данные.
+         */
+        void write(List<T> batch) throws SQLException;
+    }
+
+    /**
+     * Импортирует элементы JSON-массива из потока.
+     *
+     * @param body       Поток тела запроса.
+     * @param batchSize  Размер пакета записи.
+     * @param itemParser Разбор и проверка одного элемента.
+     * @param writer     Запись пакета элементов.
+     * @param <T>        тип элемента.
+     * @return количество записанных элементов.
+     * @throws ImportException при некорректном JSON или элементе, в том числе отклонённом базой данных.
+     * @throws IOException     при ошибках чтения тела запроса.
+     * @throws SQLException    при ошибках записи в базу данных.
+     */
+    public static <T> long run(InputStream body, int batchSize, ItemParser<T> itemParser, BatchWriter<T> writer)
+            throws ImportException, IOException, SQLException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным: " + batchSize);
+        }
+        List<T> batch = new ArrayList<>(batchSize);
+        long imported = 0;
+        long item = 0;
+        try (JsonParser parser = JSON.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ImportException("Тело запроса должно быть JSON-массивом", imported);
+            }
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new ImportException("Неожиданный конец тела запроса после элемента " + item, imported);
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ImportException("Элемент " + item + " должен быть объектом", imported);
+                }
+                try {
+                    batch.add(itemParser.parse(parser));
+                } catch (IllegalArgumentException e) {
+                    throw new ImportException("Элемент " + item + ": " + e.getMessage(), imported, e);
+                }
+                item++;
+                if (batch.size() == batchSize) {
+                    imported += write(batch, writer, imported);
+                }
+            }
+            if (parser.nextToken() != null) {
+                throw new ImportException("Лишние данные после JSON-массива", imported);
+            }
+            if (!batch.isEmpty()) {
+                imported += write(batch, writer, imported);
+            }
+        } catch (JsonProcessingException e) {
+            throw new ImportException("Некорректный JSON: " + e.getOriginalMessage()
+                    + " (элемент " + item + ")", imported, e);
+        }
+        return imported;
+    }
+
+    private static <T> int write(List<T> batch, BatchWriter<T> writer, long imported)
+            throws ImportException, SQLException {
+        try {
+            writer.write(batch);
+        } catch (IllegalArgumentException e) {
+            throw new ImportException(e.getMessage(), imported, e);
+        } catch (SQLException e) {
+            if (Resilience.isDataError(e)) {
+                throw new ImportException("Данные отклонены базой данных: " + e.getMessage(), imported, e);
+            }
+            throw e;
+        }
+        int written = batch.size();
+        batch.clear();
+        return written;
+    }
+}
@@ -0,0 +1,122 @@
+package logging;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Журнал с ограничением частоты записей.
+ * Для каждого ключа (обычно класса исключения) за окно {@code intervalMillis} записывается не больше
+ * {@code permits} сообщений, остальные только подсчитываются, а их количество добавляется к первому
+ * сообщению следующего окна. Так массовые одинаковые ошибки, например при недоступной базе данных,
+ * не превращают журнал в узкое место обработки запросов.
+ */
+public class RateLimitedLogger {
+    /**
+     * Ограничение количества ключей: при превышении все новые ключи делят одно окно.
+     */
+    private static final int MAX_KEYS = 1024;
+    private static final String OVERFLOW_KEY = "*";
+
+    private final Logger logger;
+    private final int permits;
+    private final long intervalNanos;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public RateLimitedLogger(Logger logger, int permits, long intervalMillis) {
+        if (permits < 1 || intervalMillis < 1) {
+            throw new IllegalArgumentException("Некорректные параметры ограничения журнала");
+        }
+        this.logger = logger;
+        this.permits = permits;
+        this.intervalNanos = intervalMillis * 1_000_000L;
+    }
+
+    /**
+     * Записывает ошибку со стеком вызовов, если лимит ключа не исчерпан.
+     *
+     * @param key     Ключ ограничения.
+     * @param message Сообщение.
+     * @param error   Исключение.
+     * @return true, если запись сделана.
+     */
+    public boolean error(String key, String message, Throwable error) {
+        long suppressed = acquire(key);
+        if (suppressed < 0) {
+            return false;
+        }
+        if (suppressed > 0) {
+            logger.error("{} (пропущено похожих сообщений: {})", message, suppressed, error);
+        } else {
+            logger.error(message, error);
+        }
+        return true;
+    }
+
+    /**
+     * Записывает предупреждение без стека вызовов, если лимит ключа не исчерпан.
+     *
+     * @param key     Ключ ограничения.
+     * @param message Сообщение.
+     * @return true, если запись сделана.
+     */
+    public boolean warn(String key, String message) {
+        long suppressed = acquire(key);
+        if (suppressed < 0) {
+            return false;
+        }
+        if (suppressed > 0) {
+            logger.warn("{} (пропущено похожих сообщений: {})", message, suppressed);
+        } else {
+            logger.warn(message);
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает общее количество пропущенных сообщений в текущих окнах.
+     */
+    public long getSuppressed() {
+        long total = 0;
+        for (Window window : windows.values()) {
+            total += window.suppressed.get();
+        }
+        return total;
+    }
+
+    /**
+     * Занимает разрешение на запись.
+     *
+     * @return -1, если лимит исчерпан; иначе количество сообщений, пропущенных в предыдущих окнах.
+     */
+    private long acquire(String key) {
+        Window window = windows.get(key);
+        if (window == null) {
+            window = windows.size() < MAX_KEYS
+                    ? windows.computeIfAbsent(key, k -> new Window())
+                    : windows.computeIfAbsent(OVERFLOW_KEY, k -> new Window());
+        }
+        return window.acquire(System.nanoTime());
+    }
+
+    private final class Window {
+        private long start = System.nanoTime();
+        private int used;
+        private final AtomicLong suppressed = new AtomicLong();
+
+        private synchronized long acquire(long now) {
+            if (now - start >= intervalNanos) {
+                start = now;
+                used = 0;
+            }
+            if (used >= permits) {
+                suppressed.incrementAndGet();
+                return -1;
+            }
+            used++;
+            return suppressed.getAndSet(0);
+        }
+    }
+}
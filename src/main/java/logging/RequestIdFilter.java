@@ -0,0 +1,59 @@
+package logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+/**
+ * Фильтр, назначающий каждому HTTP-запросу идентификатор для корреляции журналов.
+ * Идентификатор берётся из заголовка {@value #HEADER}, если клиент или балансировщик его передал
+ * и он безопасен для записи в журнал, иначе генерируется. Он кладётся в MDC под ключом {@value #MDC_KEY},
+ * поэтому попадает в каждую запись журнала потока запроса, включая записи DAO, и возвращается клиенту
+ * в том же заголовке ответа.
+ * В {@code web.xml} фильтр объявлен первым, поэтому идентификатор есть и в записях остальных фильтров.
+ */
+public class RequestIdFilter extends HttpFilter {
+    public static final String HEADER = "X-Request-Id";
+    public static final String MDC_KEY = "requestId";
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9._:-]{1,64}");
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String requestId = request.getHeader(HEADER);
+        if (requestId == null || !VALID_ID.matcher(requestId).matches()) {
+            requestId = generate();
+        }
+        response.setHeader(HEADER, requestId);
+        MDC.put(MDC_KEY, requestId);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_KEY);
+        }
+    }
+
+    /**
+     * Возвращает идентификатор запроса текущего потока или null вне обработки запроса.
+     * Используется для передачи идентификатора в фоновые потоки вместе с работой запроса.
+     */
+    public static String current() {
+        return MDC.get(MDC_KEY);
+    }
+
+    /**
+     * Генерирует идентификатор без {@link java.security.SecureRandom}: уникальности в пределах журналов достаточно,
+     * а общий генератор {@link java.util.UUID#randomUUID()} стал бы точкой конкуренции потоков.
+     */
+    static String generate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong() | Long.MIN_VALUE) + Long.toHexString(random.nextLong() | Long.MIN_VALUE);
+    }
+}
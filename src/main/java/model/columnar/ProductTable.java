@@ -0,0 +1,165 @@
+package model.columnar;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.gson.stream.JsonWriter;
+import model.dto.DtoBinaryCodec;
+import util.Money;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Компактное колоночное представление списка продуктов для массовых выборок.
+ * Вместо объекта {@link model.entity.Product} на каждую строку данные хранятся в массивах примитивов:
+ * идентификаторы и версии в {@code int[]}, цены в копейках в {@code long[]}.
+ * Повторяющиеся названия хранятся один раз в словаре, а строки ссылаются на них по индексу.
+ * Таким образом, загрузка миллиона продуктов не создаёт и не удерживает миллионы объектов {@code Product}
+ * и {@code BigDecimal}; временные строки и кортежи драйвера при чтении по-прежнему создаются на каждую строку,
+ * но в таблице остаются только уникальные названия.
+ */
+public final class ProductTable {
+    private final int size;
+    private final int[] ids;
+    private final int[] nameIndexes;
+    private final String[] names;
+    private final long[] priceCents;
+    private final int[] versions;
+
+    private ProductTable(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, builder.size);
+        this.nameIndexes = Arrays.copyOf(builder.nameIndexes, builder.size);
+        this.names = new String[builder.names.size()];
+        for (Map.Entry<String, Integer> entry : builder.names.entrySet()) {
+            this.names[entry.getValue()] = entry.getKey();
+        }
+        this.priceCents = Arrays.copyOf(builder.priceCents, builder.size);
+        this.versions = Arrays.copyOf(builder.versions, builder.size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int row) {
+        return ids[checkRow(row)];
+    }
+
+    public String getName(int row) {
+        return names[nameIndexes[checkRow(row)]];
+    }
+
+    public long getPriceCents(int row) {
+        return priceCents[checkRow(row)];
+    }
+
+    public int getVersion(int row) {
+        return versions[checkRow(row)];
+    }
+
+    /**
+     * Возвращает количество различных названий в словаре.
+     */
+    public int distinctNames() {
+        return names.length;
+    }
+
+    /**
+     * Сериализует продукты в JSON-массив потоково, без создания промежуточных DTO.
+     * Формат совпадает с сериализацией списка {@link model.dto.ProductDto}.
+     *
+     * @param writer JSON-писатель, в который выводится массив.
+     * @throws IOException при ошибках записи.
+     */
+    public void writeJson(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (int row = 0; row < size; row++) {
+            writer.beginObject()
+                    .name("id").value(ids[row])
+                    .name("name").value(names[nameIndexes[row]])
+                    .name("price").jsonValue(Money.format(priceCents[row]))
+                    .name("version").value(versions[row])
+                    .endObject();
+        }
+        writer.endArray();
+    }
+
+    /**
+     * Сериализует продукты в массив двоичного формата ({@link util.BinaryFormat}) потоково.
+     * Структура совпадает с {@link #writeJson(JsonWriter)}.
+     *
+     * @param generator Генератор Jackson, в который выводится массив.
+     * @throws IOException при ошибках записи.
+     */
+    public void writeBinary(JsonGenerator generator) throws IOException {
+        generator.writeStartArray();
+        for (int row = 0; row < size; row++) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", ids[row]);
+            generator.writeStringField("name", names[nameIndexes[row]]);
+            DtoBinaryCodec.writeMoneyField(generator, "price", priceCents[row]);
+            generator.writeNumberField("version", versions[row]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Строка " + row + " вне диапазона 0.." + (size - 1));
+        }
+        return row;
+    }
+
+    /**
+     * Построитель таблицы продуктов. Массивы растут по мере добавления строк,
+     * а одинаковые названия сворачиваются в одну запись словаря.
+     */
+    public static final class Builder {
+        private int size;
+        private int[] ids;
+        private int[] nameIndexes;
+        private long[] priceCents;
+        private int[] versions;
+        private final Map<String, Integer> names = new HashMap<>();
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            this.ids = new int[capacity];
+            this.nameIndexes = new int[capacity];
+            this.priceCents = new long[capacity];
+            this.versions = new int[capacity];
+        }
+
+        public Builder add(int id, String name, long priceCents, int version) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                nameIndexes = Arrays.copyOf(nameIndexes, capacity);
+                this.priceCents = Arrays.copyOf(this.priceCents, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+            }
+            Integer nameIndex = names.get(name);
+            if (nameIndex == null) {
+                nameIndex = names.size();
+                names.put(name, nameIndex);
+            }
+            ids[size] = id;
+            nameIndexes[size] = nameIndex;
+            this.priceCents[size] = priceCents;
+            versions[size] = version;
+            size++;
+            return this;
+        }
+
+        public ProductTable build() {
+            return new ProductTable(this);
+        }
+    }
+}
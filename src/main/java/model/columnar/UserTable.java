@@ -0,0 +1,106 @@
+package model.columnar;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Компактное колоночное представление списка пользователей для массовых выборок.
+ * Идентификаторы хранятся в {@code int[]}, имена и адреса электронной почты — в массивах строк,
+ * без создания объекта {@link model.entity.User} и списка заказов на каждую строку.
+ */
+public final class UserTable {
+    private final int size;
+    private final int[] ids;
+    private final String[] usernames;
+    private final String[] emails;
+
+    private UserTable(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, builder.size);
+        this.usernames = Arrays.copyOf(builder.usernames, builder.size);
+        this.emails = Arrays.copyOf(builder.emails, builder.size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getId(int row) {
+        return ids[checkRow(row)];
+    }
+
+    public String getUsername(int row) {
+        return usernames[checkRow(row)];
+    }
+
+    public String getEmail(int row) {
+        return emails[checkRow(row)];
+    }
+
+    /**
+     * Сериализует пользователей в JSON-массив потоково, без создания промежуточных DTO.
+     * Формат совпадает с сериализацией списка {@link model.dto.UserDto}.
+     *
+     * @param writer JSON-писатель, в который выводится массив.
+     * @throws IOException при ошибках записи.
+     */
+    public void writeJson(JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (int row = 0; row < size; row++) {
+            writer.beginObject()
+                    .name("id").value(ids[row])
+                    .name("username").value(usernames[row])
+                    .name("email").value(emails[row])
+                    .endObject();
+        }
+        writer.endArray();
+    }
+
+    private int checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Строка " + row + " вне диапазона 0.." + (size - 1));
+        }
+        return row;
+    }
+
+    /**
+     * Построитель таблицы пользователей с растущими массивами.
+     */
+    public static final class Builder {
+        private int size;
+        private int[] ids;
+        private String[] usernames;
+        private String[] emails;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(expectedSize, 1);
+            this.ids = new int[capacity];
+            this.usernames = new String[capacity];
+            this.emails = new String[capacity];
+        }
+
+        public Builder add(int id, String username, String email) {
+            if (size == ids.length) {
+                int capacity = size + (size >> 1) + 1;
+                ids = Arrays.copyOf(ids, capacity);
+                usernames = Arrays.copyOf(usernames, capacity);
+                emails = Arrays.copyOf(emails, capacity);
+            }
+            ids[size] = id;
+            usernames[size] = username;
+            emails[size] = email;
+            size++;
+            return this;
+        }
+
+        public UserTable build() {
+            return new UserTable(this);
+        }
+    }
+}
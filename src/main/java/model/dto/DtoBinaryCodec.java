@@ -0,0 +1,203 @@
+package model.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import util.Money;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое кодирование DTO в двоичные форматы Jackson ({@link util.BinaryFormat}) и обратно.
+ * Чтение не зависит от формата, поэтому тем же кодом потоково разбираются JSON-тела запросов импорта.
+ * Структура совпадает с JSON-представлением ({@link DtoJsonAdapters}): те же имена и порядок полей,
+ * суммы записываются десятичными числами с двумя знаками после запятой.
+ * Поля пишутся и читаются напрямую через геттеры и сеттеры, без рефлексии и ObjectMapper.
+ */
+public final class DtoBinaryCodec {
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляра утилитного класса.
+     */
+    private DtoBinaryCodec() {
+    }
+
+    public static void writeProduct(JsonGenerator generator, ProductDto dto) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", dto.getId());
+        writeStringField(generator, "name", dto.getName());
+        writeMoneyField(generator, "price", dto.getPriceCents());
+        generator.writeNumberField("version", dto.getVersion());
+        generator.writeEndObject();
+    }
+
+    public static void writeOrder(JsonGenerator generator, OrderDto dto) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", dto.getId());
+        generator.writeNumberField("userId", dto.getUserId());
+        if (dto.getProducts() != null) {
+            generator.writeArrayFieldStart("products");
+            for (OrderDto.ProductInfo info : dto.getProducts()) {
+                if (info == null) {
+                    generator.writeNull();
+                    continue;
+                }
+                generator.writeStartObject();
+                generator.writeNumberField("productId", info.getProductId());
+                writeStringField(generator, "name", info.getName());
+                writeMoneyField(generator, "price", info.getPriceCents());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        if (dto.getProductIds() != null) {
+            generator.writeArrayFieldStart("productIds");
+            for (Integer productId : dto.getProductIds()) {
+                if (productId == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(productId);
+                }
+            }
+            generator.writeEndArray();
+        }
+        writeMoneyField(generator, "total", dto.getTotalCents());
+        generator.writeEndObject();
+    }
+
+    public static void writeOrders(JsonGenerator generator, List<OrderDto> orders) throws IOException {
+        generator.writeStartArray();
+        for (OrderDto order : orders) {
+            writeOrder(generator, order);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Записывает денежное поле десятичным числом без потери точности.
+     */
+    public static void writeMoneyField(JsonGenerator generator, String name, long cents) throws IOException {
+        generator.writeFieldName(name);
+        generator.writeNumber(BigDecimal.valueOf(cents, 2));
+    }
+
+    public static ProductDto readProduct(JsonParser parser) throws IOException {
+        ProductDto dto = new ProductDto(0, null, 0);
+        expect(parser, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "id" -> dto.setId(parser.getIntValue());
+                case "name" -> dto.setName(parser.getText());
+                case "price" -> dto.setPriceCents(readMoney(parser));
+                case "version" -> dto.setVersion(parser.getIntValue());
+                default -> parser.skipChildren();
+            }
+        }
+        return dto;
+    }
+
+    public static OrderDto readOrder(JsonParser parser) throws IOException {
+        OrderDto dto = new OrderDto();
+        expect(parser, JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (name) {
+                case "id" -> dto.setId(parser.getIntValue());
+                case "userId" -> dto.setUserId(parser.getIntValue());
+                case "products" -> dto.setProducts(readProductInfos(parser));
+                case "productIds" -> dto.setProductIds(readIntList(parser));
+                case "total" -> dto.setTotalCents(readMoney(parser));
+                default -> parser.skipChildren();
+            }
+        }
+        return dto;
+    }
+
+    public static List<OrderDto> readOrders(JsonParser parser) throws IOException {
+        List<OrderDto> orders = new ArrayList<>();
+        expect(parser, JsonToken.START_ARRAY);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            orders.add(readOrder(parser));
+        }
+        return orders;
+    }
+
+    private static List<OrderDto.ProductInfo> readProductInfos(JsonParser parser) throws IOException {
+        List<OrderDto.ProductInfo> products = new ArrayList<>();
+        checkCurrent(parser, JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                products.add(null);
+                continue;
+            }
+            checkCurrent(parser, JsonToken.START_OBJECT);
+            OrderDto.ProductInfo info = new OrderDto.ProductInfo(0, null, 0);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                if (parser.nextToken() == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+                switch (name) {
+                    case "productId" -> info.setProductId(parser.getIntValue());
+                    case "name" -> info.setName(parser.getText());
+                    case "price" -> info.setPriceCents(readMoney(parser));
+                    default -> parser.skipChildren();
+                }
+            }
+            products.add(info);
+        }
+        return products;
+    }
+
+    private static List<Integer> readIntList(JsonParser parser) throws IOException {
+        List<Integer> values = new ArrayList<>();
+        checkCurrent(parser, JsonToken.START_ARRAY);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.currentToken() == JsonToken.VALUE_NULL ? null : parser.getIntValue());
+        }
+        return values;
+    }
+
+    private static long readMoney(JsonParser parser) throws IOException {
+        try {
+            if (parser.currentToken() == JsonToken.VALUE_STRING) {
+                return Money.parse(parser.getText());
+            }
+            return parser.getDecimalValue().setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            throw new JsonParseException(parser, "Сумма " + parser.getText() + " не представима точно в копейках", e);
+        }
+    }
+
+    private static void writeStringField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            parser.nextToken();
+        }
+        checkCurrent(parser, token);
+    }
+
+    private static void checkCurrent(JsonParser parser, JsonToken token) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new JsonParseException(parser, "Ожидался " + token + ", получен " + parser.currentToken());
+        }
+    }
+}
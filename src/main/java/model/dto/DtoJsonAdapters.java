@@ -0,0 +1,245 @@
+package model.dto;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import util.Money;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Адаптеры Gson для DTO без рефлексии: поля читаются и записываются напрямую через геттеры и сеттеры
+ * потоковыми {@link JsonWriter} и {@link JsonReader}.
+ * Рефлективный адаптер Gson обходит поля через {@code Field.get/set}, упаковывает примитивы и создаёт DTO
+ * без конструктора через {@code Unsafe}; здесь объект создаётся обычным конструктором, а суммы в копейках
+ * пишутся без упаковки в {@code Long}.
+ * <p>
+ * Формат полностью совпадает с рефлективной сериализацией: те же имена полей ({@code price}, {@code total}),
+ * тот же порядок, денежные поля в формате {@link util.MoneyAdapter}, пропуск null-полей по настройке писателя
+ * и пропуск неизвестных полей при чтении. При добавлении поля в DTO его нужно добавить и в адаптер.
+ */
+public final class DtoJsonAdapters {
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляра утилитного класса.
+     */
+    private DtoJsonAdapters() {
+    }
+
+    /**
+     * Регистрирует адаптеры DTO в построителе Gson.
+     *
+     * @param builder Построитель Gson.
+     * @return тот же построитель.
+     */
+    public static GsonBuilder register(GsonBuilder builder) {
+        return builder
+                .registerTypeAdapter(UserDto.class, new UserDtoAdapter().nullSafe())
+                .registerTypeAdapter(ProductDto.class, new ProductDtoAdapter().nullSafe())
+                .registerTypeAdapter(OrderDto.class, new OrderDtoAdapter().nullSafe());
+    }
+
+    static final class UserDtoAdapter extends TypeAdapter<UserDto> {
+
+        @Override
+        public void write(JsonWriter out, UserDto dto) throws IOException {
+            out.beginObject()
+                    .name("id").value(dto.getId())
+                    .name("username").value(dto.getUsername())
+                    .name("email").value(dto.getEmail())
+                    .endObject();
+        }
+
+        @Override
+        public UserDto read(JsonReader in) throws IOException {
+            UserDto dto = new UserDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    // Как и рефлективный адаптер, null оставляет значение поля по умолчанию.
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id" -> dto.setId(readInt(in));
+                    case "username" -> dto.setUsername(in.nextString());
+                    case "email" -> dto.setEmail(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return dto;
+        }
+    }
+
+    static final class ProductDtoAdapter extends TypeAdapter<ProductDto> {
+
+        @Override
+        public void write(JsonWriter out, ProductDto dto) throws IOException {
+            out.beginObject()
+                    .name("id").value(dto.getId())
+                    .name("name").value(dto.getName())
+                    .name("price").jsonValue(Money.format(dto.getPriceCents()))
+                    .name("version").value(dto.getVersion())
+                    .endObject();
+        }
+
+        @Override
+        public ProductDto read(JsonReader in) throws IOException {
+            ProductDto dto = new ProductDto(0, null, 0);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id" -> dto.setId(readInt(in));
+                    case "name" -> dto.setName(in.nextString());
+                    case "price" -> dto.setPriceCents(readMoney(in));
+                    case "version" -> dto.setVersion(readInt(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return dto;
+        }
+    }
+
+    static final class OrderDtoAdapter extends TypeAdapter<OrderDto> {
+
+        @Override
+        public void write(JsonWriter out, OrderDto dto) throws IOException {
+            out.beginObject()
+                    .name("id").value(dto.getId())
+                    .name("userId").value(dto.getUserId());
+            out.name("products");
+            if (dto.getProducts() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (OrderDto.ProductInfo info : dto.getProducts()) {
+                    writeProductInfo(out, info);
+                }
+                out.endArray();
+            }
+            out.name("productIds");
+            if (dto.getProductIds() == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (Integer productId : dto.getProductIds()) {
+                    out.value(productId);
+                }
+                out.endArray();
+            }
+            out.name("total").jsonValue(Money.format(dto.getTotalCents()))
+                    .endObject();
+        }
+
+        @Override
+        public OrderDto read(JsonReader in) throws IOException {
+            OrderDto dto = new OrderDto();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (name) {
+                    case "id" -> dto.setId(readInt(in));
+                    case "userId" -> dto.setUserId(readInt(in));
+                    case "products" -> dto.setProducts(readProductInfos(in));
+                    case "productIds" -> dto.setProductIds(readIntList(in));
+                    case "total" -> dto.setTotalCents(readMoney(in));
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return dto;
+        }
+
+        private static void writeProductInfo(JsonWriter out, OrderDto.ProductInfo info) throws IOException {
+            if (info == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject()
+                    .name("productId").value(info.getProductId())
+                    .name("name").value(info.getName())
+                    .name("price").jsonValue(Money.format(info.getPriceCents()))
+                    .endObject();
+        }
+
+        private static List<OrderDto.ProductInfo> readProductInfos(JsonReader in) throws IOException {
+            List<OrderDto.ProductInfo> products = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    products.add(null);
+                    continue;
+                }
+                OrderDto.ProductInfo info = new OrderDto.ProductInfo(0, null, 0);
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        continue;
+                    }
+                    switch (name) {
+                        case "productId" -> info.setProductId(readInt(in));
+                        case "name" -> info.setName(in.nextString());
+                        case "price" -> info.setPriceCents(readMoney(in));
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                products.add(info);
+            }
+            in.endArray();
+            return products;
+        }
+
+        private static List<Integer> readIntList(JsonReader in) throws IOException {
+            List<Integer> values = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    values.add(null);
+                } else {
+                    values.add(readInt(in));
+                }
+            }
+            in.endArray();
+            return values;
+        }
+    }
+
+    private static int readInt(JsonReader in) throws IOException {
+        try {
+            return in.nextInt();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException("Некорректное целое число в " + in.getPath(), e);
+        }
+    }
+
+    private static long readMoney(JsonReader in) throws IOException {
+        String value = in.nextString();
+        try {
+            return Money.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Некорректная сумма " + value + " в " + in.getPath(), e);
+        }
+    }
+}
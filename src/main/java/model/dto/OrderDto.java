@@ -1,28 +1,38 @@
 package model.dto;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import util.MoneyAdapter;
+
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Класс DTO для заказа.
  * Используется для передачи данных о заказах между клиентом и сервером, включая подробную информацию о продуктах.
+ * Цены и итоговая сумма заказа хранятся в копейках, а в JSON передаются десятичными числами.
  */
 public class OrderDto {
     private int id;
     private int userId;
     private List<ProductInfo> products;
     private List<Integer> productIds;
+    @SerializedName("total")
+    @JsonAdapter(MoneyAdapter.class)
+    private long totalCents;
 
     // Класс для хранения информации о продукте
     public static class ProductInfo {
         private int productId;
         private String name;
-        private double price;
+        @SerializedName("price")
+        @JsonAdapter(MoneyAdapter.class)
+        private long priceCents;
 
-        public ProductInfo(int productId, String name, double price) {
+        public ProductInfo(int productId, String name, long priceCents) {
             this.productId = productId;
             this.name = name;
-            this.price = price;
+            this.priceCents = priceCents;
         }
 
         public int getProductId() {
@@ -41,12 +51,12 @@ public class OrderDto {
             this.name = name;
         }
 
-        public double getPrice() {
-            return price;
+        public long getPriceCents() {
+            return priceCents;
         }
 
-        public void setPrice(double price) {
-            this.price = price;
+        public void setPriceCents(long priceCents) {
+            this.priceCents = priceCents;
         }
     }
 
@@ -91,4 +101,12 @@ public class OrderDto {
     public void setProducts(List<ProductInfo> products) {
         this.products = products == null ? new ArrayList<>() : new ArrayList<>(products);
     }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public void setTotalCents(long totalCents) {
+        this.totalCents = totalCents;
+    }
 }
@@ -1,18 +1,31 @@
 package model.dto;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import util.MoneyAdapter;
+
 /**
  * Класс Data Transfer Object (DTO) для продукта.
  * Используется для передачи данных о продуктах между клиентом и сервером.
+ * Цена хранится в копейках, а в JSON передаётся десятичным числом в поле {@code price}.
  */
 public class ProductDto {
     private int id;
     private String name;
-    private double price;
+    @SerializedName("price")
+    @JsonAdapter(MoneyAdapter.class)
+    private long priceCents;
+    private int version;
 
-    public ProductDto(int id, String name, double price) {
+    public ProductDto(int id, String name, long priceCents) {
         this.id = id;
         this.name = name;
-        this.price = price;
+        this.priceCents = priceCents;
+    }
+
+    public ProductDto(int id, String name, long priceCents, int version) {
+        this(id, name, priceCents);
+        this.version = version;
     }
 
 
@@ -32,11 +45,19 @@ public class ProductDto {
         this.name = name;
     }
 
-    public double getPrice() {
-        return price;
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    public void setPriceCents(long priceCents) {
+        this.priceCents = priceCents;
+    }
+
+    public int getVersion() {
+        return version;
     }
 
-    public void setPrice(double price) {
-        this.price = price;
+    public void setVersion(int version) {
+        this.version = version;
     }
 }
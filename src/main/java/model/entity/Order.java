@@ -30,4 +30,18 @@ public class Order {
         this.id = id;
         this.products = new ArrayList<>();
     }
+
+    /**
+     * Создаёт копию заказа вместе с копиями пользователя и продуктов.
+     */
+    public Order(Order other) {
+        this.id = other.id;
+        this.user = other.user == null ? null : new User(other.user);
+        if (other.products != null) {
+            this.products = new ArrayList<>(other.products.size());
+            for (Product product : other.products) {
+                this.products.add(product == null ? null : new Product(product));
+            }
+        }
+    }
 }
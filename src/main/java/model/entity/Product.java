@@ -3,12 +3,13 @@ package model.entity;
 import lombok.Data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Класс Product представляет сущность продукта в системе.
- * Он содержит основную информацию о продукте, такую как идентификатор, название и цену,
- * а также список заказов, к которым принадлежит продукт.
+ * Он содержит основную информацию о продукте, такую как идентификатор, название и цену в копейках,
+ * версию для оптимистической блокировки, а также список заказов, к которым принадлежит продукт.
  *
  * Аннотация @Data из библиотеки Lombok генерирует стандартные методы для доступа и обработки
  * полей класса, уменьшая количество шаблонного кода и упрощая разработку.
@@ -20,14 +21,29 @@ public class Product {
 
     private String name;
 
-    private double price;
+    private long priceCents;
+
+    private int version;
 
     private List<Order> orders;
 
-    public Product(int id, String name, double price) {
+    public Product(int id, String name, long priceCents) {
         this.id = id;
         this.name = name;
-        this.price = price;
-        this.orders = new ArrayList<>();
+        this.priceCents = priceCents;
+        this.orders = Collections.emptyList();
+    }
+
+    public Product(int id, String name, long priceCents, int version) {
+        this(id, name, priceCents);
+        this.version = version;
+    }
+
+    /**
+     * Создаёт копию продукта; список заказов копируется без копирования самих заказов.
+     */
+    public Product(Product other) {
+        this(other.id, other.name, other.priceCents, other.version);
+        this.orders = other.orders == null ? null : new ArrayList<>(other.orders);
     }
 }
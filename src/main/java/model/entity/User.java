@@ -3,6 +3,7 @@ package model.entity;
 import lombok.Data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -29,7 +30,15 @@ public class User {
         this.id = id;
         this.username = username;
         this.email = email;
-        this.orders = new ArrayList<>();
+        this.orders = Collections.emptyList();
+    }
+
+    /**
+     * Создаёт копию пользователя; список заказов копируется без копирования самих заказов.
+     */
+    public User(User other) {
+        this(other.id, other.username, other.email);
+        this.orders = other.orders == null ? null : new ArrayList<>(other.orders);
     }
 
     public User(String username, String email) {
@@ -0,0 +1,341 @@
+package search;
+
+import model.columnar.ProductTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Индекс названий продуктов в памяти процесса для автодополнения.
+ * Названия хранятся в отсортированном по нормализованному виду массиве, поэтому поиск по префиксу —
+ * это двоичный поиск первой подходящей позиции и последовательное чтение не более K элементов.
+ * <p>
+ * Индекс неизменяем между записями (copy-on-write): чтение выполняется без блокировок по текущему снимку,
+ * а каждое изменение строит новый снимок и публикует его через volatile-ссылку.
+ * Изменения каталога редки по сравнению с запросами автодополнения, поэтому копирование массивов
+ * ({@code System.arraycopy}, O(n)) при записи обходится дешевле, чем синхронизация каждого чтения.
+ * Пакет изменений ({@link #putAll(Map)}) сливается со снимком за один проход, а позиция продукта
+ * находится двоичным поиском по его текущему названию из словаря идентификаторов, без просмотра массива.
+ */
+public final class ProductNameIndex {
+    private static final ProductNameIndex INSTANCE = new ProductNameIndex();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean loaded;
+    private Map<Integer, String> namesById = new HashMap<>();
+    private Map<Integer, String> changesDuringLoad;
+
+    /**
+     * Возвращает общий индекс приложения, который обновляется {@link dao.ProductDao} при записи.
+     */
+    public static ProductNameIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Результат автодополнения: идентификатор и исходное название продукта.
+     */
+    public static final class Suggestion {
+        private final int id;
+        private final String name;
+
+        public Suggestion(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Показывает, загружен ли индекс из базы данных. До загрузки результаты автодополнения неполные.
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public int size() {
+        return snapshot.ids.length;
+    }
+
+    /**
+     * Отмечает начало загрузки из базы данных. Изменения, поступившие после этого вызова,
+     * запоминаются и применяются поверх загруженных данных в {@link #finishLoading(ProductTable)},
+     * поэтому запись, выполненная во время чтения таблицы, не теряется.
+     */
+    public synchronized void startLoading() {
+        changesDuringLoad = new HashMap<>();
+    }
+
+    /**
+     * Отменяет начатую загрузку, если таблицу не удалось прочитать: изменения больше не накапливаются,
+     * а индекс остаётся незагруженным до следующей попытки {@link #startLoading()}.
+     */
+    public synchronized void abortLoading() {
+        changesDuringLoad = null;
+    }
+
+    /**
+     * Заменяет содержимое индекса загруженными продуктами и применяет изменения, накопленные во время загрузки.
+     *
+     * @param products Все продукты каталога.
+     */
+    public synchronized void finishLoading(ProductTable products) {
+        Map<Integer, String> names = new HashMap<>(products.size() * 2);
+        for (int row = 0; row < products.size(); row++) {
+            names.put(products.getId(row), products.getName(row));
+        }
+        if (changesDuringLoad != null) {
+            for (Map.Entry<Integer, String> change : changesDuringLoad.entrySet()) {
+                if (change.getValue() == null) {
+                    names.remove(change.getKey());
+                } else {
+                    names.put(change.getKey(), change.getValue());
+                }
+            }
+            changesDuringLoad = null;
+        }
+        namesById = names;
+        snapshot = Snapshot.of(names);
+        loaded = true;
+    }
+
+    /**
+     * Добавляет продукт в индекс или заменяет название существующего продукта.
+     */
+    public void put(int id, String name) {
+        putAll(Collections.singletonMap(id, name));
+    }
+
+    /**
+     * Добавляет продукты в индекс или заменяет названия существующих продуктов.
+     * Для всего пакета строится один новый снимок, поэтому импорт N продуктов копирует массивы один раз.
+     *
+     * @param names Названия продуктов по идентификаторам.
+     */
+    public synchronized void putAll(Map<Integer, String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        if (changesDuringLoad != null) {
+            changesDuringLoad.putAll(names);
+        }
+        snapshot = snapshot.merge(names, namesById);
+        namesById.putAll(names);
+    }
+
+    /**
+     * Удаляет продукт из индекса.
+     */
+    public synchronized void remove(int id) {
+        if (changesDuringLoad != null) {
+            changesDuringLoad.put(id, null);
+        }
+        String name = namesById.remove(id);
+        if (name != null) {
+            snapshot = snapshot.without(snapshot.slotOf(id, name));
+        }
+    }
+
+    /**
+     * Возвращает не более {@code limit} продуктов, название которых начинается с указанного префикса
+     * без учёта регистра и лишних пробелов, в алфавитном порядке.
+     *
+     * @param prefix Введённый пользователем префикс.
+     * @param limit  Максимальное количество результатов.
+     * @return список подсказок; пустой, если префикс пуст или совпадений нет.
+     */
+    public List<Suggestion> complete(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Snapshot current = snapshot;
+        List<Suggestion> suggestions = new ArrayList<>(Math.min(limit, 16));
+        for (int i = current.lowerBound(key); i < current.keys.length && suggestions.size() < limit; i++) {
+            if (!current.keys[i].startsWith(key)) {
+                break;
+            }
+            suggestions.add(new Suggestion(current.ids[i], current.names[i]));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Приводит название к виду, по которому выполняется сравнение: нижний регистр, ё заменена на е,
+     * повторяющиеся пробелы схлопнуты.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String lower = value.trim().toLowerCase(Locale.ROOT).replace('ё', 'е');
+        StringBuilder normalized = new StringBuilder(lower.length());
+        boolean space = false;
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                normalized.append(' ');
+                space = false;
+            }
+            normalized.append(c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Неизменяемый снимок индекса: три параллельных массива, упорядоченных по нормализованному названию.
+     */
+    private static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new int[0]);
+
+        private final String[] keys;
+        private final String[] names;
+        private final int[] ids;
+
+        private Snapshot(String[] keys, String[] names, int[] ids) {
+            this.keys = keys;
+            this.names = names;
+            this.ids = ids;
+        }
+
+        private static Snapshot of(Map<Integer, String> namesById) {
+            int size = namesById.size();
+            Integer[] order = new Integer[size];
+            String[] keys = new String[size];
+            String[] names = new String[size];
+            int[] ids = new int[size];
+            int i = 0;
+            for (Map.Entry<Integer, String> entry : namesById.entrySet()) {
+                ids[i] = entry.getKey();
+                names[i] = entry.getValue();
+                keys[i] = normalize(entry.getValue());
+                order[i] = i;
+                i++;
+            }
+            Arrays.sort(order, (a, b) -> compare(keys[a], ids[a], keys[b], ids[b]));
+            String[] sortedKeys = new String[size];
+            String[] sortedNames = new String[size];
+            int[] sortedIds = new int[size];
+            for (int j = 0; j < size; j++) {
+                sortedKeys[j] = keys[order[j]];
+                sortedNames[j] = names[order[j]];
+                sortedIds[j] = ids[order[j]];
+            }
+            return new Snapshot(sortedKeys, sortedNames, sortedIds);
+        }
+
+        /**
+         * Возвращает снимок, в котором продукты из {@code changes} заменены новыми названиями.
+         * Новые записи сортируются отдельно и сливаются с текущими за один проход; прежние записи
+         * изменённых продуктов пропускаются.
+         *
+         * @param changes Новые названия по идентификаторам.
+         * @param current Текущие названия всех продуктов снимка по идентификаторам.
+         */
+        private Snapshot merge(Map<Integer, String> changes, Map<Integer, String> current) {
+            Snapshot added = of(changes);
+            int replaced = 0;
+            for (Integer id : changes.keySet()) {
+                if (current.containsKey(id)) {
+                    replaced++;
+                }
+            }
+            int size = keys.length - replaced + added.keys.length;
+            String[] newKeys = new String[size];
+            String[] newNames = new String[size];
+            int[] newIds = new int[size];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < size; k++) {
+                while (i < keys.length && changes.containsKey(ids[i])) {
+                    i++;
+                }
+                boolean takeOld = j >= added.keys.length
+                        || (i < keys.length && compare(keys[i], ids[i], added.keys[j], added.ids[j]) < 0);
+                if (takeOld) {
+                    newKeys[k] = keys[i];
+                    newNames[k] = names[i];
+                    newIds[k] = ids[i];
+                    i++;
+                } else {
+                    newKeys[k] = added.keys[j];
+                    newNames[k] = added.names[j];
+                    newIds[k] = added.ids[j];
+                    j++;
+                }
+            }
+            return new Snapshot(newKeys, newNames, newIds);
+        }
+
+        /**
+         * Возвращает позицию продукта с указанным идентификатором и названием или -1, если его нет.
+         */
+        private int slotOf(int id, String name) {
+            String key = normalize(name);
+            for (int i = lowerBound(key); i < keys.length && keys[i].equals(key) && ids[i] <= id; i++) {
+                if (ids[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Возвращает снимок без записи в указанной позиции или этот же снимок, если позиция отрицательна.
+         */
+        private Snapshot without(int position) {
+            if (position < 0) {
+                return this;
+            }
+            int size = keys.length - 1;
+            String[] newKeys = new String[size];
+            String[] newNames = new String[size];
+            int[] newIds = new int[size];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(names, 0, newNames, 0, position);
+            System.arraycopy(ids, 0, newIds, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, size - position);
+            System.arraycopy(names, position + 1, newNames, position, size - position);
+            System.arraycopy(ids, position + 1, newIds, position, size - position);
+            return new Snapshot(newKeys, newNames, newIds);
+        }
+
+        private static int compare(String leftKey, int leftId, String rightKey, int rightId) {
+            int byKey = leftKey.compareTo(rightKey);
+            return byKey != 0 ? byKey : Integer.compare(leftId, rightId);
+        }
+
+        /**
+         * Возвращает позицию первого ключа, не меньшего указанного.
+         */
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package servlet;
+
+import com.google.gson.stream.JsonWriter;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import database.CircuitBreaker;
+import database.ConfigLoader;
+import database.ConnectionFactory;
+import database.DatabaseHealth;
+import database.Resilience;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import search.ProductNameIndex;
+
+import java.io.IOException;
+
+import static util.ServletUtils.writeJsonResponse;
+
+/**
+ * Сервлет проверки здоровья экземпляра приложения для балансировщика нагрузки.
+ * Отвечает 200, если база данных доступна и очередь ожидания соединений пула не превышает
+ * {@code health.maxPoolWaiting}, иначе 503 — так перегруженный экземпляр выводится из балансировки
+ * до того, как вырастут задержки. В теле ответа выводятся:
+ * <ul>
+ *     <li>доступность базы данных, время проверочного запроса и состояние {@link CircuitBreaker};</li>
+ *     <li>занятые, свободные и ожидающие соединения пула;</li>
+ *     <li>отставание реплик и доля попаданий в буферный кэш PostgreSQL;</li>
+ *     <li>состояние индекса автодополнения.</li>
+ * </ul>
+ */
+@WebServlet("/health")
+public class HealthServlet extends HttpServlet {
+    private final DatabaseHealth databaseHealth = new DatabaseHealth();
+    private final ProductNameIndex nameIndex = ProductNameIndex.getInstance();
+    private final int queryTimeoutSeconds = ConfigLoader.getIntProperty("health.queryTimeoutSeconds", 1);
+    private final int maxPoolWaiting = ConfigLoader.getIntProperty("health.maxPoolWaiting", 20);
+
+    /**
+     * Обрабатывает HTTP GET запрос на проверку здоровья.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, содержащий ответ сервлета клиенту.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        DatabaseHealth.Status database = databaseHealth.check(queryTimeoutSeconds);
+        HikariDataSource pool = ConnectionFactory.getPool();
+        HikariPoolMXBean poolStats = pool == null ? null : pool.getHikariPoolMXBean();
+        boolean healthy = database.isReachable()
+                && (poolStats == null || poolStats.getThreadsAwaitingConnection() <= maxPoolWaiting);
+        writeJsonResponse(response, writer -> {
+            writer.beginObject().name("status").value(healthy ? "UP" : "DOWN");
+            writeDatabase(writer, database);
+            if (poolStats != null) {
+                writer.name("pool").beginObject()
+                        .name("active").value(poolStats.getActiveConnections())
+                        .name("idle").value(poolStats.getIdleConnections())
+                        .name("total").value(poolStats.getTotalConnections())
+                        .name("waiting").value(poolStats.getThreadsAwaitingConnection())
+                        .name("max").value(pool.getMaximumPoolSize())
+                        .endObject();
+            }
+            writer.name("caches").beginObject()
+                    .name("productNameIndex").beginObject()
+                    .name("loaded").value(nameIndex.isLoaded())
+                    .name("size").value(nameIndex.size())
+                    .endObject()
+                    .name("bufferCacheHitRatio").value(database.getCacheHitRatio())
+                    .endObject();
+            writer.endObject();
+        }, healthy ? HttpServletResponse.SC_OK : HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    private static void writeDatabase(JsonWriter writer, DatabaseHealth.Status database) throws IOException {
+        writer.name("database").beginObject()
+                .name("reachable").value(database.isReachable())
+                .name("latencyMillis").value(database.getLatencyMillis())
+                .name("circuitBreaker").value(Resilience.breaker().getState().name());
+        if (database.getError() != null) {
+            writer.name("error").value(database.getError());
+        }
+        writer.name("replicas").beginArray();
+        for (DatabaseHealth.Replica replica : database.getReplicas()) {
+            writer.beginObject()
+                    .name("name").value(replica.getName())
+                    .name("replayLagSeconds").value(replica.getReplayLagSeconds())
+                    .endObject();
+        }
+        writer.endArray().endObject();
+    }
+}
@@ -0,0 +1,71 @@
+package servlet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import database.ConfigLoader;
+import ingestion.ImportException;
+import ingestion.StreamingImport;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+import static util.ServletUtils.writeJsonResponse;
+import static util.ServletUtils.writeServerError;
+
+/**
+ * Базовый сервлет импорта: принимает в теле POST запроса JSON-массив элементов и сохраняет их пакетами
+ * по {@code import.batchSize} элементов через {@link StreamingImport}, не загружая тело целиком в память.
+ * Ответ — JSON-объект {@code {"imported": N}}; при некорректных данных, в том числе отклонённых
+ * ограничениями базы данных, ответ 400 дополнительно содержит поле {@code error},
+ * а {@code imported} — количество элементов, сохранённых до ошибки.
+ *
+ * @param <T> тип импортируемого элемента.
+ */
+public abstract class ImportHttpServlet<T> extends HttpServlet {
+    private final int batchSize = ConfigLoader.getIntProperty("import.batchSize", 500);
+
+    /**
+     * Разбирает и проверяет один элемент массива.
+     *
+     * @param parser Парсер, стоящий на начале объекта элемента.
+     * @return элемент для записи.
+     * @throws IOException              при ошибках разбора.
+     * @throws IllegalArgumentException если элемент не проходит проверку.
+     */
+    protected abstract T parseItem(JsonParser parser) throws IOException;
+
+    /**
+     * Сохраняет пакет элементов.
+     *
+     * @param batch Пакет элементов.
+     * @throws SQLException             при ошибках доступа к базе данных.
+     * @throws IllegalArgumentException если элементы ссылаются на несуществующие данные.
+     */
+    protected abstract void writeBatch(List<T> batch) throws SQLException;
+
+    /**
+     * Обрабатывает HTTP POST запрос импорта.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            long imported = StreamingImport.run(request.getInputStream(), batchSize, this::parseItem, this::writeBatch);
+            writeJsonResponse(response, writer -> writer.beginObject().name("imported").value(imported).endObject(),
+                    HttpServletResponse.SC_OK);
+        } catch (ImportException e) {
+            writeJsonResponse(response, writer -> writer.beginObject()
+                    .name("imported").value(e.getImported())
+                    .name("error").value(e.getMessage())
+                    .endObject(), HttpServletResponse.SC_BAD_REQUEST);
+        } catch (SQLException e) {
+            writeServerError(response, e);
+        }
+    }
+}
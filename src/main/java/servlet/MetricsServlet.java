@@ -0,0 +1,71 @@
+package servlet;
+
+import admission.AdaptiveLimiter;
+import database.CircuitBreaker;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import util.BatchLoader;
+import util.SingleFlight;
+
+import java.io.IOException;
+
+import static util.ServletUtils.writeJsonResponse;
+
+/**
+ * Сервлет, отдающий внутренние метрики приложения в формате JSON.
+ * Для каждой группы объединения запросов ({@link SingleFlight}) выводится количество выполненных загрузок,
+ * количество объединённых вызовов и количество загрузок, выполняющихся в данный момент.
+ * Для каждого пакетного загрузчика ({@link BatchLoader}) выводится количество пакетов и обработанных в них запросов,
+ * для каждого ограничителя допуска ({@link AdaptiveLimiter}) — текущий лимит, занятость и число отклонённых запросов,
+ * для каждого выключателя ({@link CircuitBreaker}) — состояние, число ошибок подряд и число отклонённых обращений.
+ */
+@WebServlet("/metrics")
+public class MetricsServlet extends HttpServlet {
+
+    /**
+     * Обрабатывает HTTP GET запрос на получение метрик.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, содержащий ответ сервлета клиенту.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeJsonResponse(response, writer -> {
+            writer.beginObject().name("singleFlight").beginObject();
+            for (SingleFlight<?, ?> group : SingleFlight.all()) {
+                writer.name(group.getName()).beginObject()
+                        .name("executions").value(group.getExecutions())
+                        .name("collapsed").value(group.getCollapsed())
+                        .name("inFlight").value(group.getInFlight())
+                        .endObject();
+            }
+            writer.endObject().name("batchLoader").beginObject();
+            for (BatchLoader<?, ?> loader : BatchLoader.all()) {
+                writer.name(loader.getName()).beginObject()
+                        .name("batches").value(loader.getBatches())
+                        .name("keys").value(loader.getKeys())
+                        .endObject();
+            }
+            writer.endObject().name("admission").beginObject();
+            for (AdaptiveLimiter limiter : AdaptiveLimiter.all()) {
+                writer.name(limiter.getName()).beginObject()
+                        .name("limit").value(limiter.getLimit())
+                        .name("inFlight").value(limiter.getInFlight())
+                        .name("rejected").value(limiter.getRejected())
+                        .endObject();
+            }
+            writer.endObject().name("circuitBreaker").beginObject();
+            for (CircuitBreaker breaker : CircuitBreaker.all()) {
+                writer.name(breaker.getName()).beginObject()
+                        .name("state").value(breaker.getState().name())
+                        .name("consecutiveFailures").value(breaker.getConsecutiveFailures())
+                        .name("rejected").value(breaker.getRejected())
+                        .endObject();
+            }
+            writer.endObject().endObject();
+        }, HttpServletResponse.SC_OK);
+    }
+}
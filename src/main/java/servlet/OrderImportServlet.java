@@ -0,0 +1,80 @@
+package servlet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import dao.OrderDao;
+import dao.ProductDao;
+import dao.UserDao;
+import jakarta.servlet.annotation.WebServlet;
+import model.dto.DtoBinaryCodec;
+import model.dto.OrderDto;
+import model.entity.Order;
+import model.entity.Product;
+import model.entity.User;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Сервлет массового импорта заказов.
+ * Принимает JSON-массив заказов в формате {@link OrderDto} с полями {@code userId} и {@code productIds}.
+ * Пользователи и продукты каждого пакета загружаются двумя запросами на весь пакет, а не на каждый заказ,
+ * после чего пакет сохраняется одной транзакцией через {@link OrderDao#addOrders(List)}.
+ */
+@WebServlet("/orders/import")
+public class OrderImportServlet extends ImportHttpServlet<OrderDto> {
+    private final OrderDao orderDao = new OrderDao();
+    private final UserDao userDao = new UserDao();
+    private final ProductDao productDao = new ProductDao();
+
+    @Override
+    protected OrderDto parseItem(JsonParser parser) throws IOException {
+        OrderDto orderDto = DtoBinaryCodec.readOrder(parser);
+        List<Integer> productIds = orderDto.getProductIds();
+        if (productIds == null || productIds.isEmpty()) {
+            throw new IllegalArgumentException("В заказе должен быть хотя бы один товар.");
+        }
+        // Продукт может входить в заказ только один раз: это первичный ключ order_products.
+        if (productIds.contains(null) || new HashSet<>(productIds).size() != productIds.size()) {
+            throw new IllegalArgumentException("Идентификаторы продуктов должны быть заданы и не повторяться");
+        }
+        return orderDto;
+    }
+
+    @Override
+    protected void writeBatch(List<OrderDto> batch) throws SQLException {
+        Set<Integer> userIds = new HashSet<>();
+        Set<Integer> productIds = new HashSet<>();
+        for (OrderDto orderDto : batch) {
+            userIds.add(orderDto.getUserId());
+            productIds.addAll(orderDto.getProductIds());
+        }
+        Map<Integer, User> users = userDao.getUsersByIds(userIds);
+        Map<Integer, Product> products = productDao.getProductsByIds(productIds);
+
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (OrderDto orderDto : batch) {
+            User user = users.get(orderDto.getUserId());
+            if (user == null) {
+                throw new IllegalArgumentException("Пользователь с идентификатором " + orderDto.getUserId() + " не найден");
+            }
+            List<Product> orderProducts = new ArrayList<>(orderDto.getProductIds().size());
+            for (Integer productId : orderDto.getProductIds()) {
+                Product product = products.get(productId);
+                if (product == null) {
+                    throw new IllegalArgumentException("Продукт с идентификатором " + productId + " не найден");
+                }
+                orderProducts.add(product);
+            }
+            Order order = new Order();
+            order.setUser(user);
+            order.setProducts(orderProducts);
+            orders.add(order);
+        }
+        orderDao.addOrders(orders);
+    }
+}
@@ -3,30 +3,98 @@ package servlet;
 import com.google.gson.Gson;
 import converter.OrderConverter;
 import dao.OrderDao;
+import database.ConfigLoader;
+import database.DatabaseUnavailableException;
+import database.Resilience;
+import ingestion.OrderIngestionQueue;
+import ingestion.OrderPendingException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import model.dto.DtoBinaryCodec;
 import model.dto.OrderDto;
 import model.entity.Order;
+import util.BinaryFormat;
+import util.Json;
+import util.LruCache;
 
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
+import static util.ServletUtils.buildLocation;
+import static util.ServletUtils.logServerError;
+import static util.ServletUtils.writeBinaryResponse;
 import static util.ServletUtils.writeResponse;
+import static util.ServletUtils.writeServerError;
 
 /**
  * Сервлет, предоставляющий REST API для управления заказами.
  * Поддерживает операции для получения и создания заказов.
+ * Создание заказа может быть сделано идемпотентным с помощью заголовка {@code Idempotency-Key}:
+ * повторный запрос с тем же ключом возвращает результат первого запроса без повторной записи.
+ * При включённом свойстве {@code orders.ingestion.enabled} заказы без ключа идемпотентности
+ * сохраняются через {@link OrderIngestionQueue} группами в одной транзакции.
+ * Такому заказу сервер выдаёт собственный ключ идемпотентности, который сохраняется в одной транзакции
+ * с заказом. Если заказ не подтверждён вовремя, но уже записывается, клиент получает 202 с этим ключом:
+ * повтор запроса с ключом на любом экземпляре сервиса возвращает итог записи, а не создаёт второй заказ.
  */
 @WebServlet("/orders")
 public class OrderServlet extends HttpServlet {
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    static final int DEFAULT_HISTORY_LIMIT = 20;
+    static final int MAX_HISTORY_LIMIT = 100;
+
     private final OrderDao orderDao = new OrderDao();
     private final OrderConverter orderConverter = new OrderConverter();
-    private final Gson gson = new Gson();
+    private final Gson gson = Json.gson();
+    private final LruCache<String, Integer> idempotencyCache =
+            new LruCache<>(ConfigLoader.getIntProperty("idempotency.cache.size", 10000));
+    private final long ingestionAckTimeoutMillis =
+            ConfigLoader.getLongProperty("orders.ingestion.ackTimeoutMillis", 5000);
+    private final Map<String, CompletableFuture<Integer>> pendingOrders = new ConcurrentHashMap<>();
+    private OrderIngestionQueue ingestionQueue;
+
+    /**
+     * Запускает очередь группового приёма заказов, если она включена в конфигурации.
+     */
+    @Override
+    public void init() {
+        if (ConfigLoader.getBooleanProperty("orders.ingestion.enabled", false)) {
+            ingestionQueue = new OrderIngestionQueue(orderDao,
+                    ConfigLoader.getIntProperty("orders.ingestion.queueCapacity", 10000),
+                    ConfigLoader.getIntProperty("orders.ingestion.maxBatchSize", 500),
+                    ConfigLoader.getLongProperty("orders.ingestion.offerTimeoutMillis", 50));
+        }
+    }
+
+    /**
+     * Останавливает очередь группового приёма заказов.
+     */
+    @Override
+    public void destroy() {
+        if (ingestionQueue != null) {
+            ingestionQueue.close();
+        }
+    }
 
     /**
      * Обрабатывает HTTP GET запрос на получение заказа по его ID.
      * Заказ возвращается в виде строки в формате JSON.
+     * Если вместо ID указан параметр {@code userId}, возвращается страница истории заказов пользователя
+     * (параметры {@code afterId} и {@code limit}); ссылка на следующую страницу передаётся в заголовке {@code Link}.
+     * Клиенты, указавшие в заголовке {@code Accept} двоичный формат ({@link BinaryFormat}), получают те же данные
+     * в CBOR или Smile.
      *
      * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
      * @param response Объект HttpServletResponse, содержащий ответ сервлета клиенту.
@@ -35,23 +103,88 @@ public class OrderServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String orderId = request.getParameter("id");
+        String userId = request.getParameter("userId");
+        BinaryFormat format = BinaryFormat.negotiate(request.getHeader("Accept"));
+        response.setHeader("Vary", "Accept");
+        if (orderId == null && userId != null) {
+            writeOrderHistory(request, response, userId, format);
+            return;
+        }
         try {
             Order order = orderId == null ? null : orderDao.getOrderById(Integer.parseInt(orderId));
             if (order != null) {
                 OrderDto orderDto = orderConverter.convertEntityToDto(order);
-                writeResponse(response, gson.toJson(orderDto), HttpServletResponse.SC_OK);
+                if (format != null) {
+                    writeBinaryResponse(response, format,
+                            generator -> DtoBinaryCodec.writeOrder(generator, orderDto), HttpServletResponse.SC_OK);
+                } else {
+                    writeResponse(response, gson.toJson(orderDto), HttpServletResponse.SC_OK);
+                }
             } else {
                 writeResponse(response, "Заказ не найден", HttpServletResponse.SC_NOT_FOUND);
             }
         } catch (Exception e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            writeServerError(response, e);
+        }
+    }
+
+    /**
+     * Записывает страницу истории заказов пользователя. Если страница заполнена полностью,
+     * добавляет заголовок {@code Link} со ссылкой на следующую страницу.
+     */
+    private void writeOrderHistory(HttpServletRequest request, HttpServletResponse response, String userIdParameter,
+                                   BinaryFormat format) throws IOException {
+        int userId;
+        int afterId;
+        int limit;
+        try {
+            userId = Integer.parseInt(userIdParameter);
+            String afterIdParameter = request.getParameter("afterId");
+            String limitParameter = request.getParameter("limit");
+            afterId = afterIdParameter == null ? 0 : Integer.parseInt(afterIdParameter);
+            limit = limitParameter == null ? DEFAULT_HISTORY_LIMIT : Integer.parseInt(limitParameter);
+        } catch (NumberFormatException e) {
+            writeResponse(response, "Некорректные параметры запроса", HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (limit < 1 || limit > MAX_HISTORY_LIMIT || afterId < 0) {
+            writeResponse(response, "Параметр limit должен быть от 1 до " + MAX_HISTORY_LIMIT
+                    + ", afterId не может быть отрицательным", HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        try {
+            List<Order> orders = orderDao.getOrdersByUserId(userId, afterId, limit);
+            List<OrderDto> orderDtos = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                orderDtos.add(orderConverter.convertEntityToDto(order));
+            }
+            if (orders.size() == limit) {
+                int lastId = orders.get(orders.size() - 1).getId();
+                String contextPath = request.getContextPath() == null ? "" : request.getContextPath();
+                String next = contextPath + "/orders?userId=" + userId
+                        + "&afterId=" + lastId + "&limit=" + limit;
+                response.setHeader("Link", "<" + next + ">; rel=\"next\"");
+            }
+            if (format != null) {
+                writeBinaryResponse(response, format,
+                        generator -> DtoBinaryCodec.writeOrders(generator, orderDtos), HttpServletResponse.SC_OK);
+            } else {
+                writeResponse(response, gson.toJson(orderDtos), HttpServletResponse.SC_OK);
+            }
+        } catch (SQLException e) {
+            writeServerError(response, e);
         }
     }
 
     /**
      * Обрабатывает HTTP POST запрос на создание нового заказа из JSON-форматированного DTO заказа.
      * Метод читает DTO заказа, преобразует его в сущность и сохраняет в базе данных.
+     * Ссылка на созданный заказ возвращается в заголовке Location.
+     * Если передан заголовок {@code Idempotency-Key} и заказ с этим ключом уже создан,
+     * возвращается исходный результат без повторного преобразования и сохранения заказа.
+     * Если очередь группового приёма переполнена или заказ не дождался записи в очереди,
+     * клиент получает 503 с заголовком {@code Retry-After}; такой заказ записан не будет.
+     * Если заказ уже записывается, клиент получает 202 и ключ идемпотентности для повторного запроса.
      *
      * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
      * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
@@ -59,14 +192,111 @@ public class OrderServlet extends HttpServlet {
      */
     @Override
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey != null
+                && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            writeResponse(response, "Некорректный ключ идемпотентности", HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
         try {
+            Integer replayedOrderId = null;
+            CompletableFuture<Integer> pendingOrder = idempotencyKey == null ? null : pendingOrders.get(idempotencyKey);
+            if (pendingOrder != null) {
+                try {
+                    replayedOrderId = OrderIngestionQueue.await(pendingOrder, ingestionAckTimeoutMillis);
+                } catch (TimeoutException e) {
+                    writeAccepted(response, idempotencyKey);
+                    return;
+                } catch (SQLException e) {
+                    // Заказ из очереди не записан, поэтому запрос с тем же ключом создаёт его заново.
+                }
+            }
+            if (replayedOrderId == null && idempotencyKey != null) {
+                replayedOrderId = findOrderIdByIdempotencyKey(idempotencyKey);
+            }
+            if (replayedOrderId != null) {
+                response.setHeader(IDEMPOTENT_REPLAYED_HEADER, "true");
+                response.setHeader("Location", buildLocation(request, "/orders", replayedOrderId));
+                writeResponse(response, "Заказ успешно создан", HttpServletResponse.SC_CREATED);
+                return;
+            }
             OrderDto orderDto = gson.fromJson(request.getReader(), OrderDto.class);
             Order order = orderConverter.convertDTOToEntity(orderDto);
-            orderDao.addOrder(order);
+            int orderId;
+            if (idempotencyKey == null && ingestionQueue != null) {
+                String issuedKey = UUID.randomUUID().toString();
+                try {
+                    orderId = ingestionQueue.submitAndAwait(order, issuedKey, ingestionAckTimeoutMillis);
+                } catch (OrderPendingException e) {
+                    trackPendingOrder(response, issuedKey, e.getResult());
+                    return;
+                } catch (SQLException e) {
+                    if (!Resilience.isDataError(e)) {
+                        // Итог записи группы неизвестен: повтор с выданным ключом не создаст второй заказ.
+                        response.setHeader(IDEMPOTENCY_KEY_HEADER, issuedKey);
+                    }
+                    throw e;
+                }
+            } else {
+                orderId = orderDao.addOrder(order, idempotencyKey);
+                if (idempotencyKey != null) {
+                    idempotencyCache.put(idempotencyKey, orderId);
+                }
+            }
+            response.setHeader("Location", buildLocation(request, "/orders", orderId));
             writeResponse(response, "Заказ успешно создан", HttpServletResponse.SC_CREATED);
+        } catch (RejectedExecutionException e) {
+            response.setHeader("Retry-After", "1");
+            writeResponse(response, "Сервис перегружен, повторите запрос позже", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } catch (DatabaseUnavailableException e) {
+            writeServerError(response, e);
         } catch (Exception e) {
+            logServerError(e);
             writeResponse(response, "Ошибка обработки запроса: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
         }
     }
+
+    /**
+     * Запоминает заказ, который записывается после истечения времени ожидания, под выданным ему ключом
+     * идемпотентности и отвечает 202. Ключ сохраняется в базе данных в одной транзакции с заказом, поэтому
+     * повтор запроса с этим ключом находит заказ на любом экземпляре сервиса; на этом экземпляре повтор
+     * до завершения записи дожидается её итога.
+     */
+    private void trackPendingOrder(HttpServletResponse response, String key, CompletableFuture<Integer> result)
+            throws IOException {
+        pendingOrders.put(key, result);
+        result.whenComplete((orderId, error) -> {
+            if (orderId != null) {
+                idempotencyCache.put(key, orderId);
+            }
+            pendingOrders.remove(key);
+        });
+        writeAccepted(response, key);
+    }
+
+    private void writeAccepted(HttpServletResponse response, String idempotencyKey) throws IOException {
+        response.setHeader(IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        response.setHeader("Retry-After", "1");
+        writeResponse(response, "Заказ принят и записывается, повторите запрос с заголовком "
+                + IDEMPOTENCY_KEY_HEADER + ", чтобы получить результат", HttpServletResponse.SC_ACCEPTED);
+    }
+
+    /**
+     * Ищет заказ, созданный с указанным ключом идемпотентности: сначала в in-memory кэше,
+     * затем в базе данных. Найденный в базе ключ добавляется в кэш.
+     *
+     * @param idempotencyKey Ключ идемпотентности запроса.
+     * @return идентификатор заказа или null, если ключ ещё не использовался.
+     * @throws SQLException при ошибках доступа к базе данных.
+     */
+    private Integer findOrderIdByIdempotencyKey(String idempotencyKey) throws SQLException {
+        Integer orderId = idempotencyCache.get(idempotencyKey);
+        if (orderId == null) {
+            orderId = orderDao.findOrderIdByIdempotencyKey(idempotencyKey);
+            if (orderId != null) {
+                idempotencyCache.put(idempotencyKey, orderId);
+            }
+        }
+        return orderId;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package servlet;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import util.Money;
+
+import java.io.IOException;
+
+/**
+ * Базовый сервлет с поддержкой HTTP метода PATCH.
+ * {@link HttpServlet} не диспетчеризует PATCH, поэтому этот класс перехватывает его в
+ * {@link #service(HttpServletRequest, HttpServletResponse)} и передаёт в {@link #doPatch}.
+ * Остальные методы обрабатываются стандартной реализацией.
+ */
+public abstract class PatchableHttpServlet extends HttpServlet {
+    private static final String METHOD_PATCH = "PATCH";
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        if (METHOD_PATCH.equalsIgnoreCase(request.getMethod())) {
+            doPatch(request, response);
+        } else {
+            super.service(request, response);
+        }
+    }
+
+    /**
+     * Обрабатывает HTTP PATCH запрос. По умолчанию отвечает 405 Method Not Allowed.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    protected void doPatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+    }
+
+    /**
+     * Возвращает строковое поле из тела PATCH запроса.
+     *
+     * @param body  JSON-объект тела запроса.
+     * @param field Имя поля.
+     * @return значение поля или null, если поле не передано.
+     * @throws IllegalArgumentException если поле передано со значением null или не является строкой.
+     */
+    protected static String optionalString(JsonObject body, String field) {
+        JsonElement element = requireNonNullField(body, field);
+        if (element == null) {
+            return null;
+        }
+        if (!element.isJsonPrimitive() || !element.getAsJsonPrimitive().isString()) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть строкой");
+        }
+        return element.getAsString();
+    }
+
+    /**
+     * Возвращает денежное поле из тела PATCH запроса в копейках.
+     * Десятичная запись числа переводится в копейки точно, без промежуточного {@code double}.
+     *
+     * @param body  JSON-объект тела запроса.
+     * @param field Имя поля.
+     * @return сумма в копейках или null, если поле не передано.
+     * @throws IllegalArgumentException если поле передано со значением null, не является числом
+     *                                  или содержит больше двух знаков после запятой.
+     */
+    protected static Long optionalMoney(JsonObject body, String field) {
+        JsonElement element = requireNonNullField(body, field);
+        if (element == null) {
+            return null;
+        }
+        if (!element.isJsonPrimitive() || !element.getAsJsonPrimitive().isNumber()) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть числом");
+        }
+        return Money.parse(element.getAsString());
+    }
+
+    private static JsonElement requireNonNullField(JsonObject body, String field) {
+        if (body == null) {
+            throw new IllegalArgumentException("Тело запроса должно быть JSON-объектом");
+        }
+        JsonElement element = body.get(field);
+        if (element != null && element.isJsonNull()) {
+            throw new IllegalArgumentException("Поле " + field + " не может быть null");
+        }
+        return element;
+    }
+}
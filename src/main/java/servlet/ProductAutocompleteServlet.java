@@ -0,0 +1,150 @@
+package servlet;
+
+import dao.ProductDao;
+import database.ConfigLoader;
+import dao.ProductSearchCriteria;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import model.columnar.ProductTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import search.ProductNameIndex;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static util.ServletUtils.writeJsonResponse;
+import static util.ServletUtils.writeResponse;
+import static util.ServletUtils.writeServerError;
+
+/**
+ * Сервлет автодополнения названий продуктов.
+ * Подсказки выдаются из индекса в памяти {@link ProductNameIndex}, который загружается при старте приложения
+ * и обновляется {@link ProductDao} при каждой записи, поэтому запросы на каждое нажатие клавиши не доходят до базы данных.
+ * Пока индекс не загружен, подсказки ищутся запросом по префиксу в базе данных.
+ */
+@WebServlet(urlPatterns = "/products/autocomplete", loadOnStartup = 1)
+public class ProductAutocompleteServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ProductAutocompleteServlet.class);
+    static final int DEFAULT_LIMIT = 10;
+    static final int MAX_LIMIT = 50;
+
+    private final ProductDao productDao = new ProductDao();
+    private final ProductNameIndex nameIndex = ProductNameIndex.getInstance();
+    private final long reloadBaseDelayMillis = ConfigLoader.getLongProperty("autocomplete.reload.baseDelayMillis", 1000);
+    private final long reloadMaxDelayMillis = ConfigLoader.getLongProperty("autocomplete.reload.maxDelayMillis", 60000);
+    private ScheduledExecutorService reloader;
+
+    /**
+     * Загружает названия всех продуктов в индекс. Ошибка загрузки не мешает старту приложения:
+     * загрузка повторяется в фоне с экспоненциально растущей задержкой, а до следующей успешной загрузки
+     * автодополнение обслуживается базой данных.
+     */
+    @Override
+    public void init() {
+        loadIndex(0);
+    }
+
+    /**
+     * Останавливает фоновые повторы загрузки индекса.
+     */
+    @Override
+    public synchronized void destroy() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+        }
+    }
+
+    private void loadIndex(int attempt) {
+        try {
+            nameIndex.startLoading();
+            nameIndex.finishLoading(productDao.getAllProductsTable());
+            logger.info("Индекс автодополнения загружен: {} продуктов", nameIndex.size());
+        } catch (SQLException | RuntimeException e) {
+            nameIndex.abortLoading();
+            long delay = Math.min(reloadMaxDelayMillis, reloadBaseDelayMillis << Math.min(attempt, 16));
+            logger.warn("Не удалось загрузить индекс автодополнения, повтор через {} мс: {}", delay, e.getMessage());
+            scheduleReload(attempt + 1, delay);
+        }
+    }
+
+    private synchronized void scheduleReload(int attempt, long delayMillis) {
+        if (reloader == null) {
+            reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "autocomplete-index-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (!reloader.isShutdown()) {
+            reloader.schedule(() -> loadIndex(attempt), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Обрабатывает HTTP GET запрос автодополнения.
+     * Параметр {@code q} содержит введённый префикс, {@code limit} — максимальное количество подсказок
+     * (по умолчанию {@value #DEFAULT_LIMIT}, не более {@value #MAX_LIMIT}).
+     * Ответ — JSON-массив объектов {@code {"id": ..., "name": ...}} в алфавитном порядке.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, содержащий ответ сервлета клиенту.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String prefix = request.getParameter("q");
+        String limitParameter = request.getParameter("limit");
+        int limit;
+        try {
+            limit = limitParameter == null ? DEFAULT_LIMIT : Integer.parseInt(limitParameter);
+        } catch (NumberFormatException e) {
+            limit = 0;
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            writeResponse(response, "Параметр limit должен быть от 1 до " + MAX_LIMIT,
+                    HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (prefix == null || prefix.isBlank()) {
+            writeJsonResponse(response, writer -> writer.beginArray().endArray(), HttpServletResponse.SC_OK);
+            return;
+        }
+        if (nameIndex.isLoaded()) {
+            List<ProductNameIndex.Suggestion> suggestions = nameIndex.complete(prefix, limit);
+            writeJsonResponse(response, writer -> {
+                writer.beginArray();
+                for (ProductNameIndex.Suggestion suggestion : suggestions) {
+                    writer.beginObject()
+                            .name("id").value(suggestion.getId())
+                            .name("name").value(suggestion.getName())
+                            .endObject();
+                }
+                writer.endArray();
+            }, HttpServletResponse.SC_OK);
+            return;
+        }
+        try {
+            ProductTable products = productDao.searchProducts(new ProductSearchCriteria(prefix,
+                    ProductSearchCriteria.Mode.PREFIX, null, null, limit, 0));
+            writeJsonResponse(response, writer -> {
+                writer.beginArray();
+                for (int row = 0; row < products.size(); row++) {
+                    writer.beginObject()
+                            .name("id").value(products.getId(row))
+                            .name("name").value(products.getName(row))
+                            .endObject();
+                }
+                writer.endArray();
+            }, HttpServletResponse.SC_OK);
+        } catch (SQLException e) {
+            writeServerError(response, e);
+        }
+    }
+}
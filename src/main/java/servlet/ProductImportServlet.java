@@ -0,0 +1,49 @@
+package servlet;
+
+import com.fasterxml.jackson.core.JsonParser;
+import converter.DtoMapper;
+import dao.ProductDao;
+import jakarta.servlet.annotation.WebServlet;
+import model.dto.DtoBinaryCodec;
+import model.dto.ProductDto;
+import model.entity.Product;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Сервлет массового импорта продуктов.
+ * Принимает JSON-массив продуктов в формате {@link ProductDto}; идентификатор и версия игнорируются
+ * и назначаются базой данных. Каждый пакет сохраняется одной транзакцией через {@link ProductDao#addProducts(List)}.
+ */
+@WebServlet("/products/import")
+public class ProductImportServlet extends ImportHttpServlet<Product> {
+    static final int MAX_NAME_LENGTH = 255;
+    /**
+     * Наибольшая цена, представимая столбцом {@code NUMERIC(10, 2)}, в копейках.
+     */
+    static final long MAX_PRICE_CENTS = 9_999_999_999L;
+
+    private final ProductDao productDao = new ProductDao();
+
+    @Override
+    protected Product parseItem(JsonParser parser) throws IOException {
+        ProductDto productDto = DtoBinaryCodec.readProduct(parser);
+        if (productDto.getName() == null || productDto.getName().isBlank()) {
+            throw new IllegalArgumentException("Не указано название продукта");
+        }
+        if (productDto.getName().length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("Название продукта длиннее " + MAX_NAME_LENGTH + " символов");
+        }
+        if (productDto.getPriceCents() < 0 || productDto.getPriceCents() > MAX_PRICE_CENTS) {
+            throw new IllegalArgumentException("Цена продукта вне допустимого диапазона");
+        }
+        return DtoMapper.toEntity(productDto);
+    }
+
+    @Override
+    protected void writeBatch(List<Product> batch) throws SQLException {
+        productDao.addProducts(batch);
+    }
+}
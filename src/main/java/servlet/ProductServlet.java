@@ -1,35 +1,52 @@
 package servlet;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonIOException;
 import com.google.gson.JsonSyntaxException;
+import converter.DtoMapper;
 import dao.ProductDao;
+import dao.ProductSearchCriteria;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import model.dto.DtoBinaryCodec;
 import model.dto.ProductDto;
+import model.columnar.ProductTable;
 import model.entity.Product;
+import util.BinaryFormat;
+import util.Json;
+import util.Money;
 
 import java.io.IOException;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
 
+import static util.ServletUtils.buildLocation;
+import static util.ServletUtils.writeBinaryResponse;
+import static util.ServletUtils.writeJsonResponse;
 import static util.ServletUtils.writeResponse;
+import static util.ServletUtils.writeServerError;
 
 /**
  * Сервлет для управления продуктами через REST API.
- * Обрабатывает запросы на получение, добавление, обновление и удаление продуктов.
+ * Обрабатывает запросы на получение, добавление, обновление (полное и частичное) и удаление продуктов.
  */
 @WebServlet("/products")
-public class ProductServlet extends HttpServlet {
+public class ProductServlet extends PatchableHttpServlet {
+    private static final String[] SEARCH_PARAMETERS = {"q", "mode", "minPrice", "maxPrice", "limit", "offset"};
+
     private final ProductDao productDao = new ProductDao();
-    private final Gson gson = new Gson();
+    private final Gson gson = Json.gson();
 
     /**
      * Обрабатывает HTTP GET запросы для получения продукта или списка продуктов.
-     * Если указан параметр id, возвращает конкретный продукт, иначе возвращает список всех продуктов.
+     * Если указан параметр id, возвращает конкретный продукт. Если указан хотя бы один параметр поиска
+     * ({@code q}, {@code mode}, {@code minPrice}, {@code maxPrice}, {@code limit}, {@code offset}),
+     * возвращает страницу результатов поиска. Иначе возвращает список всех продуктов.
+     * Клиенты, указавшие в заголовке {@code Accept} двоичный формат ({@link BinaryFormat}), получают те же данные
+     * в CBOR или Smile.
      *
      * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
      * @param response Объект HttpServletResponse, содержащий ответ сервлета клиенту.
@@ -38,31 +55,44 @@ public class ProductServlet extends HttpServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String productId = request.getParameter("id");
+        BinaryFormat format = BinaryFormat.negotiate(request.getHeader("Accept"));
+        response.setHeader("Vary", "Accept");
         try {
             if(productId != null) {
                 Product product = productDao.getProductById(Integer.parseInt(productId));
                 if (product != null) {
-                    ProductDto productDto = new ProductDto(product.getId(), product.getName(), product.getPrice());
-                    writeResponse(response, gson.toJson(productDto), HttpServletResponse.SC_OK);
+                    ProductDto productDto = DtoMapper.toDto(product);
+                    response.setHeader("ETag", formatETag(product.getVersion()));
+                    if (format != null) {
+                        writeBinaryResponse(response, format,
+                                generator -> DtoBinaryCodec.writeProduct(generator, productDto), HttpServletResponse.SC_OK);
+                    } else {
+                        writeResponse(response, gson.toJson(productDto), HttpServletResponse.SC_OK);
+                    }
                 } else {
                     writeResponse(response, "Продукт не найден", HttpServletResponse.SC_NOT_FOUND);
                 }
             } else {
-                List<Product> products = productDao.getAllProducts();
-                List<ProductDto> productDtos = products.stream()
-                        .map(p -> new ProductDto(p.getId(), p.getName(), p.getPrice()))
-                        .collect(Collectors.toList());
-                writeResponse(response, gson.toJson(productDtos), HttpServletResponse.SC_OK);
+                ProductTable products = isSearchRequest(request)
+                        ? productDao.searchProducts(parseSearchCriteria(request))
+                        : productDao.getAllProductsTable();
+                if (format != null) {
+                    writeBinaryResponse(response, format, products::writeBinary, HttpServletResponse.SC_OK);
+                } else {
+                    writeJsonResponse(response, products::writeJson, HttpServletResponse.SC_OK);
+                }
             }
+        } catch (IllegalArgumentException e) {
+            writeResponse(response, "Некорректный запрос: " + e.getMessage(), HttpServletResponse.SC_BAD_REQUEST);
         } catch (SQLException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            writeServerError(response, e);
         }
     }
 
     /**
      * Обрабатывает HTTP POST запросы для добавления нового продукта.
-     * Принимает данные продукта в формате JSON и добавляет продукт в базу данных.
+     * Принимает данные продукта в формате JSON, добавляет продукт в базу данных и возвращает
+     * созданный продукт с присвоенным идентификатором, а также ссылку на него в заголовке Location.
      *
      * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
      * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
@@ -72,24 +102,27 @@ public class ProductServlet extends HttpServlet {
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
             ProductDto productDto = gson.fromJson(request.getReader(), ProductDto.class);
-            Product product = new Product(productDto.getId(), productDto.getName(), productDto.getPrice());
-            productDao.addProduct(product);
-            writeResponse(response, "Продукт успешно добавлен", HttpServletResponse.SC_CREATED);
+            Product created = productDao.addProduct(DtoMapper.toEntity(productDto));
+            ProductDto createdDto = DtoMapper.toDto(created);
+            response.setHeader("ETag", formatETag(created.getVersion()));
+            response.setHeader("Location", buildLocation(request, "/products", created.getId()));
+            writeResponse(response, gson.toJson(createdDto), HttpServletResponse.SC_CREATED);
         } catch (JsonIOException e) {
             writeResponse(response, "Json-данные некорректны", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
         } catch (JsonSyntaxException e) {
             writeResponse(response, "Json-данные некорректны", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
-        } catch (IOException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+        } catch (IOException | SQLException e) {
+            writeServerError(response, e);
         }
     }
 
     /**
      * Обрабатывает HTTP PUT запросы для обновления существующего продукта.
      * Принимает обновлённые данные продукта в формате JSON и обновляет данные продукта в базе данных.
+     * Если передан заголовок {@code If-Match} с версией продукта (значением ETag из GET запроса),
+     * обновление выполняется только при совпадении версии, иначе возвращается 412 Precondition Failed.
+     * Версии сравниваются строго: слабый ETag ({@code W/"3"}) не совпадает ни с одной версией,
+     * а {@code If-Match: *} совпадает с любой версией существующего продукта.
      *
      * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
      * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
@@ -98,13 +131,74 @@ public class ProductServlet extends HttpServlet {
     @Override
     protected void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
+            String ifMatch = request.getHeader("If-Match");
             ProductDto productDto = gson.fromJson(request.getReader(), ProductDto.class);
-            Product product = new Product(productDto.getId(), productDto.getName(), productDto.getPrice());
-            productDao.updateProduct(product);
-            writeResponse(response, "Продукт успешно обновлен", HttpServletResponse.SC_OK);
+            Product product = DtoMapper.toEntity(productDto);
+            if (ifMatch == null || isAnyETag(ifMatch)) {
+                Integer version = productDao.updateProduct(product);
+                if (version != null) {
+                    response.setHeader("ETag", formatETag(version));
+                    writeResponse(response, "Продукт успешно обновлен", HttpServletResponse.SC_OK);
+                } else if (ifMatch != null) {
+                    writeResponse(response, "Продукт не найден", HttpServletResponse.SC_PRECONDITION_FAILED);
+                } else {
+                    writeResponse(response, "Продукт успешно обновлен", HttpServletResponse.SC_OK);
+                }
+                return;
+            }
+            Integer expectedVersion = parseETag(ifMatch);
+            if (expectedVersion != null && productDao.updateProduct(product, expectedVersion)) {
+                response.setHeader("ETag", formatETag(expectedVersion + 1));
+                writeResponse(response, "Продукт успешно обновлен", HttpServletResponse.SC_OK);
+                return;
+            }
+            Product current = productDao.getProductById(product.getId());
+            if (current == null) {
+                writeResponse(response, "Продукт не найден", HttpServletResponse.SC_NOT_FOUND);
+            } else {
+                response.setHeader("ETag", formatETag(current.getVersion()));
+                writeResponse(response, "Продукт был изменён другим запросом", HttpServletResponse.SC_PRECONDITION_FAILED);
+            }
+        } catch (IllegalArgumentException e) {
+            writeResponse(response, "Некорректный заголовок If-Match", HttpServletResponse.SC_BAD_REQUEST);
+        } catch (SQLException e) {
+            writeServerError(response, e);
+        }
+    }
+
+    /**
+     * Обрабатывает HTTP PATCH запросы для частичного обновления продукта по идентификатору.
+     * Принимает JSON-объект только с изменяемыми полями (name, price); остальные поля не затрагиваются.
+     * Если переданные значения совпадают с текущими, запись в базу данных не выполняется.
+     * В заголовке {@code ETag} возвращается версия продукта после запроса, как и при PUT.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    @Override
+    protected void doPatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            int id = Integer.parseInt(request.getParameter("id"));
+            JsonObject fields = gson.fromJson(request.getReader(), JsonObject.class);
+            Integer version = productDao.patchProduct(id,
+                    optionalString(fields, "name"), optionalMoney(fields, "price"));
+            if (version != null) {
+                response.setHeader("ETag", formatETag(version));
+                writeResponse(response, "Продукт успешно обновлен", HttpServletResponse.SC_OK);
+                return;
+            }
+            Product current = productDao.getProductById(id);
+            if (current == null) {
+                writeResponse(response, "Продукт не найден", HttpServletResponse.SC_NOT_FOUND);
+            } else {
+                response.setHeader("ETag", formatETag(current.getVersion()));
+                writeResponse(response, "Данные продукта не изменились", HttpServletResponse.SC_OK);
+            }
+        } catch (IllegalArgumentException | JsonParseException e) {
+            writeResponse(response, "Некорректный запрос: " + e.getMessage(), HttpServletResponse.SC_BAD_REQUEST);
         } catch (SQLException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            writeServerError(response, e);
         }
     }
 
@@ -123,8 +217,76 @@ public class ProductServlet extends HttpServlet {
             productDao.deleteProduct(Integer.parseInt(productId));
             writeResponse(response, "Продукт успешно удален", HttpServletResponse.SC_OK);
         } catch (SQLException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            writeServerError(response, e);
+        }
+    }
+
+    private static boolean isSearchRequest(HttpServletRequest request) {
+        for (String parameter : SEARCH_PARAMETERS) {
+            if (request.getParameter(parameter) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Собирает параметры поиска из строки запроса. Цены передаются в десятичном виде, например {@code 9.99}.
+     *
+     * @throws IllegalArgumentException если какой-либо параметр некорректен.
+     */
+    static ProductSearchCriteria parseSearchCriteria(HttpServletRequest request) {
+        String mode = request.getParameter("mode");
+        String minPrice = request.getParameter("minPrice");
+        String maxPrice = request.getParameter("maxPrice");
+        String limit = request.getParameter("limit");
+        String offset = request.getParameter("offset");
+        return new ProductSearchCriteria(request.getParameter("q"),
+                mode == null ? null : parseMode(mode),
+                minPrice == null ? null : Money.parse(minPrice),
+                maxPrice == null ? null : Money.parse(maxPrice),
+                limit == null ? ProductSearchCriteria.DEFAULT_LIMIT : Integer.parseInt(limit),
+                offset == null ? 0 : Integer.parseInt(offset));
+    }
+
+    private static ProductSearchCriteria.Mode parseMode(String value) {
+        try {
+            return ProductSearchCriteria.Mode.valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Неизвестный режим поиска: " + value);
+        }
+    }
+
+    /**
+     * Формирует значение заголовка ETag по версии продукта.
+     */
+    static String formatETag(int version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Проверяет, что заголовок If-Match равен {@code *}, то есть совпадает с любой версией.
+     */
+    static boolean isAnyETag(String value) {
+        return "*".equals(value.trim());
+    }
+
+    /**
+     * Извлекает версию продукта из значения заголовка If-Match.
+     * Допускаются строгий ETag ({@code "3"}) и версия без кавычек. If-Match требует строгого сравнения,
+     * поэтому для слабого ETag ({@code W/"3"}) возвращается null: он не совпадает ни с одной версией.
+     *
+     * @return версия продукта или null для слабого ETag.
+     * @throws IllegalArgumentException если значение не содержит версию.
+     */
+    static Integer parseETag(String value) {
+        String tag = value.trim();
+        if (tag.startsWith("W/")) {
+            return null;
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
         }
+        return Integer.parseInt(tag);
     }
 }
@@ -0,0 +1,61 @@
+package servlet;
+
+import database.CircuitBreaker;
+import database.Resilience;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import startup.WarmUp;
+
+import java.io.IOException;
+
+import static util.ServletUtils.writeResponse;
+
+/**
+ * Сервлет проверки готовности приложения к приёму трафика.
+ * При старте приложения запускает {@link WarmUp} в отдельном потоке; пока прогрев не завершён
+ * или разомкнут {@link CircuitBreaker} базы данных, {@code GET /ready} отвечает 503 с заголовком
+ * {@code Retry-After}, иначе — 200. Проверка не выполняет запросов к базе данных, подробная
+ * диагностика доступна на {@code /health}.
+ * Балансировщик должен направлять трафик на экземпляр только после ответа 200.
+ */
+@WebServlet(urlPatterns = "/ready", loadOnStartup = 2)
+public class ReadinessServlet extends HttpServlet {
+    private final WarmUp warmUp = new WarmUp();
+    private Thread warmUpThread;
+
+    @Override
+    public void init() {
+        warmUpThread = new Thread(warmUp, "startup-warm-up");
+        warmUpThread.setDaemon(true);
+        warmUpThread.start();
+    }
+
+    @Override
+    public void destroy() {
+        if (warmUpThread != null) {
+            warmUpThread.interrupt();
+        }
+    }
+
+    /**
+     * Обрабатывает HTTP GET запрос на проверку готовности.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, содержащий ответ сервлета клиенту.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!warmUp.isReady()) {
+            response.setHeader("Retry-After", "1");
+            writeResponse(response, "Приложение прогревается", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } else if (Resilience.breaker().getState() == CircuitBreaker.State.OPEN) {
+            response.setHeader("Retry-After", String.valueOf(Resilience.retryAfterSeconds()));
+            writeResponse(response, "База данных недоступна", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } else {
+            writeResponse(response, "Приложение готово", HttpServletResponse.SC_OK);
+        }
+    }
+}
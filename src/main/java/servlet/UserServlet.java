@@ -2,31 +2,40 @@ package servlet;
 
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import converter.DtoMapper;
 import dao.UserDao;
 import jakarta.servlet.annotation.WebServlet;
-import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import model.dto.UserDto;
+import model.columnar.UserTable;
 import model.entity.User;
+import util.Json;
 
+import static util.ServletUtils.buildLocation;
+import static util.ServletUtils.writeJsonResponse;
 import static util.ServletUtils.writeResponse;
+import static util.ServletUtils.writeServerError;
 
 /**
  * Сервлет для управления пользователями через REST API.
- * Поддерживает операции получения, добавления, обновления и удаления пользователей.
+ * Поддерживает операции получения, добавления, обновления (полного и частичного) и удаления пользователей.
  */
 @WebServlet("/users")
-public class UserServlet extends HttpServlet {
+public class UserServlet extends PatchableHttpServlet {
     private final UserDao userDao = new UserDao();
-    private final Gson gson = new Gson();
+    private final Gson gson = Json.gson();
 
     /**
      * Обрабатывает HTTP GET запросы для получения одного пользователя по ID или всех пользователей.
+     * Пользователя также можно найти по параметру {@code email} (без учёта регистра) или {@code username},
+     * а нескольких пользователей — по списку адресов через запятую в параметре {@code emails}.
      * Возвращает данные в формате JSON.
      *
      * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
@@ -38,29 +47,32 @@ public class UserServlet extends HttpServlet {
         String userId = request.getParameter("id");
         try {
             if (userId != null) {
-                User user = userDao.getUserById(Integer.parseInt(userId));
-                if (user != null) {
-                    UserDto userDto = new UserDto(user.getId(), user.getUsername(), user.getEmail());
-                    writeResponse(response, gson.toJson(userDto), HttpServletResponse.SC_OK);
-                } else {
-                    writeResponse(response, "Пользователь не найден", HttpServletResponse.SC_NOT_FOUND);
+                writeUser(response, userDao.getUserById(Integer.parseInt(userId)));
+            } else if (request.getParameter("email") != null) {
+                writeUser(response, userDao.getUserByEmail(request.getParameter("email")));
+            } else if (request.getParameter("username") != null) {
+                writeUser(response, userDao.getUserByUsername(request.getParameter("username")));
+            } else if (request.getParameter("emails") != null) {
+                List<UserDto> users = new ArrayList<>();
+                for (User user : userDao.getUsersByEmails(parseList(request.getParameter("emails")))) {
+                    users.add(DtoMapper.toDto(user));
                 }
+                writeResponse(response, gson.toJson(users), HttpServletResponse.SC_OK);
             } else {
-                List<User> users = userDao.getAllUsers();
-                List<UserDto> userDtos = users.stream()
-                        .map(u -> new UserDto(u.getId(), u.getUsername(), u.getEmail()))
-                        .collect(Collectors.toList());
-                writeResponse(response, gson.toJson(userDtos), HttpServletResponse.SC_OK);
+                UserTable users = userDao.getAllUsersTable();
+                writeJsonResponse(response, users::writeJson, HttpServletResponse.SC_OK);
             }
+        } catch (IllegalArgumentException e) {
+            writeResponse(response, "Некорректный запрос: " + e.getMessage(), HttpServletResponse.SC_BAD_REQUEST);
         } catch (SQLException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            writeServerError(response, e);
         }
     }
 
     /**
      * Обрабатывает HTTP POST запросы для добавления нового пользователя.
-     * Принимает данные пользователя в формате JSON.
+     * Принимает данные пользователя в формате JSON и возвращает созданного пользователя
+     * с присвоенным идентификатором, а также ссылку на него в заголовке Location.
      *
      * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
      * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
@@ -70,12 +82,15 @@ public class UserServlet extends HttpServlet {
     protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
             UserDto userDto = gson.fromJson(request.getReader(), UserDto.class);
-            User user = new User(userDto.getId(), userDto.getUsername(), userDto.getEmail());
-            userDao.addUser(user);
-            writeResponse(response, "Пользователь успешно добавлен", HttpServletResponse.SC_CREATED);
+            User created = userDao.addUser(DtoMapper.toEntity(userDto));
+            UserDto createdDto = DtoMapper.toDto(created);
+            response.setHeader("Location", buildLocation(request, "/users", created.getId()));
+            writeResponse(response, gson.toJson(createdDto), HttpServletResponse.SC_CREATED);
         } catch (SQLException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            if (writeConflict(response, e)) {
+                return;
+            }
+            writeServerError(response, e);
         }
     }
 
@@ -91,12 +106,47 @@ public class UserServlet extends HttpServlet {
     protected void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
         try {
             UserDto userDto = gson.fromJson(request.getReader(), UserDto.class);
-            User user = new User(userDto.getId(), userDto.getUsername(), userDto.getEmail());
+            User user = DtoMapper.toEntity(userDto);
             userDao.updateUser(user);
             writeResponse(response, "Пользователь успешно обновлен", HttpServletResponse.SC_OK);
         } catch (SQLException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            if (writeConflict(response, e)) {
+                return;
+            }
+            writeServerError(response, e);
+        }
+    }
+
+    /**
+     * Обрабатывает HTTP PATCH запросы для частичного обновления пользователя по идентификатору.
+     * Принимает JSON-объект только с изменяемыми полями (username, email); остальные поля не затрагиваются.
+     * Если переданные значения совпадают с текущими, запись в базу данных не выполняется.
+     *
+     * @param request  Объект HttpServletRequest, содержащий запрос от клиента.
+     * @param response Объект HttpServletResponse, который содержит ответ сервлета на запрос клиента.
+     * @throws IOException при ошибках ввода/вывода.
+     */
+    @Override
+    protected void doPatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try {
+            int id = Integer.parseInt(request.getParameter("id"));
+            JsonObject fields = gson.fromJson(request.getReader(), JsonObject.class);
+            boolean changed = userDao.patchUser(id,
+                    optionalString(fields, "username"), optionalString(fields, "email"));
+            if (changed) {
+                writeResponse(response, "Пользователь успешно обновлен", HttpServletResponse.SC_OK);
+            } else if (userDao.getUserById(id) == null) {
+                writeResponse(response, "Пользователь не найден", HttpServletResponse.SC_NOT_FOUND);
+            } else {
+                writeResponse(response, "Данные пользователя не изменились", HttpServletResponse.SC_OK);
+            }
+        } catch (IllegalArgumentException | JsonParseException e) {
+            writeResponse(response, "Некорректный запрос: " + e.getMessage(), HttpServletResponse.SC_BAD_REQUEST);
+        } catch (SQLException e) {
+            if (writeConflict(response, e)) {
+                return;
+            }
+            writeServerError(response, e);
         }
     }
 
@@ -115,8 +165,39 @@ public class UserServlet extends HttpServlet {
             userDao.deleteUser(Integer.parseInt(userId));
             writeResponse(response, "Пользователь успешно удален", HttpServletResponse.SC_OK);
         } catch (SQLException e) {
-            writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            e.printStackTrace();
+            writeServerError(response, e);
+        }
+    }
+
+    private void writeUser(HttpServletResponse response, User user) throws IOException {
+        if (user != null) {
+            UserDto userDto = DtoMapper.toDto(user);
+            writeResponse(response, gson.toJson(userDto), HttpServletResponse.SC_OK);
+        } else {
+            writeResponse(response, "Пользователь не найден", HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Отвечает 409 Conflict, если ошибка вызвана нарушением уникальности имени пользователя или email.
+     *
+     * @return true, если ответ записан.
+     */
+    private static boolean writeConflict(HttpServletResponse response, SQLException e) throws IOException {
+        if (!UserDao.UNIQUE_VIOLATION.equals(e.getSQLState())) {
+            return false;
+        }
+        writeResponse(response, "Пользователь с таким именем или email уже существует", HttpServletResponse.SC_CONFLICT);
+        return true;
+    }
+
+    private static List<String> parseList(String value) {
+        List<String> items = new ArrayList<>();
+        for (String item : value.split(",")) {
+            if (!item.isBlank()) {
+                items.add(item.trim());
+            }
         }
+        return items;
     }
 }
@@ -0,0 +1,128 @@
+package startup;
+
+import com.google.gson.Gson;
+import converter.DtoMapper;
+import converter.OrderConverter;
+import dao.OrderDao;
+import dao.ProductDao;
+import dao.UserDao;
+import database.ConfigLoader;
+import database.ConnectionFactory;
+import database.DatabaseUnavailableException;
+import model.dto.OrderDto;
+import model.dto.ProductDto;
+import model.dto.UserDto;
+import model.entity.Order;
+import model.entity.Product;
+import model.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import util.Json;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогрев приложения после старта, до того как {@code /ready} начнёт сообщать о готовности.
+ * <ol>
+ *     <li>Открывает соединения пула.</li>
+ *     <li>Читает самые популярные продукты и самых активных пользователей по последним заказам,
+ *     чтобы их строки и индексы оказались в кэше PostgreSQL, а DAO и JDBC-драйвер были загружены.</li>
+ *     <li>Сериализует и разбирает {@link ProductDto}, {@link UserDto} и {@link OrderDto} общим
+ *     экземпляром Gson ({@link Json#gson()}), чтобы создать его адаптеры и прогреть JIT.</li>
+ * </ol>
+ * Пока база данных недоступна, прогрев повторяется с паузой, а приложение остаётся неготовым.
+ */
+public class WarmUp implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(WarmUp.class);
+    private static final long RETRY_DELAY_MILLIS = 2000;
+    private static final int HISTORY_USERS = 10;
+    private static final int HISTORY_PAGE_SIZE = 20;
+
+    private final ProductDao productDao;
+    private final UserDao userDao;
+    private final OrderDao orderDao;
+    private final OrderConverter orderConverter;
+    private final Gson gson = Json.gson();
+    private final int recentOrders = ConfigLoader.getIntProperty("warmup.recentOrders", 10_000);
+    private final int hotProducts = ConfigLoader.getIntProperty("warmup.hotProducts", 1_000);
+    private final int hotUsers = ConfigLoader.getIntProperty("warmup.hotUsers", 1_000);
+    private final int serializationRounds = ConfigLoader.getIntProperty("warmup.serializationRounds", 20);
+    private volatile boolean ready;
+
+    public WarmUp() {
+        this(new ProductDao(), new UserDao(), new OrderDao(), new OrderConverter());
+    }
+
+    public WarmUp(ProductDao productDao, UserDao userDao, OrderDao orderDao, OrderConverter orderConverter) {
+        this.productDao = productDao;
+        this.userDao = userDao;
+        this.orderDao = orderDao;
+        this.orderConverter = orderConverter;
+    }
+
+    /**
+     * Возвращает true, если прогрев завершён.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Выполняет прогрев, повторяя его, пока база данных недоступна. Прерывание потока останавливает прогрев.
+     */
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                warmUp();
+                ready = true;
+                logger.info("Прогрев завершён за {} мс", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return;
+            } catch (DatabaseUnavailableException e) {
+                logger.warn("Прогрев отложен, база данных недоступна: {}", e.getMessage());
+            } catch (SQLException e) {
+                // Прогрев — оптимизация: ошибка запроса не должна навсегда оставить приложение неготовым.
+                logger.warn("Ошибка прогрева, приложение помечается готовым: {}", e.getMessage());
+                ready = true;
+                return;
+            }
+            try {
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    void warmUp() throws SQLException {
+        ConnectionFactory.warmUp();
+        Collection<Product> products = productDao.getProductsByIds(orderDao.getPopularProductIds(recentOrders, hotProducts))
+                .values();
+        Collection<User> users = userDao.getUsersByIds(orderDao.getActiveUserIds(recentOrders, hotUsers)).values();
+        List<OrderDto> orders = new ArrayList<>();
+        for (User user : users.stream().limit(HISTORY_USERS).toList()) {
+            for (Order order : orderDao.getOrdersByUserId(user.getId(), 0, HISTORY_PAGE_SIZE)) {
+                orders.add(orderConverter.convertEntityToDto(order));
+            }
+        }
+        for (int round = 0; round < serializationRounds; round++) {
+            for (Product product : products) {
+                ProductDto dto = DtoMapper.toDto(product);
+                gson.fromJson(gson.toJson(dto), ProductDto.class);
+            }
+            for (User user : users) {
+                UserDto dto = DtoMapper.toDto(user);
+                gson.fromJson(gson.toJson(dto), UserDto.class);
+            }
+            for (OrderDto dto : orders) {
+                gson.fromJson(gson.toJson(dto), OrderDto.class);
+            }
+        }
+        logger.info("Прогреты продукты: {}, пользователи: {}, заказы: {}", products.size(), users.size(), orders.size());
+    }
+}
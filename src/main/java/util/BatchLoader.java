@@ -0,0 +1,297 @@
+package util;
+
+import database.QueryContext;
+import logging.RequestIdFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пакетная загрузка значений по ключам из разных потоков (в духе DataLoader).
+ * Отдельные запросы по одному ключу накапливаются в течение короткого окна ожидания
+ * или до заполнения пакета и выполняются одним запросом {@code WHERE id = ANY(?)}.
+ * Это увеличивает пропускную способность базы данных при высокой конкуренции ценой
+ * ограниченной задержки не более окна ожидания.
+ * <p>
+ * Поток-диспетчер собирает пакеты, а выполняются они в пуле рабочих потоков,
+ * поэтому медленный пакет не задерживает сбор следующего.
+ * <p>
+ * Ожидание результата ограничено сроком {@link QueryContext} вызывающего запроса, а пакет выполняется
+ * в собственном контексте с таймаутом по самому позднему сроку среди ожидающих его запросов,
+ * поэтому ни запрос, ни SQL-оператор пакета не выходят за пределы таймаута эндпоинта.
+ *
+ * @param <K> тип ключа.
+ * @param <V> тип значения.
+ */
+public final class BatchLoader<K, V> implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(BatchLoader.class);
+    private static final Map<String, BatchLoader<?, ?>> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final BatchFunction<K, V> batchFunction;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final BlockingQueue<PendingKey<K, V>> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService workers;
+    private final Thread dispatcher;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private volatile boolean running = true;
+
+    /**
+     * Загрузка значений для набора ключей одним запросом.
+     *
+     * @param <K> тип ключа.
+     * @param <V> тип значения.
+     */
+    @FunctionalInterface
+    public interface BatchFunction<K, V> {
+        /**
+         * @param keys Уникальные ключи пакета.
+         * @return найденные значения по ключам; отсутствующие ключи в результат не включаются.
+         * @throws SQLException при ошибках SQL.
+         */
+        Map<K, V> loadAll(Collection<K> keys) throws SQLException;
+    }
+
+    /**
+     * Создаёт загрузчик, запускает поток-диспетчер и регистрирует загрузчик для выдачи метрик.
+     *
+     * @param name           Имя загрузчика в метриках и именах потоков.
+     * @param batchFunction  Пакетная загрузка значений.
+     * @param maxBatchSize   Максимальное количество ключей в пакете.
+     * @param maxDelayMicros Максимальное время ожидания новых ключей после первого ключа пакета.
+     * @param workerThreads  Количество потоков, выполняющих пакеты.
+     */
+    public BatchLoader(String name, BatchFunction<K, V> batchFunction, int maxBatchSize,
+                       long maxDelayMicros, int workerThreads) {
+        this.name = name;
+        this.batchFunction = batchFunction;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = TimeUnit.MICROSECONDS.toNanos(maxDelayMicros);
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-batch-" + workerNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatchLoop, name + "-batch-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+        REGISTRY.put(name, this);
+    }
+
+    /**
+     * Возвращает все зарегистрированные загрузчики для выдачи метрик.
+     */
+    public static Collection<BatchLoader<?, ?>> all() {
+        return Collections.unmodifiableCollection(REGISTRY.values());
+    }
+
+    /**
+     * Загружает значение по ключу в составе ближайшего пакета и ожидает результата,
+     * но не дольше срока текущего {@link QueryContext}.
+     *
+     * @param key Ключ.
+     * @return значение или null, если оно не найдено.
+     * @throws SQLException если пакет завершился ошибкой SQL (исключение пакета передаётся как есть,
+     *                      например {@link database.DatabaseUnavailableException}), загрузчик остановлен
+     *                      или срок запроса истёк (SQLSTATE {@value QueryContext#QUERY_CANCELED}).
+     */
+    public V load(K key) throws SQLException {
+        if (!running) {
+            throw new SQLException("Пакетный загрузчик " + name + " остановлен");
+        }
+        long timeoutMillis = QueryContext.remainingMillis();
+        PendingKey<K, V> pending = new PendingKey<>(key, RequestIdFilter.current(), timeoutMillis);
+        queue.add(pending);
+        if (!running && queue.remove(pending)) {
+            // close() уже забрал очередь и не завершит этот запрос.
+            throw new SQLException("Пакетный загрузчик " + name + " остановлен");
+        }
+        try {
+            return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            abandon(pending);
+            throw new SQLException("Пакетная загрузка " + name + " не завершилась за " + timeoutMillis + " мс",
+                    QueryContext.QUERY_CANCELED);
+        } catch (InterruptedException e) {
+            abandon(pending);
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание пакетной загрузки " + name + " прервано", QueryContext.QUERY_CANCELED, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException("Ошибка пакетной загрузки: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Отказывается от ожидания: ключ убирается из очереди, а пакет, уже забравший его, пропустит его.
+     */
+    private void abandon(PendingKey<K, V> pending) {
+        pending.result.cancel(false);
+        queue.remove(pending);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Возвращает количество выполненных пакетов.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Возвращает количество запросов, обработанных в составе пакетов.
+     */
+    public long getKeys() {
+        return keys.sum();
+    }
+
+    /**
+     * Останавливает диспетчер и рабочие потоки. Ожидающие запросы завершаются с ошибкой.
+     */
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.shutdown();
+        List<PendingKey<K, V>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        SQLException error = new SQLException("Пакетный загрузчик " + name + " остановлен");
+        remaining.forEach(p -> p.result.completeExceptionally(error));
+        REGISTRY.remove(name, this);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            List<PendingKey<K, V>> batch = new ArrayList<>(maxBatchSize);
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + maxDelayNanos;
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingKey<K, V> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+                submit(batch);
+            } catch (InterruptedException e) {
+                SQLException error = new SQLException("Пакетный загрузчик " + name + " остановлен");
+                batch.forEach(p -> p.result.completeExceptionally(error));
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void submit(List<PendingKey<K, V>> batch) {
+        try {
+            workers.execute(() -> runBatch(batch));
+        } catch (RejectedExecutionException e) {
+            SQLException error = new SQLException("Пакетный загрузчик " + name + " остановлен", e);
+            batch.forEach(p -> p.result.completeExceptionally(error));
+        }
+    }
+
+    private void runBatch(List<PendingKey<K, V>> batch) {
+        // Запросы, переставшие ждать до начала пакета, в него не включаются.
+        batch.removeIf(pending -> pending.result.isDone());
+        if (batch.isEmpty()) {
+            return;
+        }
+        Set<K> uniqueKeys = new LinkedHashSet<>();
+        long remainingMillis = 0;
+        for (PendingKey<K, V> pending : batch) {
+            uniqueKeys.add(pending.key);
+            remainingMillis = Math.max(remainingMillis, pending.remainingMillis());
+        }
+        batches.increment();
+        keys.add(batch.size());
+        int timeoutSeconds = remainingMillis == Long.MAX_VALUE
+                ? 0
+                : (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(remainingMillis + 999));
+        try (QueryContext ignored = QueryContext.open(timeoutSeconds)) {
+            Map<K, V> values = batchFunction.loadAll(uniqueKeys);
+            for (PendingKey<K, V> pending : batch) {
+                pending.result.complete(values.get(pending.key));
+            }
+        } catch (Throwable e) {
+            Set<String> requestIds = new LinkedHashSet<>();
+            for (PendingKey<K, V> pending : batch) {
+                if (pending.requestId != null) {
+                    requestIds.add(pending.requestId);
+                }
+            }
+            logger.warn("Ошибка пакетной загрузки {} ({} ключей, запросы {}): {}",
+                    name, uniqueKeys.size(), requestIds, e.getMessage());
+            batch.forEach(p -> p.result.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Запрос значения по ключу, ожидающий выполнения пакета.
+     */
+    private static final class PendingKey<K, V> {
+        private final K key;
+        private final String requestId;
+        private final long timeoutMillis;
+        private final long createdNanos = System.nanoTime();
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        private PendingKey(K key, String requestId, long timeoutMillis) {
+            this.key = key;
+            this.requestId = requestId;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        private long remainingMillis() {
+            if (timeoutMillis == Long.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+            return Math.max(0, timeoutMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - createdNanos));
+        }
+    }
+}
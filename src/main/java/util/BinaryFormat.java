@@ -0,0 +1,103 @@
+package util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Двоичные форматы ответов, которые клиент может запросить заголовком {@code Accept} вместо JSON.
+ * Структура данных та же, что и в JSON: те же DTO и имена полей, но числа и строки кодируются
+ * компактно и разбираются без текстового разбора чисел. Суммы передаются десятичными числами
+ * с двумя знаками после запятой, как и в JSON.
+ */
+public enum BinaryFormat {
+    CBOR("application/cbor", new CBORFactory()),
+    SMILE("application/x-jackson-smile", new SmileFactory());
+
+    private final String contentType;
+    private final JsonFactory factory;
+
+    BinaryFormat(String contentType, JsonFactory factory) {
+        this.contentType = contentType;
+        // Поток ответа закрывает контейнер сервлетов, а не генератор.
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.factory = factory;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public JsonGenerator createGenerator(OutputStream out) throws IOException {
+        return factory.createGenerator(out);
+    }
+
+    public JsonParser createParser(InputStream in) throws IOException {
+        return factory.createParser(in);
+    }
+
+    public JsonParser createParser(byte[] data) throws IOException {
+        return factory.createParser(data);
+    }
+
+    /**
+     * Выбирает формат ответа по заголовку {@code Accept} с учётом весов {@code q}.
+     * Двоичный формат выбирается, только если клиент явно перечислил его тип: при равных весах
+     * явно указанный {@code application/json} предпочтительнее двоичного формата,
+     * а двоичный формат — предпочтительнее шаблонов {@code *}{@code /*} и {@code application/*}.
+     *
+     * @param accept Значение заголовка Accept, может быть null.
+     * @return двоичный формат или null, если ответ нужно отдать в JSON.
+     */
+    public static BinaryFormat negotiate(String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return null;
+        }
+        BinaryFormat best = null;
+        double bestQuality = 0;
+        double jsonQuality = -1;
+        double wildcardQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            String type = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (type.equals("application/json")) {
+                jsonQuality = Math.max(jsonQuality, quality);
+            } else if (type.equals("*/*") || type.equals("application/*")) {
+                wildcardQuality = Math.max(wildcardQuality, quality);
+            } else {
+                for (BinaryFormat format : values()) {
+                    if (format.contentType.equals(type) && quality > bestQuality) {
+                        best = format;
+                        bestQuality = quality;
+                    }
+                }
+            }
+        }
+        if (best == null || bestQuality <= jsonQuality || bestQuality < wildcardQuality) {
+            return null;
+        }
+        return best;
+    }
+
+    private static double quality(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            String parameter = parameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,22 @@
+package util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import model.dto.DtoJsonAdapters;
+
+/**
+ * Общий экземпляр {@link Gson} приложения.
+ * Gson потокобезопасен и кэширует адаптеры типов внутри экземпляра, поэтому сервлеты используют
+ * один экземпляр: адаптеры DTO создаются один раз, в том числе при прогреве на старте приложения.
+ * DTO сериализуются адаптерами без рефлексии ({@link DtoJsonAdapters}), остальные типы — стандартными адаптерами Gson.
+ */
+public final class Json {
+    private static final Gson GSON = DtoJsonAdapters.register(new GsonBuilder()).create();
+
+    private Json() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+}
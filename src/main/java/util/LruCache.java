@@ -0,0 +1,63 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Потокобезопасный кэш ограниченного размера с вытеснением давно не использованных записей (LRU).
+ * Используется как быстрый in-memory слой перед обращениями к базе данных.
+ *
+ * @param <K> тип ключа.
+ * @param <V> тип значения.
+ */
+public class LruCache<K, V> {
+    private final int maxSize;
+    private final Map<K, V> entries;
+
+    /**
+     * Создаёт кэш с заданной максимальной ёмкостью.
+     *
+     * @param maxSize максимальное количество записей в кэше.
+     */
+    public LruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Возвращает значение по ключу или null, если запись отсутствует.
+     */
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Добавляет или заменяет запись в кэше.
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * Удаляет запись из кэша.
+     */
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,108 @@
+package util;
+
+import java.math.BigDecimal;
+
+/**
+ * Утилитный класс для работы с денежными суммами в виде целого числа копеек ({@code long}).
+ * Фиксированная точка с двумя знаками после запятой соответствует столбцу {@code NUMERIC(10, 2)},
+ * даёт точные суммы без ошибок округления {@code double} и не требует выделения памяти,
+ * в отличие от {@link BigDecimal}.
+ */
+public final class Money {
+    private static final int SCALE = 2;
+
+    /**
+     * Приватный конструктор для предотвращения создания экземпляра утилитного класса.
+     */
+    private Money() {
+    }
+
+    /**
+     * Разбирает десятичную запись суммы в копейки.
+     * Поддерживаются записи вида {@code 10}, {@code 9.9}, {@code -0.99}; более двух знаков
+     * после запятой допускаются только нулями, иначе сумма не может быть представлена точно.
+     *
+     * @param value Десятичная запись суммы.
+     * @return сумма в копейках.
+     * @throws IllegalArgumentException если запись некорректна или не представима точно в копейках.
+     */
+    public static long parse(String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Пустое значение суммы");
+        }
+        int length = value.length();
+        int index = 0;
+        boolean negative = false;
+        char first = value.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            index++;
+        }
+        long units = 0;
+        int integerDigits = 0;
+        while (index < length && isDigit(value.charAt(index))) {
+            units = Math.addExact(Math.multiplyExact(units, 10), value.charAt(index++) - '0');
+            integerDigits++;
+        }
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (index < length && value.charAt(index) == '.') {
+            index++;
+            while (index < length && isDigit(value.charAt(index))) {
+                int digit = value.charAt(index++) - '0';
+                if (fractionDigits < SCALE) {
+                    fraction = fraction * 10 + digit;
+                } else if (digit != 0) {
+                    throw new IllegalArgumentException("Сумма " + value + " содержит больше двух знаков после запятой");
+                }
+                fractionDigits++;
+            }
+        }
+        if (index < length) {
+            return parseExponent(value);
+        }
+        if (integerDigits == 0 && fractionDigits == 0) {
+            throw new IllegalArgumentException("Некорректное значение суммы: " + value);
+        }
+        for (int i = fractionDigits; i < SCALE; i++) {
+            fraction *= 10;
+        }
+        long cents = Math.addExact(Math.multiplyExact(units, 100), fraction);
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Форматирует сумму в копейках в десятичную запись с двумя знаками после запятой, например {@code 1.50}.
+     *
+     * @param cents Сумма в копейках.
+     * @return десятичная запись суммы.
+     */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        StringBuilder builder = new StringBuilder(24);
+        if (cents < 0) {
+            builder.append('-');
+        }
+        builder.append(abs / 100).append('.');
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction).toString();
+    }
+
+    /**
+     * Медленный путь для записей в экспоненциальной форме, например {@code 1.5E2}.
+     */
+    private static long parseExponent(String value) {
+        try {
+            return new BigDecimal(value).movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное значение суммы: " + value, e);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
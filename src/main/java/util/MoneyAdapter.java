@@ -0,0 +1,41 @@
+package util;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Gson-адаптер для денежных полей, хранящихся в копейках ({@code long}).
+ * В JSON сумма записывается десятичным числом с двумя знаками после запятой ({@code 1.50})
+ * и читается из числа или строки без промежуточного {@code double}, поэтому преобразование точное.
+ * Подключается к полю аннотацией {@code @JsonAdapter(MoneyAdapter.class)}.
+ */
+public class MoneyAdapter extends TypeAdapter<Long> {
+
+    @Override
+    public void write(JsonWriter out, Long cents) throws IOException {
+        if (cents == null) {
+            out.nullValue();
+        } else {
+            out.jsonValue(Money.format(cents));
+        }
+    }
+
+    @Override
+    public Long read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        String value = in.nextString();
+        try {
+            return Money.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Некорректная сумма " + value + " в " + in.getPath(), e);
+        }
+    }
+}
@@ -1,8 +1,17 @@
 package util;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.gson.stream.JsonWriter;
+import database.ConfigLoader;
+import database.DatabaseUnavailableException;
+import database.Resilience;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import logging.RateLimitedLogger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 
 /**
@@ -10,6 +19,9 @@ import java.io.PrintWriter;
  * Этот класс содержит методы для стандартной обработки HTTP ответов.
  */
 public class ServletUtils {
+    private static final RateLimitedLogger errorLog = new RateLimitedLogger(LoggerFactory.getLogger(ServletUtils.class),
+            ConfigLoader.getIntProperty("logging.errors.permits", 10),
+            ConfigLoader.getLongProperty("logging.errors.intervalMillis", 10000));
 
     /**
      * Приватный конструктор для предотвращения создания экземпляра утилитного класса.
@@ -37,4 +49,116 @@ public class ServletUtils {
         out.println(message); // Запись сообщения в ответ
         out.flush(); // Очистка потока вывода, гарантирующая отправку данных
     }
+
+    /**
+     * Отправляет клиенту JSON, формируемый потоково прямо в writer ответа.
+     * Используется для больших списков, чтобы не строить промежуточную строку со всем телом ответа.
+     *
+     * @param response Объект HttpServletResponse, который используется для отправки данных клиенту.
+     * @param body     Функция, записывающая тело ответа в JSON-писатель.
+     * @param status   HTTP статус код ответа.
+     * @throws IOException Если произошла ошибка ввода-вывода при записи ответа.
+     */
+    public static void writeJsonResponse(HttpServletResponse response,
+                                         JsonBody body,
+                                         int status) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setStatus(status);
+        PrintWriter out = response.getWriter();
+        JsonWriter jsonWriter = new JsonWriter(out);
+        body.write(jsonWriter);
+        jsonWriter.flush();
+        out.println();
+        out.flush();
+    }
+
+    /**
+     * Отправляет клиенту тело в двоичном формате, выбранном по заголовку {@code Accept}.
+     * Тело формируется потоково прямо в выходной поток ответа.
+     *
+     * @param response Объект HttpServletResponse, который используется для отправки данных клиенту.
+     * @param format   Двоичный формат ответа.
+     * @param body     Функция, записывающая тело ответа в генератор Jackson.
+     * @param status   HTTP статус код ответа.
+     * @throws IOException Если произошла ошибка ввода-вывода при записи ответа.
+     */
+    public static void writeBinaryResponse(HttpServletResponse response,
+                                           BinaryFormat format,
+                                           BinaryBody body,
+                                           int status) throws IOException {
+        response.setContentType(format.getContentType());
+        response.setStatus(status);
+        OutputStream out = response.getOutputStream();
+        try (JsonGenerator generator = format.createGenerator(out)) {
+            body.write(generator);
+        }
+        out.flush();
+    }
+
+    /**
+     * Отправляет клиенту ответ об ошибке обработки запроса.
+     * Если база данных временно недоступна, отвечает 503 Service Unavailable с заголовком {@code Retry-After},
+     * чтобы клиенты повторяли запрос не раньше восстановления, иначе — 500 Internal Server Error.
+     * Ошибка записывается в журнал через {@link #logServerError(Exception)}.
+     *
+     * @param response Объект HttpServletResponse, который используется для отправки данных клиенту.
+     * @param error    Исключение, возникшее при обработке запроса.
+     * @throws IOException Если произошла ошибка ввода-вывода при записи ответа.
+     */
+    public static void writeServerError(HttpServletResponse response, Exception error) throws IOException {
+        logServerError(error);
+        if (error instanceof DatabaseUnavailableException) {
+            response.setHeader("Retry-After", String.valueOf(Resilience.retryAfterSeconds()));
+            writeResponse(response, "База данных временно недоступна, повторите запрос позже",
+                    HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        writeResponse(response, "Внутренняя ошибка сервера", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    /**
+     * Записывает в журнал ошибку обработки запроса с ограничением частоты по классу исключения.
+     * Недоступность базы данных — ожидаемое состояние, о котором уже сообщает {@link database.CircuitBreaker},
+     * поэтому она записывается предупреждением без стека вызовов.
+     *
+     * @param error Исключение, возникшее при обработке запроса.
+     */
+    public static void logServerError(Exception error) {
+        if (error instanceof DatabaseUnavailableException) {
+            errorLog.warn(DatabaseUnavailableException.class.getName(), error.getMessage());
+        } else {
+            errorLog.error(error.getClass().getName(), "Ошибка обработки запроса: " + error.getMessage(), error);
+        }
+    }
+
+    /**
+     * Формирует значение заголовка Location для созданного ресурса.
+     * Ресурсы адресуются параметром id, поэтому ссылка имеет вид {@code <contextPath><path>?id=<id>}.
+     *
+     * @param request Объект HttpServletRequest, из которого берётся контекстный путь приложения.
+     * @param path    Путь коллекции ресурсов, например {@code /users}.
+     * @param id      Идентификатор созданного ресурса.
+     * @return ссылка на созданный ресурс.
+     */
+    public static String buildLocation(HttpServletRequest request, String path, int id) {
+        String contextPath = request.getContextPath() == null ? "" : request.getContextPath();
+        return contextPath + path + "?id=" + id;
+    }
+
+    /**
+     * Функция потоковой записи тела JSON-ответа.
+     */
+    @FunctionalInterface
+    public interface JsonBody {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    /**
+     * Функция потоковой записи тела ответа в двоичном формате.
+     */
+    @FunctionalInterface
+    public interface BinaryBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
 }
@@ -0,0 +1,190 @@
+package util;
+
+import database.QueryContext;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Объединение одновременных одинаковых запросов (single-flight).
+ * Если несколько потоков одновременно запрашивают значение по одному ключу, запрос к базе данных выполняет
+ * только первый из них, а остальные ожидают и получают тот же результат или ту же ошибку.
+ * Результаты не кэшируются: после завершения запроса следующий вызов снова обращается к базе данных.
+ * <p>
+ * Выполнивший загрузку вызов получает загруженный объект, а присоединившиеся — его копии,
+ * поэтому изменяемые сущности не разделяются между запросами.
+ * После записи значения DAO вызывает {@link #forget(Object)}: загрузка, начатая до записи,
+ * может вернуть прежнее значение, и запросы после записи не должны к ней присоединяться.
+ * <p>
+ * Присоединившийся вызов ждёт не дольше срока своего {@link QueryContext} и по его истечении получает
+ * собственную ошибку с SQLSTATE {@value QueryContext#QUERY_CANCELED}. Если же отменён запрос выполнявшего
+ * загрузку вызова, а у присоединившегося время ещё есть, он повторяет загрузку, а не получает чужую отмену.
+ *
+ * @param <K> тип ключа.
+ * @param <V> тип значения.
+ */
+public final class SingleFlight<K, V> {
+    private static final Map<String, SingleFlight<?, ?>> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final UnaryOperator<V> copier;
+    private final Map<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+
+    /**
+     * Операция загрузки значения, которая может завершиться ошибкой SQL.
+     *
+     * @param <V> тип значения.
+     */
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws SQLException;
+    }
+
+    /**
+     * Создаёт группу объединения запросов для неизменяемых значений и регистрирует её для выдачи метрик.
+     *
+     * @param name Имя группы в метриках, например {@code products.getProductById}.
+     */
+    public SingleFlight(String name) {
+        this(name, UnaryOperator.identity());
+    }
+
+    /**
+     * Создаёт группу объединения запросов и регистрирует её для выдачи метрик.
+     *
+     * @param name   Имя группы в метриках, например {@code products.getProductById}.
+     * @param copier Копирование значения для каждого присоединившегося вызова.
+     */
+    public SingleFlight(String name, UnaryOperator<V> copier) {
+        this.name = name;
+        this.copier = copier;
+        REGISTRY.put(name, this);
+    }
+
+    /**
+     * Возвращает все зарегистрированные группы для выдачи метрик.
+     */
+    public static Collection<SingleFlight<?, ?>> all() {
+        return Collections.unmodifiableCollection(REGISTRY.values());
+    }
+
+    /**
+     * Выполняет загрузку значения по ключу или присоединяется к уже выполняющейся загрузке того же ключа.
+     *
+     * @param key    Ключ запроса.
+     * @param loader Загрузка значения из базы данных.
+     * @return загруженное значение.
+     * @throws SQLException если загрузка завершилась ошибкой SQL или срок запроса истёк
+     *                      (SQLSTATE {@value QueryContext#QUERY_CANCELED}).
+     */
+    public V execute(K key, Loader<V> loader) throws SQLException {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> inFlight;
+        while ((inFlight = calls.putIfAbsent(key, own)) != null) {
+            collapsed.increment();
+            long timeoutMillis = QueryContext.remainingMillis();
+            try {
+                V value = inFlight.get(timeoutMillis, TimeUnit.MILLISECONDS);
+                return value == null ? null : copier.apply(value);
+            } catch (TimeoutException e) {
+                throw timeout(timeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Ожидание загрузки " + name + " прервано", QueryContext.QUERY_CANCELED, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (!isCancellation(cause)) {
+                    throw rethrow(cause);
+                }
+                if (QueryContext.remainingMillis() == 0) {
+                    throw timeout(timeoutMillis);
+                }
+                // Отменён запрос выполнявшего загрузку вызова, а срок этого запроса не истёк: загрузка повторяется.
+                calls.remove(key, inFlight);
+            }
+        }
+        executions.increment();
+        try {
+            V value = loader.load();
+            own.complete(value);
+            return value;
+        } catch (Throwable e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, own);
+        }
+    }
+
+    /**
+     * Отсоединяет выполняющуюся загрузку ключа: следующие вызовы начнут новую загрузку,
+     * а уже присоединившиеся получат результат прежней.
+     *
+     * @param key Ключ, значение которого изменилось.
+     */
+    public void forget(K key) {
+        calls.remove(key);
+    }
+
+    private SQLException timeout(long timeoutMillis) {
+        return new SQLException("Загрузка " + name + " не завершилась за " + timeoutMillis + " мс",
+                QueryContext.QUERY_CANCELED);
+    }
+
+    private static boolean isCancellation(Throwable error) {
+        return error instanceof SQLException && QueryContext.QUERY_CANCELED.equals(((SQLException) error).getSQLState());
+    }
+
+    /**
+     * Возвращает ошибку загрузки для выброса присоединившимся вызовом.
+     */
+    private SQLException rethrow(Throwable cause) {
+        if (cause instanceof SQLException) {
+            // Тип исключения сохраняется: DatabaseUnavailableException должна дойти до сервлета как есть.
+            return (SQLException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new SQLException("Ошибка загрузки " + name + ": " + cause.getMessage(), cause);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Возвращает количество фактически выполненных загрузок.
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * Возвращает количество вызовов, присоединившихся к уже выполняющейся загрузке.
+     */
+    public long getCollapsed() {
+        return collapsed.sum();
+    }
+
+    /**
+     * Возвращает количество загрузок, выполняющихся в данный момент.
+     */
+    public int getInFlight() {
+        return calls.size();
+    }
+}
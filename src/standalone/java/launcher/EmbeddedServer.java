@@ -0,0 +1,133 @@
+package launcher;
+
+import admission.AdmissionControlFilter;
+import database.ConfigLoader;
+import database.ConnectionFactory;
+import database.DatabaseUnavailableException;
+import database.QueryTimeoutFilter;
+import jakarta.servlet.DispatcherType;
+import logging.RequestIdFilter;
+import org.eclipse.jetty.ee10.servlet.FilterHolder;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import servlet.HealthServlet;
+import servlet.MetricsServlet;
+import servlet.OrderImportServlet;
+import servlet.OrderServlet;
+import servlet.ProductAutocompleteServlet;
+import servlet.ProductImportServlet;
+import servlet.ProductServlet;
+import servlet.ReadinessServlet;
+import servlet.UserServlet;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Автономный запуск приложения во встроенном Jetty без внешнего контейнера сервлетов.
+ * Сервлеты и фильтры регистрируются программно, без сканирования аннотаций и web.xml.
+ * <p>
+ * Перед тем как сообщить о готовности, сервер заполняет пул соединений и прогревает JIT: выполняет
+ * {@code launcher.warmup.iterations} запросов на чтение к собственным эндпоинтам через loopback.
+ * В журнал выводятся время от старта JVM до первого обслуженного запроса и до готовности.
+ * Готовность для балансировщика сообщает {@code /ready} после прогрева данных и сериализации ({@link ReadinessServlet}).
+ * <p>
+ * Запуск: {@code mvn -Pstandalone compile exec:java}, порт задаётся свойством {@code server.port}.
+ */
+public class EmbeddedServer {
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedServer.class);
+    private static final List<String> WARMUP_PATHS = List.of(
+            "/products?id=1",
+            "/products?q=%D0%B0&limit=10",
+            "/products/autocomplete?q=%D0%B0",
+            "/users?id=1",
+            "/orders?id=1",
+            "/orders?userId=1&limit=10");
+
+    public static void main(String[] args) throws Exception {
+        int port = ConfigLoader.getIntProperty("server.port", 8080);
+        int warmupIterations = ConfigLoader.getIntProperty("launcher.warmup.iterations", 200);
+
+        Server server = createServer(port);
+        server.start();
+        String baseUrl = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+        try {
+            ConnectionFactory.warmUp();
+            warmUp(baseUrl, warmupIterations);
+        } catch (DatabaseUnavailableException e) {
+            // Сервер всё равно запускается: пока база недоступна, запросы получают 503 от CircuitBreaker,
+            // а прогрев без базы данных не затронул бы горячие пути.
+            logger.warn("Прогрев пропущен, база данных недоступна: {}", e.getMessage());
+        }
+        logger.info("Сервер готов к приёму запросов на {} через {} мс после старта JVM", baseUrl, sinceJvmStart());
+        server.join();
+    }
+
+    /**
+     * Создаёт сервер с фильтрами и сервлетами приложения.
+     *
+     * @param port Порт HTTP, 0 — любой свободный.
+     * @return не запущенный сервер.
+     */
+    public static Server createServer(int port) {
+        Server server = new Server(port);
+        ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/");
+        EnumSet<DispatcherType> dispatch = EnumSet.of(DispatcherType.REQUEST);
+        context.addFilter(new FilterHolder(new RequestIdFilter()), "/*", dispatch);
+        context.addFilter(new FilterHolder(new QueryTimeoutFilter()), "/*", dispatch);
+        context.addFilter(new FilterHolder(new AdmissionControlFilter()), "/*", dispatch);
+        context.addServlet(new ServletHolder(new ProductServlet()), "/products");
+        context.addServlet(new ServletHolder(new UserServlet()), "/users");
+        context.addServlet(new ServletHolder(new OrderServlet()), "/orders");
+        context.addServlet(new ServletHolder(new ProductImportServlet()), "/products/import");
+        context.addServlet(new ServletHolder(new OrderImportServlet()), "/orders/import");
+        ServletHolder autocomplete = new ServletHolder(new ProductAutocompleteServlet());
+        autocomplete.setInitOrder(1);
+        context.addServlet(autocomplete, "/products/autocomplete");
+        context.addServlet(new ServletHolder(new MetricsServlet()), "/metrics");
+        ServletHolder readiness = new ServletHolder(new ReadinessServlet());
+        readiness.setInitOrder(2);
+        context.addServlet(readiness, "/ready");
+        context.addServlet(new ServletHolder(new HealthServlet()), "/health");
+        server.setHandler(context);
+        server.setStopAtShutdown(true);
+        return server;
+    }
+
+    /**
+     * Прогревает горячие пути обработки запросов: разбор параметров, DAO, JDBC-драйвер и сериализацию JSON.
+     * Используются только запросы на чтение, поэтому прогрев не изменяет данные.
+     */
+    private static void warmUp(String baseUrl, int iterations) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        boolean first = true;
+        for (int i = 0; i < iterations; i++) {
+            for (String path : WARMUP_PATHS) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (first) {
+                    logger.info("Первый запрос обслужен через {} мс после старта JVM", sinceJvmStart());
+                    first = false;
+                }
+            }
+        }
+    }
+
+    private static long sinceJvmStart() {
+        return System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
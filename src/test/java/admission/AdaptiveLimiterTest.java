@@ -0,0 +1,52 @@
+package admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link AdaptiveLimiter}.
+ * Проверяет отклонение запросов сверх лимита, резерв для приоритетных запросов и изменение лимита.
+ */
+class AdaptiveLimiterTest {
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testLowPriorityLeavesRoomForHighPriority() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.priority", 4, 1, 10, 100, 0.5, 0.5);
+
+        assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.LOW));
+        assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.LOW));
+        assertFalse(limiter.tryAcquire(AdaptiveLimiter.Priority.LOW), "Низкому приоритету доступна половина лимита");
+        assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.HIGH));
+        assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.HIGH));
+        assertFalse(limiter.tryAcquire(AdaptiveLimiter.Priority.HIGH));
+        assertEquals(4, limiter.getInFlight());
+        assertEquals(2, limiter.getRejected());
+    }
+
+    @Test
+    void testSlowRequestsDecreaseLimitAndFastRequestsIncreaseIt() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.aimd", 10, 2, 20, 100, 0.5, 1.0);
+
+        assertTrue(limiter.tryAcquire(AdaptiveLimiter.Priority.HIGH));
+        limiter.release(SLOW, false);
+        assertEquals(5, limiter.getLimit());
+
+        for (int round = 0; round < 50; round++) {
+            int admitted = 0;
+            while (limiter.tryAcquire(AdaptiveLimiter.Priority.HIGH)) {
+                admitted++;
+            }
+            for (int i = 0; i < admitted; i++) {
+                limiter.release(FAST, false);
+            }
+        }
+        assertTrue(limiter.getLimit() > 5, "Лимит должен расти при быстрых ответах под нагрузкой");
+        assertTrue(limiter.getLimit() <= 20);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
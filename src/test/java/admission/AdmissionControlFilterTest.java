@@ -0,0 +1,173 @@
+package admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link AdmissionControlFilter}.
+ * Проверяет пропуск запросов при свободном лимите, ответ 503 с Retry-After при перегрузке
+ * резерв общего лимита базы данных для создания заказов, приоритет по маршруту, отдельный лимит импорта
+ * и исключение полных выгрузок из подстройки общего лимита.
+ */
+class AdmissionControlFilterTest {
+    private AdmissionControlFilter filter;
+    private HttpServletRequest mockRequest;
+    private HttpServletResponse mockResponse;
+    private FilterChain mockChain;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        filter = new AdmissionControlFilter();
+        mockRequest = mock(HttpServletRequest.class);
+        mockResponse = mock(HttpServletResponse.class);
+        mockChain = mock(FilterChain.class);
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        when(mockResponse.getStatus()).thenReturn(HttpServletResponse.SC_OK);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void installLimiter(String path, AdaptiveLimiter limiter) throws Exception {
+        Field field = AdmissionControlFilter.class.getDeclaredField("limiters");
+        field.setAccessible(true);
+        ((Map<String, AdaptiveLimiter>) field.get(filter)).put(path, limiter);
+    }
+
+    @Test
+    void testRequestIsAdmitted() throws Exception {
+        when(mockRequest.getServletPath()).thenReturn("/products");
+        when(mockRequest.getMethod()).thenReturn("GET");
+
+        filter.doFilter(mockRequest, mockResponse, mockChain);
+
+        verify(mockChain).doFilter(mockRequest, mockResponse);
+    }
+
+    @Test
+    void testSaturatedEndpointSheds() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.filter", 1, 1, 1, 100, 0.9, 1.0);
+        limiter.tryAcquire(AdaptiveLimiter.Priority.HIGH);
+        installLimiter("/orders", limiter);
+        when(mockRequest.getServletPath()).thenReturn("/orders");
+        when(mockRequest.getMethod()).thenReturn("POST");
+
+        filter.doFilter(mockRequest, mockResponse, mockChain);
+
+        verify(mockChain, never()).doFilter(any(), any());
+        verify(mockResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(mockResponse).setHeader("Retry-After", "1");
+    }
+
+    @Test
+    void testCatalogReadsCannotTakeCapacityReservedForOrders() throws Exception {
+        AdaptiveLimiter database = new AdaptiveLimiter("test.database", 4, 4, 4, 100, 0.9, 0.5);
+        Field field = AdmissionControlFilter.class.getDeclaredField("databaseLimiter");
+        field.setAccessible(true);
+        field.set(filter, database);
+        database.tryAcquire(AdaptiveLimiter.Priority.LOW);
+        database.tryAcquire(AdaptiveLimiter.Priority.LOW);
+
+        when(mockRequest.getServletPath()).thenReturn("/products");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        filter.doFilter(mockRequest, mockResponse, mockChain);
+        verify(mockChain, never()).doFilter(any(), any());
+        verify(mockResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+        HttpServletRequest orderRequest = mock(HttpServletRequest.class);
+        when(orderRequest.getServletPath()).thenReturn("/orders");
+        when(orderRequest.getMethod()).thenReturn("POST");
+        filter.doFilter(orderRequest, mockResponse, mockChain);
+        verify(mockChain).doFilter(orderRequest, mockResponse);
+        assertEquals(2, database.getInFlight());
+    }
+
+    @Test
+    void testOnlyOrderWritesHaveHighPriority() {
+        HttpServletRequest productWrite = mock(HttpServletRequest.class);
+        when(productWrite.getServletPath()).thenReturn("/products");
+        when(productWrite.getMethod()).thenReturn("POST");
+        assertEquals(AdaptiveLimiter.Priority.LOW, AdmissionControlFilter.priorityOf(productWrite));
+
+        HttpServletRequest orderRead = mock(HttpServletRequest.class);
+        when(orderRead.getServletPath()).thenReturn("/orders");
+        when(orderRead.getMethod()).thenReturn("GET");
+        assertEquals(AdaptiveLimiter.Priority.LOW, AdmissionControlFilter.priorityOf(orderRead));
+
+        HttpServletRequest orderWrite = mock(HttpServletRequest.class);
+        when(orderWrite.getServletPath()).thenReturn("/orders");
+        when(orderWrite.getMethod()).thenReturn("PUT");
+        assertEquals(AdaptiveLimiter.Priority.HIGH, AdmissionControlFilter.priorityOf(orderWrite));
+    }
+
+    @Test
+    void testBulkReadsDoNotShrinkDatabaseLimit() throws Exception {
+        AdaptiveLimiter database = new AdaptiveLimiter("test.bulk", 4, 1, 4, 0, 0.5, 1.0);
+        Field field = AdmissionControlFilter.class.getDeclaredField("databaseLimiter");
+        field.setAccessible(true);
+        field.set(filter, database);
+        when(mockRequest.getServletPath()).thenReturn("/products");
+        when(mockRequest.getMethod()).thenReturn("GET");
+        when(mockRequest.getParameterMap()).thenReturn(Map.of());
+        doAnswer(invocation -> {
+            Thread.sleep(5);
+            return null;
+        }).when(mockChain).doFilter(any(), any());
+
+        filter.doFilter(mockRequest, mockResponse, mockChain);
+        assertEquals(4, database.getLimit());
+        assertEquals(0, database.getInFlight());
+
+        HttpServletRequest search = mock(HttpServletRequest.class);
+        when(search.getServletPath()).thenReturn("/products");
+        when(search.getMethod()).thenReturn("GET");
+        when(search.getParameterMap()).thenReturn(Map.of("q", new String[]{"чай"}));
+        filter.doFilter(search, mockResponse, mockChain);
+        assertEquals(2, database.getLimit());
+    }
+
+    @Test
+    void testImportsHaveOwnLowPriorityLimit() throws Exception {
+        when(mockRequest.getServletPath()).thenReturn("/products/import");
+        when(mockRequest.getMethod()).thenReturn("POST");
+        assertEquals(AdaptiveLimiter.Priority.LOW, AdmissionControlFilter.priorityOf(mockRequest));
+
+        // Третий одновременный импорт при admission.import.maxConcurrent=2 должен быть отклонён.
+        FilterChain secondImport = mock(FilterChain.class);
+        FilterChain thirdImport = mock(FilterChain.class);
+        doAnswer(invocation -> {
+            filter.doFilter(mockRequest, mockResponse, secondImport);
+            return null;
+        }).when(mockChain).doFilter(mockRequest, mockResponse);
+        doAnswer(invocation -> {
+            filter.doFilter(mockRequest, mockResponse, thirdImport);
+            return null;
+        }).when(secondImport).doFilter(mockRequest, mockResponse);
+        filter.doFilter(mockRequest, mockResponse, mockChain);
+
+        verify(thirdImport, never()).doFilter(any(), any());
+        verify(mockResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void testServiceEndpointsAreNotLimited() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("test.metrics", 1, 1, 1, 100, 0.9, 1.0);
+        limiter.tryAcquire(AdaptiveLimiter.Priority.HIGH);
+        installLimiter("/metrics", limiter);
+        when(mockRequest.getServletPath()).thenReturn("/metrics");
+        when(mockRequest.getMethod()).thenReturn("GET");
+
+        filter.doFilter(mockRequest, mockResponse, mockChain);
+
+        verify(mockChain).doFilter(mockRequest, mockResponse);
+    }
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import model.dto.DtoBinaryCodec;
+import model.dto.OrderDto;
+import util.BinaryFormat;
+import util.Json;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Бенчмарк форматов ответа {@code GET /orders}: JSON против CBOR и Smile ({@link BinaryFormat}).
+ * Для страницы истории заказов измеряются размер тела ответа и время кодирования и разбора одной страницы.
+ *
+ * Запуск после {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) benchmark.BinaryFormatBenchmark [orders] [items] [operations]
+ * </pre>
+ */
+public class BinaryFormatBenchmark {
+    private static final Type ORDER_LIST = new TypeToken<List<OrderDto>>() { }.getType();
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) throws IOException {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int items = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+
+        List<OrderDto> page = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            List<OrderDto.ProductInfo> products = new ArrayList<>(items);
+            long total = 0;
+            for (int k = 0; k < items; k++) {
+                long priceCents = 50 + (i * 7919L + k * 104_729L) % 500_000;
+                products.add(new OrderDto.ProductInfo(1 + (i * 31 + k) % 100_000, "Фермерский сыр " + k, priceCents));
+                total += priceCents;
+            }
+            OrderDto order = new OrderDto(100_000 + i, 42, products);
+            order.setTotalCents(total);
+            page.add(order);
+        }
+
+        Gson gson = Json.gson();
+        String json = gson.toJson(page);
+        System.out.printf("Страница: %d заказов по %d позиций%n", orders, items);
+        System.out.printf("%-6s %10s %15s %15s%n", "Формат", "Байт", "Кодирование", "Разбор");
+        // Первый проход служит прогревом JIT, результаты выводятся по второму.
+        for (int pass = 0; pass < 2; pass++) {
+            boolean print = pass == 1;
+            long encode = time(operations, () -> sink = gson.toJson(page));
+            long decode = time(operations, () -> sink = gson.fromJson(json, ORDER_LIST));
+            if (print) {
+                report("JSON", json.getBytes(StandardCharsets.UTF_8).length, encode, decode, operations);
+            }
+            for (BinaryFormat format : BinaryFormat.values()) {
+                byte[] data = encode(format, page);
+                encode = time(operations, () -> sink = encode(format, page));
+                decode = time(operations, () -> {
+                    try (JsonParser parser = format.createParser(data)) {
+                        sink = DtoBinaryCodec.readOrders(parser);
+                    }
+                });
+                if (print) {
+                    report(format.name(), data.length, encode, decode, operations);
+                }
+            }
+        }
+    }
+
+    private static byte[] encode(BinaryFormat format, List<OrderDto> page) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = format.createGenerator(out)) {
+            DtoBinaryCodec.writeOrders(generator, page);
+        }
+        return out.toByteArray();
+    }
+
+    private static long time(int operations, Operation operation) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            operation.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String format, int bytes, long encodeNanos, long decodeNanos, int operations) {
+        System.out.printf("%-6s %,10d %,11.1f мкс %,11.1f мкс%n", format, bytes,
+                encodeNanos / 1e3 / operations, decodeNanos / 1e3 / operations);
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws IOException;
+    }
+}
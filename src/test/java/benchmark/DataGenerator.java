@@ -0,0 +1,281 @@
+package benchmark;
+
+import database.ConnectionFactory;
+import database.QueryContext;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических данных большого объёма для проверки DAO и индексов на масштабе продакшена.
+ * Строки загружаются командой {@code COPY ... FROM STDIN} порциями по {@value #CHUNK_BYTES} байт,
+ * поэтому генерация не держит данные в памяти и не упирается в построчные INSERT.
+ * <p>
+ * Распределения приближены к реальным: популярность продуктов подчиняется закону Ципфа
+ * (несколько товаров попадают почти в каждый заказ, большинство — редко), а число заказов на пользователя —
+ * степенному закону (немногие пользователи делают большую часть заказов). Ранги перемешиваются
+ * биективным отображением, чтобы популярные строки не совпадали с младшими идентификаторами.
+ * Новые строки добавляются после уже существующих, последовательности идентификаторов сдвигаются,
+ * в конце выполняется {@code ANALYZE}.
+ * <p>
+ * Подключение берётся из {@code config.properties} или из системных свойств {@code database.url},
+ * {@code database.username}, {@code database.password}. Запуск после {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) benchmark.DataGenerator \
+ *     [users] [products] [orderProducts] [itemsPerOrder] [productSkew] [userSkew] [seed]
+ * </pre>
+ * По умолчанию создаются 10 млн пользователей, 1 млн продуктов и 100 млн позиций заказов.
+ */
+public class DataGenerator {
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final long PROGRESS_ROWS = 1_000_000;
+    private static final long SCATTER_PRIME = 1_000_000_007L;
+    private static final String[] ADJECTIVES = {
+            "Свежий", "Домашний", "Фермерский", "Сливочный", "Копчёный", "Сладкий", "Острый", "Хрустящий",
+            "Органический", "Классический", "Отборный", "Нежный", "Пряный", "Лесной", "Морской", "Деревенский"
+    };
+    private static final String[] NOUNS = {
+            "сыр", "хлеб", "йогурт", "сок", "чай", "кофе", "шоколад", "творог", "кефир", "пирог",
+            "мёд", "джем", "батон", "паштет", "салат", "соус", "рис", "напиток", "десерт", "зефир"
+    };
+
+    public static void main(String[] args) throws SQLException {
+        long users = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        long products = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000L;
+        long orderProducts = args.length > 2 ? Long.parseLong(args[2]) : 100_000_000L;
+        int itemsPerOrder = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+        double productSkew = args.length > 4 ? Double.parseDouble(args[4]) : 1.0;
+        double userSkew = args.length > 5 ? Double.parseDouble(args[5]) : 1.2;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : 42L;
+        if (users < 1 || products < 1 || Math.max(users, products) >= SCATTER_PRIME || itemsPerOrder < 1) {
+            throw new IllegalArgumentException("Некорректные объёмы данных");
+        }
+
+        String url = System.getProperty("database.url");
+        if (url != null) {
+            ConnectionFactory.configureEnvironment(url, System.getProperty("database.username"),
+                    System.getProperty("database.password"));
+        }
+        // Контекст без таймаута: загрузка и ANALYZE длятся дольше таймаута запросов по умолчанию.
+        try (QueryContext ignored = QueryContext.open(0);
+             Connection connection = ConnectionFactory.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET synchronous_commit = off");
+            }
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            DataGenerator generator = new DataGenerator(connection, copyManager, new SplittableRandom(seed));
+            long start = System.nanoTime();
+            generator.generate(users, products, orderProducts, itemsPerOrder, productSkew, userSkew);
+            System.out.printf("Готово за %.1f с%n", (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private final Connection connection;
+    private final CopyManager copyManager;
+    private final SplittableRandom random;
+
+    private DataGenerator(Connection connection, CopyManager copyManager, SplittableRandom random) {
+        this.connection = connection;
+        this.copyManager = copyManager;
+        this.random = random;
+    }
+
+    private void generate(long users, long products, long orderProducts, int itemsPerOrder,
+                          double productSkew, double userSkew) throws SQLException {
+        long firstUserId = nextId("users");
+        long firstProductId = nextId("products");
+        long firstOrderId = nextId("orders");
+
+        try (Chunk chunk = new Chunk("COPY users (id, username, email) FROM STDIN", "users")) {
+            for (long i = 0; i < users; i++) {
+                long id = firstUserId + i;
+                chunk.row().append(id).append('\t').append("user_").append(id)
+                        .append('\t').append("user_").append(id).append("@example.com");
+            }
+        }
+        try (Chunk chunk = new Chunk("COPY products (id, name, price) FROM STDIN", "products")) {
+            for (long i = 0; i < products; i++) {
+                long priceCents = 50 + random.nextLong(500_000);
+                chunk.row().append(firstProductId + i).append('\t')
+                        .append(ADJECTIVES[random.nextInt(ADJECTIVES.length)]).append(' ')
+                        .append(NOUNS[random.nextInt(NOUNS.length)]).append(' ').append(i + 1)
+                        .append('\t').append(priceCents / 100).append('.')
+                        .append(priceCents % 100 < 10 ? "0" : "").append(priceCents % 100);
+            }
+        }
+
+        // Размеры заказов генерируются заранее: заказы и их позиции загружаются разными командами COPY,
+        // а внешний ключ order_products требует, чтобы заказ уже существовал.
+        byte[] orderSizes = orderSizes(orderProducts, itemsPerOrder, products);
+        ZipfSampler userSampler = new ZipfSampler(users, userSkew);
+        try (Chunk chunk = new Chunk("COPY orders (id, user_id) FROM STDIN", "orders")) {
+            for (int i = 0; i < orderSizes.length; i++) {
+                chunk.row().append(firstOrderId + i).append('\t')
+                        .append(firstUserId + scatter(userSampler.sample(random), users));
+            }
+        }
+        ZipfSampler productSampler = new ZipfSampler(products, productSkew);
+        long[] items = new long[Byte.MAX_VALUE];
+        try (Chunk chunk = new Chunk("COPY order_products (order_id, product_id) FROM STDIN", "order_products")) {
+            for (int i = 0; i < orderSizes.length; i++) {
+                int size = orderSizes[i];
+                for (int k = 0; k < size; k++) {
+                    // Первичный ключ (order_id, product_id) запрещает повтор продукта в заказе.
+                    long productId;
+                    do {
+                        productId = firstProductId + scatter(productSampler.sample(random), products);
+                    } while (contains(items, k, productId));
+                    items[k] = productId;
+                    chunk.row().append(firstOrderId + i).append('\t').append(productId);
+                }
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            for (String table : new String[]{"users", "products", "orders"}) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), "
+                        + "(SELECT max(id) FROM " + table + "))");
+            }
+            System.out.println("ANALYZE...");
+            statement.execute("ANALYZE users, products, orders, order_products");
+        }
+    }
+
+    /**
+     * Распределяет позиции по заказам: размер заказа — 1 плюс геометрически распределённая величина
+     * со средним {@code itemsPerOrder - 1}, не больше числа продуктов и остатка позиций.
+     */
+    private byte[] orderSizes(long orderProducts, int itemsPerOrder, long products) {
+        int maxSize = (int) Math.min(Byte.MAX_VALUE, Math.min(products, itemsPerOrder * 4L));
+        double continueProbability = (itemsPerOrder - 1.0) / itemsPerOrder;
+        long estimatedOrders = orderProducts / itemsPerOrder + 1;
+        if (estimatedOrders > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Слишком много заказов: " + estimatedOrders);
+        }
+        byte[] sizes = new byte[(int) estimatedOrders];
+        int orders = 0;
+        for (long remaining = orderProducts; remaining > 0; orders++) {
+            int size = 1;
+            while (size < maxSize && random.nextDouble() < continueProbability) {
+                size++;
+            }
+            size = (int) Math.min(size, remaining);
+            if (orders == sizes.length) {
+                sizes = Arrays.copyOf(sizes, sizes.length + sizes.length / 4 + 16);
+            }
+            sizes[orders] = (byte) size;
+            remaining -= size;
+        }
+        return Arrays.copyOf(sizes, orders);
+    }
+
+    private long nextId(String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT coalesce(max(id), 0) + 1 FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    /**
+     * Переводит ранг 1..n в смещение 0..n-1 биекцией {@code ((rank - 1) * p) mod n}, где p — простое число
+     * больше n, а значит, взаимно простое с n.
+     */
+    static long scatter(long rank, long n) {
+        return (rank - 1) * (SCATTER_PRIME % n) % n;
+    }
+
+    private static boolean contains(long[] values, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Приближённая выборка рангов 1..n по закону Ципфа с показателем s обращением непрерывной функции
+     * распределения: O(1) памяти и времени на выборку даже для десятков миллионов рангов.
+     */
+    static final class ZipfSampler {
+        private final long n;
+        private final double s;
+        private final double hn;
+
+        ZipfSampler(long n, double s) {
+            if (n < 1 || s <= 0) {
+                throw new IllegalArgumentException("Некорректные параметры распределения: n=" + n + ", s=" + s);
+            }
+            this.n = n;
+            this.s = s;
+            this.hn = integral(n + 0.5) - integral(0.5);
+        }
+
+        long sample(SplittableRandom random) {
+            double x = inverseIntegral(integral(0.5) + random.nextDouble() * hn);
+            return Math.max(1, Math.min(n, Math.round(x)));
+        }
+
+        private double integral(double x) {
+            return s == 1.0 ? Math.log(x) : Math.pow(x, 1 - s) / (1 - s);
+        }
+
+        private double inverseIntegral(double y) {
+            return s == 1.0 ? Math.exp(y) : Math.pow(y * (1 - s), 1 / (1 - s));
+        }
+    }
+
+    /**
+     * Буфер строк одной команды COPY: строки в текстовом формате копятся в буфере
+     * и отправляются серверу порциями.
+     */
+    private final class Chunk implements AutoCloseable {
+        private final CopyIn copyIn;
+        private final String table;
+        private final StringBuilder buffer = new StringBuilder(CHUNK_BYTES);
+        private long rows;
+
+        private Chunk(String sql, String table) throws SQLException {
+            this.copyIn = copyManager.copyIn(sql);
+            this.table = table;
+        }
+
+        private StringBuilder row() throws SQLException {
+            if (rows > 0) {
+                buffer.append('\n');
+            }
+            if (buffer.length() >= CHUNK_BYTES) {
+                flush();
+            }
+            if (++rows % PROGRESS_ROWS == 0) {
+                System.out.printf("%s: %,d строк%n", table, rows);
+            }
+            return buffer;
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            if (rows > 0) {
+                buffer.append('\n');
+            }
+            flush();
+            long copied = copyIn.endCopy();
+            System.out.printf("%s: загружено %,d строк%n", table, copied);
+        }
+    }
+}
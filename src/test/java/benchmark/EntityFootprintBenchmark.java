@@ -0,0 +1,68 @@
+package benchmark;
+
+import model.columnar.ProductTable;
+import model.entity.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Бенчмарк занимаемой памяти: список сущностей {@link Product} против {@link ProductTable}.
+ * Данные генерируются в памяти так же, как их создаёт JDBC-драйвер: каждая строка получает
+ * собственный экземпляр названия. Названия выбираются из ограниченного набора, как в реальном каталоге.
+ *
+ * Запуск после {@code mvn test-compile}:
+ * <pre>
+ * java -Xmx4g -cp target/classes:target/test-classes benchmark.EntityFootprintBenchmark [rows] [distinctNames]
+ * </pre>
+ */
+public class EntityFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int distinctNames = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        String[] namePool = new String[distinctNames];
+        for (int i = 0; i < distinctNames; i++) {
+            namePool[i] = "Продукт " + i;
+        }
+
+        long baseline = usedHeap();
+        List<Product> entities = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            entities.add(new Product(i + 1, new String(namePool[i % distinctNames]), 100 + i % 10_000));
+        }
+        long entitiesBytes = usedHeap() - baseline;
+        report("List<Product>", rows, entitiesBytes);
+        entities = null;
+
+        baseline = usedHeap();
+        ProductTable.Builder builder = new ProductTable.Builder(rows);
+        for (int i = 0; i < rows; i++) {
+            builder.add(i + 1, new String(namePool[i % distinctNames]), 100 + i % 10_000, 0);
+        }
+        ProductTable table = builder.build();
+        builder = null;
+        long tableBytes = usedHeap() - baseline;
+        report("ProductTable", table.size(), tableBytes);
+
+        System.out.printf("Экономия памяти: %.1fx%n", (double) entitiesBytes / Math.max(tableBytes, 1));
+    }
+
+    private static void report(String label, int rows, long bytes) {
+        System.out.printf("%-14s строк: %,d, память: %,.1f МБ, байт на строку: %.1f%n",
+                label, rows, bytes / (1024.0 * 1024.0), (double) bytes / rows);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
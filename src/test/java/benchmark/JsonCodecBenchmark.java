@@ -0,0 +1,78 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import com.sun.management.ThreadMXBean;
+import model.dto.OrderDto;
+import model.dto.ProductDto;
+import model.dto.UserDto;
+import util.Json;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Бенчмарк сериализации DTO: рефлективный Gson против адаптеров без рефлексии ({@link model.dto.DtoJsonAdapters}).
+ * Для каждого типа DTO измеряются пропускная способность кодирования и разбора JSON
+ * и объём памяти, выделенной на одну операцию (по счётчику выделений текущего потока).
+ *
+ * Запуск после {@code mvn test-compile}:
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) benchmark.JsonCodecBenchmark [operations] [rounds]
+ * </pre>
+ */
+public class JsonCodecBenchmark {
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Gson reflective = new Gson();
+        Gson generated = Json.gson();
+
+        ProductDto product = new ProductDto(42, "Фермерский сыр 42", 129_990, 3);
+        UserDto user = new UserDto(7, "user_7", "user_7@example.com");
+        List<OrderDto.ProductInfo> items = new ArrayList<>();
+        long total = 0;
+        for (int i = 1; i <= 5; i++) {
+            items.add(new OrderDto.ProductInfo(i, "Продукт " + i, i * 1_050L));
+            total += i * 1_050L;
+        }
+        OrderDto order = new OrderDto(1001, 7, items);
+        order.setTotalCents(total);
+
+        for (int round = 1; round <= rounds; round++) {
+            // Первые раунды служат прогревом JIT, в установившемся режиме смотрят на последние.
+            System.out.printf("Раунд %d из %d%n", round, rounds);
+            run("ProductDto", product, ProductDto.class, reflective, generated, operations);
+            run("UserDto", user, UserDto.class, reflective, generated, operations);
+            run("OrderDto", order, OrderDto.class, reflective, generated, operations);
+        }
+    }
+
+    private static <T> void run(String label, T dto, Class<T> type, Gson reflective, Gson generated, int operations) {
+        String json = generated.toJson(dto);
+        if (!json.equals(reflective.toJson(dto))) {
+            throw new IllegalStateException("Форматы сериализации " + label + " различаются");
+        }
+        report(label + " encode", "reflective", operations, () -> sink = reflective.toJson(dto));
+        report(label + " encode", "adapters", operations, () -> sink = generated.toJson(dto));
+        report(label + " decode", "reflective", operations, () -> sink = reflective.fromJson(json, type));
+        report(label + " decode", "adapters", operations, () -> sink = generated.fromJson(json, type));
+    }
+
+    private static void report(String label, String codec, int operations, Runnable operation) {
+        long thread = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(thread) - allocatedBefore;
+        System.out.printf("  %-18s %-10s %,12.0f оп/с  %,8.1f нс/оп  %,8.1f байт/оп%n", label, codec,
+                operations * 1e9 / elapsed, (double) elapsed / operations, (double) allocated / operations);
+    }
+}
@@ -0,0 +1,362 @@
+package benchmark;
+
+import admission.AdmissionControlFilter;
+import database.ConnectionFactory;
+import database.QueryTimeoutFilter;
+import jakarta.servlet.DispatcherType;
+import logging.RequestIdFilter;
+import org.eclipse.jetty.ee10.servlet.FilterHolder;
+import org.eclipse.jetty.ee10.servlet.ServletContextHandler;
+import org.eclipse.jetty.ee10.servlet.ServletHolder;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.testcontainers.containers.PostgreSQLContainer;
+import servlet.OrderServlet;
+import servlet.ProductAutocompleteServlet;
+import servlet.ProductServlet;
+import servlet.UserServlet;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный стенд: поднимает PostgreSQL в Testcontainers, встроенный Jetty с сервлетами и фильтрами
+ * приложения и подаёт на него смесь запросов каталога и заказов с заданной интенсивностью.
+ * <p>
+ * Нагрузка подаётся по открытой модели: запрос отправляется в запланированный момент независимо от того,
+ * ответил ли сервер на предыдущие. Задержка считается от запланированного момента, а не от фактической
+ * отправки, поэтому отставание генератора при замедлении сервера не скрывает очередь (поправка на
+ * coordinated omission). Для сравнения выводится и время обслуживания от фактической отправки.
+ * <p>
+ * Запуск после {@code mvn test-compile} (нужен Docker):
+ * <pre>
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) benchmark.LoadTestHarness \
+ *     [rps] [durationSeconds] [mix] [users] [products]
+ * </pre>
+ * где {@code cp.txt} получен командой {@code mvn dependency:build-classpath -Dmdep.outputFile=cp.txt},
+ * а смесь задаётся весами операций, например {@code catalog=60,search=10,orderCreate=10,orderRead=20}.
+ */
+public class LoadTestHarness {
+    private static final String DEFAULT_MIX = "catalog=60,search=10,orderCreate=10,orderRead=20";
+    private static final long WARMUP_SECONDS = 5;
+    private static final String SEARCH_PREFIX = URLEncoder.encode("Наг", StandardCharsets.UTF_8);
+
+    /**
+     * Операция нагрузки.
+     */
+    enum Operation {
+        CATALOG("catalog"),
+        SEARCH("search"),
+        ORDER_CREATE("orderCreate"),
+        ORDER_READ("orderRead");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+
+        static Operation of(String key) {
+            for (Operation operation : values()) {
+                if (operation.key.equals(key)) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестная операция: " + key);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rps = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int durationSeconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        Map<Operation, Integer> mix = parseMix(args.length > 2 ? args[2] : DEFAULT_MIX);
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+        int products = args.length > 4 ? Integer.parseInt(args[4]) : 1_000;
+
+        try (PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres")
+                .withDatabaseName("test")
+                .withUsername("test")
+                .withPassword("test")
+                .withInitScript("init.sql")) {
+            postgres.start();
+            ConnectionFactory.configureEnvironment(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+            int orders = users * 5;
+            seed(users, products, orders);
+
+            Server server = startServer();
+            try {
+                String baseUrl = "http://localhost:" + ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+                System.out.printf("Стенд запущен: %s, пользователей: %,d, продуктов: %,d, заказов: %,d%n",
+                        baseUrl, users, products, orders);
+                LoadGenerator generator = new LoadGenerator(baseUrl, mix, users, products, orders);
+                System.out.printf("Прогрев %d с...%n", WARMUP_SECONDS);
+                generator.run(rps, WARMUP_SECONDS);
+                System.out.printf("Нагрузка %,d запросов/с в течение %d с, смесь: %s%n", rps, durationSeconds, mix);
+                generator.run(rps, durationSeconds).print(durationSeconds);
+            } finally {
+                server.stop();
+                ConnectionFactory.clearEnvironment();
+            }
+        }
+    }
+
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Некорректный элемент смеси: " + part);
+            }
+            weights.put(Operation.of(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Заполняет базу данных пользователями, продуктами и заказами пакетными вставками.
+     */
+    private static void seed(int users, int products, int orders) throws SQLException {
+        SplittableRandom random = new SplittableRandom(42);
+        try (Connection connection = ConnectionFactory.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO users (username, email) VALUES (?, ?)")) {
+                for (int i = 1; i <= users; i++) {
+                    statement.setString(1, "load_user_" + i);
+                    statement.setString(2, "load_user_" + i + "@example.com");
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO products (name, price) VALUES (?, ?)")) {
+                for (int i = 1; i <= products; i++) {
+                    statement.setString(1, "Нагрузочный продукт " + i);
+                    statement.setBigDecimal(2, BigDecimal.valueOf(100 + random.nextInt(100_000), 2));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO orders (user_id) SELECT 1 + (g * 7919) % ? FROM generate_series(1, ?) g")) {
+                statement.setInt(1, users);
+                statement.setInt(2, orders);
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO order_products (order_id, product_id) "
+                            + "SELECT o.id, p.id FROM orders o, products p WHERE p.id = 1 + (o.id * 7919) % ?")) {
+                statement.setInt(1, products);
+                statement.executeUpdate();
+            }
+            connection.commit();
+        }
+    }
+
+    private static Server startServer() throws Exception {
+        Server server = new Server(0);
+        ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/");
+        EnumSet<DispatcherType> dispatch = EnumSet.of(DispatcherType.REQUEST);
+        context.addFilter(new FilterHolder(new RequestIdFilter()), "/*", dispatch);
+        context.addFilter(new FilterHolder(new QueryTimeoutFilter()), "/*", dispatch);
+        context.addFilter(new FilterHolder(new AdmissionControlFilter()), "/*", dispatch);
+        context.addServlet(new ServletHolder(new ProductServlet()), "/products");
+        ServletHolder autocomplete = new ServletHolder(new ProductAutocompleteServlet());
+        autocomplete.setInitOrder(1);
+        context.addServlet(autocomplete, "/products/autocomplete");
+        context.addServlet(new ServletHolder(new UserServlet()), "/users");
+        context.addServlet(new ServletHolder(new OrderServlet()), "/orders");
+        server.setHandler(context);
+        server.start();
+        return server;
+    }
+
+    /**
+     * Генератор нагрузки по открытой модели.
+     */
+    private static final class LoadGenerator {
+        private final String baseUrl;
+        private final Operation[] schedule;
+        private final int users;
+        private final int products;
+        private final int orders;
+        private final HttpClient client;
+        private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "load-client");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private LoadGenerator(String baseUrl, Map<Operation, Integer> mix, int users, int products, int orders) {
+            this.baseUrl = baseUrl;
+            this.users = users;
+            this.products = products;
+            this.orders = orders;
+            int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+            this.schedule = new Operation[total];
+            int position = 0;
+            for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+                Arrays.fill(schedule, position, position + entry.getValue(), entry.getKey());
+                position += entry.getValue();
+            }
+            this.client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+        }
+
+        private Report run(int rps, long durationSeconds) throws InterruptedException {
+            long total = rps * durationSeconds;
+            long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rps;
+            Report report = new Report();
+            CountDownLatch completed = new CountDownLatch((int) total);
+            SplittableRandom random = new SplittableRandom();
+            long start = System.nanoTime();
+            for (long i = 0; i < total; i++) {
+                long intended = start + i * intervalNanos;
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                Operation operation = schedule[random.nextInt(schedule.length)];
+                HttpRequest request = buildRequest(operation, random);
+                long sent = System.nanoTime();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                        .whenComplete((response, error) -> {
+                            long now = System.nanoTime();
+                            boolean ok = error == null && response.statusCode() < 400;
+                            report.record(operation, now - intended, now - sent, ok);
+                            completed.countDown();
+                        });
+            }
+            completed.await(durationSeconds + 60, TimeUnit.SECONDS);
+            return report;
+        }
+
+        private HttpRequest buildRequest(Operation operation, SplittableRandom random) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(Duration.ofSeconds(30));
+            switch (operation) {
+                case CATALOG:
+                    return builder.uri(URI.create(baseUrl + "/products?id=" + (1 + random.nextInt(products)))).build();
+                case SEARCH:
+                    return builder.uri(URI.create(baseUrl + "/products/autocomplete?q=" + SEARCH_PREFIX + "&limit=10"))
+                            .build();
+                case ORDER_CREATE:
+                    String body = "{\"userId\":" + (1 + random.nextInt(users)) + ",\"productIds\":["
+                            + (1 + random.nextInt(products)) + "," + (1 + random.nextInt(products)) + "]}";
+                    return builder.uri(URI.create(baseUrl + "/orders"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build();
+                case ORDER_READ:
+                    return builder.uri(URI.create(baseUrl + "/orders?id=" + (1 + random.nextInt(orders)))).build();
+                default:
+                    throw new IllegalStateException("Неизвестная операция: " + operation);
+            }
+        }
+    }
+
+    /**
+     * Результаты прогона: задержки по операциям с поправкой на coordinated omission и без неё.
+     */
+    private static final class Report {
+        private final Map<Operation, Samples> corrected = new LinkedHashMap<>();
+        private final Map<Operation, Samples> service = new LinkedHashMap<>();
+        private final Map<Operation, LongAdder> errors = new LinkedHashMap<>();
+
+        private Report() {
+            for (Operation operation : Operation.values()) {
+                corrected.put(operation, new Samples());
+                service.put(operation, new Samples());
+                errors.put(operation, new LongAdder());
+            }
+        }
+
+        private void record(Operation operation, long correctedNanos, long serviceNanos, boolean ok) {
+            corrected.get(operation).add(correctedNanos);
+            service.get(operation).add(serviceNanos);
+            if (!ok) {
+                errors.get(operation).increment();
+            }
+        }
+
+        private void print(long durationSeconds) {
+            System.out.printf("%-12s %8s %8s %9s %9s %9s %9s %9s  %s%n",
+                    "операция", "запросов", "ошибок", "зап/с", "p50 мс", "p90 мс", "p99 мс", "p99.9 мс", "max мс");
+            long totalCount = 0;
+            for (Operation operation : Operation.values()) {
+                Samples samples = corrected.get(operation);
+                if (samples.size() == 0) {
+                    continue;
+                }
+                totalCount += samples.size();
+                printRow(operation.key, samples, errors.get(operation).sum(), durationSeconds);
+                printRow("  service", service.get(operation), errors.get(operation).sum(), durationSeconds);
+            }
+            System.out.printf("Итого: %,d запросов, %.1f запросов/с%n", totalCount, (double) totalCount / durationSeconds);
+        }
+
+        private static void printRow(String label, Samples samples, long errors, long durationSeconds) {
+            long[] sorted = samples.sorted();
+            System.out.printf("%-12s %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f  %.2f%n",
+                    label, sorted.length, errors, (double) sorted.length / durationSeconds,
+                    millis(percentile(sorted, 50)), millis(percentile(sorted, 90)), millis(percentile(sorted, 99)),
+                    millis(percentile(sorted, 99.9)), millis(sorted[sorted.length - 1]));
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Потокобезопасный накопитель замеров задержки.
+     */
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        private synchronized void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[size++] = value;
+        }
+
+        private synchronized int size() {
+            return size;
+        }
+
+        private synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -13,6 +13,7 @@ import database.ConnectionFactory;
 
 import java.sql.*;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,8 +64,8 @@ public class OrderDaoTest {
         int initialProductCount = getProductCountInOrder(postgres);
 
         User user = new User(1, "Anton", "antpkov@gmail.com");
-        Product product1 = new Product(1, "Кола", 1.50);
-        Product product2 = new Product(2, "Молоко", 5.50);
+        Product product1 = new Product(1, "Кола", 150);
+        Product product2 = new Product(2, "Молоко", 550);
 
         Order order = new Order();
         order.setUser(user);
@@ -77,6 +78,118 @@ public class OrderDaoTest {
         assertEquals(initialProductCount + 2, finalProductCount, "Должно быть связано два продукта с заказом.");
     }
 
+    /**
+     * Тестирование метода addOrder с ключом идемпотентности.
+     * Повторное сохранение с тем же ключом должно вернуть идентификатор первого заказа,
+     * не создавая новых связей продуктов с заказом.
+     */
+    @Test
+    void testAddOrderWithIdempotencyKey() throws Exception {
+        User user = new User(2, "Oleg", "oleg@mail.com");
+        Order order = new Order();
+        order.setUser(user);
+        order.setProducts(Arrays.asList(new Product(3, "Хлеб", 750)));
+
+        OrderDao orderDao = new OrderDao();
+        int firstOrderId = orderDao.addOrder(order, "test-idempotency-key");
+        int productCountAfterFirst = getProductCountInOrder(postgres);
+        int secondOrderId = orderDao.addOrder(order, "test-idempotency-key");
+
+        assertEquals(firstOrderId, secondOrderId, "Повторный запрос должен вернуть тот же заказ.");
+        assertEquals(productCountAfterFirst, getProductCountInOrder(postgres), "Повторный запрос не должен создавать записи.");
+        assertEquals(firstOrderId, orderDao.findOrderIdByIdempotencyKey("test-idempotency-key"));
+    }
+
+    /**
+     * Тестирование метода addOrders для проверки сохранения группы заказов одной транзакцией.
+     */
+    @Test
+    void testAddOrders() throws Exception {
+        int initialProductCount = getProductCountInOrder(postgres);
+
+        Order first = new Order();
+        first.setUser(new User(3, "Ivan", "ivan@gmail.ru"));
+        first.setProducts(Arrays.asList(new Product(4, "Йогурт", 353)));
+        Order second = new Order();
+        second.setUser(new User(4, "Vasya", "vas@gmail.ru"));
+        second.setProducts(Arrays.asList(new Product(6, "Сыр", 950), new Product(7, "Рыба", 1150)));
+
+        OrderDao orderDao = new OrderDao();
+        int[] orderIds = orderDao.addOrders(Arrays.asList(first, second));
+
+        assertEquals(2, orderIds.length);
+        assertEquals(2, orderDao.getOrderById(orderIds[1]).getProducts().size());
+        assertEquals(initialProductCount + 3, getProductCountInOrder(postgres));
+    }
+
+    /**
+     * Тестирование сохранения ключей идемпотентности в транзакции группы заказов.
+     * Занятый ключ должен откатить группу с нарушением уникальности, не создав заказов.
+     */
+    @Test
+    void testAddOrdersWithIdempotencyKeys() throws Exception {
+        Order order = new Order();
+        order.setUser(new User(1, "Anton", "antpkov@gmail.com"));
+        order.setProducts(Arrays.asList(new Product(2, "Молоко", 550)));
+
+        OrderDao orderDao = new OrderDao();
+        int[] orderIds = orderDao.addOrders(Arrays.asList(order), Arrays.asList("batch-key"));
+        assertEquals(orderIds[0], orderDao.findOrderIdByIdempotencyKey("batch-key"));
+
+        int productCount = getProductCountInOrder(postgres);
+        SQLException error = assertThrows(SQLException.class,
+                () -> orderDao.addOrders(Arrays.asList(order), Arrays.asList("batch-key")));
+        assertEquals(UserDao.UNIQUE_VIOLATION, error.getSQLState());
+        assertEquals(productCount, getProductCountInOrder(postgres));
+    }
+
+    /**
+     * Тестирование постраничной выборки истории заказов пользователя вместе с продуктами.
+     */
+    @Test
+    void testGetOrdersByUserId() throws Exception {
+        User user = new UserDao().addUser(new User("History User", "history@example.com"));
+        OrderDao orderDao = new OrderDao();
+        Order first = new Order();
+        first.setUser(user);
+        first.setProducts(Arrays.asList(new Product(9, "Конфеты", 250), new Product(10, "Шоколад", 756)));
+        Order second = new Order();
+        second.setUser(user);
+        second.setProducts(Arrays.asList(new Product(11, "Сок", 850)));
+        int firstId = orderDao.addOrder(first);
+        int secondId = orderDao.addOrder(second);
+
+        List<Order> firstPage = orderDao.getOrdersByUserId(user.getId(), 0, 1);
+        assertEquals(1, firstPage.size());
+        assertEquals(firstId, firstPage.get(0).getId());
+        assertEquals(2, firstPage.get(0).getProducts().size());
+        assertEquals("history@example.com", firstPage.get(0).getUser().getEmail());
+
+        List<Order> secondPage = orderDao.getOrdersByUserId(user.getId(), firstId, 10);
+        assertEquals(1, secondPage.size());
+        assertEquals(secondId, secondPage.get(0).getId());
+        assertEquals(850, secondPage.get(0).getProducts().get(0).getPriceCents());
+
+        assertTrue(orderDao.getOrdersByUserId(user.getId(), secondId, 10).isEmpty());
+    }
+
+    /**
+     * Тестирование выборки популярных продуктов и активных пользователей по последним заказам.
+     */
+    @Test
+    void testGetPopularProductIdsAndActiveUserIds() throws Exception {
+        OrderDao orderDao = new OrderDao();
+        Order order = new Order();
+        order.setUser(new User(2, "Oleg", "oleg@mail.com"));
+        order.setProducts(Arrays.asList(new Product(12, "Вода", 650)));
+        orderDao.addOrder(order);
+        orderDao.addOrder(order);
+
+        assertEquals(List.of(12), orderDao.getPopularProductIds(2, 5));
+        assertEquals(List.of(2), orderDao.getActiveUserIds(2, 5));
+        assertEquals(1, orderDao.getActiveUserIds(1000, 1).size());
+    }
+
     /**
      * Вспомогательный метод для подсчета количества связей продуктов с заказами в базе данных.
      */
@@ -1,6 +1,7 @@
 package dao;
 
 import database.ConnectionFactory;
+import model.columnar.ProductTable;
 import model.entity.Product;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
@@ -11,6 +12,7 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -53,7 +55,7 @@ public class ProductDaoTest {
         Product expected = productDao.getProductById(1);
         assertNotNull(expected, "Товар не должен быть нулевым");
         assertEquals("Кола", expected.getName());
-        assertEquals(1.50, expected.getPrice(), 0.01);
+        assertEquals(150, expected.getPriceCents());
     }
 
     /**
@@ -73,8 +75,10 @@ public class ProductDaoTest {
      */
     @Test
      void testAddProduct() throws Exception {
-        Product newProduct = new Product(13,"Новый продукт", 10.99);
-        productDao.addProduct(newProduct);
+        Product newProduct = new Product(13,"Новый продукт", 1099);
+        Product created = productDao.addProduct(newProduct);
+        assertTrue(created.getId() > 0, "Продукту должен быть присвоен идентификатор");
+        assertEquals("Новый продукт", productDao.getProductById(created.getId()).getName());
         List<Product> products = productDao.getAllProducts();
         assertTrue(products.stream().anyMatch(p -> p.getName().equals("Новый продукт")));
     }
@@ -87,11 +91,11 @@ public class ProductDaoTest {
      void testUpdateProduct() throws Exception {
         Product product = productDao.getProductById(2);
         product.setName("Обновленное Молоко");
-        product.setPrice(2.00);
+        product.setPriceCents(200);
         productDao.updateProduct(product);
         Product updatedProduct = productDao.getProductById(2);
         assertEquals("Обновленное Молоко", updatedProduct.getName());
-        assertEquals(2.00, updatedProduct.getPrice(), 0.01);
+        assertEquals(200, updatedProduct.getPriceCents());
     }
 
     /**
@@ -104,4 +108,98 @@ public class ProductDaoTest {
         productDao.deleteProduct(productIdToDelete);
         assertNull(productDao.getProductById(productIdToDelete));
     }
+
+    /**
+     * Тестирование частичного обновления продукта.
+     * Проверяет, что меняется только переданное поле, а обновление тем же значением не изменяет строку.
+     */
+    @Test
+    void testPatchProduct() throws Exception {
+        int version = productDao.getProductById(3).getVersion();
+        assertEquals(Integer.valueOf(version + 1), productDao.patchProduct(3, null, 825L));
+        Product patched = productDao.getProductById(3);
+        assertEquals("Хлеб", patched.getName());
+        assertEquals(825, patched.getPriceCents());
+        assertEquals(version + 1, patched.getVersion());
+        assertNull(productDao.patchProduct(3, "Хлеб", 825L), "Обновление теми же значениями не должно менять строку");
+    }
+
+    /**
+     * Тестирование условного обновления продукта по версии.
+     * Проверяет, что обновление с актуальной версией проходит и увеличивает версию,
+     * а обновление с устаревшей версией отклоняется.
+     */
+    @Test
+    void testUpdateProductWithVersion() throws Exception {
+        Product product = productDao.getProductById(4);
+        int version = product.getVersion();
+        product.setPriceCents(400);
+
+        assertTrue(productDao.updateProduct(product, version));
+        assertEquals(version + 1, productDao.getProductById(4).getVersion());
+        product.setPriceCents(450);
+        assertFalse(productDao.updateProduct(product, version), "Обновление по устаревшей версии должно быть отклонено");
+        assertEquals(400, productDao.getProductById(4).getPriceCents());
+    }
+
+    /**
+     * Тестирование получения всех продуктов в колоночном представлении.
+     * Проверяет, что цены хранятся в копейках без потери точности.
+     */
+    @Test
+    void testGetAllProductsTable() throws Exception {
+        ProductTable table = productDao.getAllProductsTable();
+        assertTrue(table.size() >= 11);
+        for (int row = 0; row < table.size(); row++) {
+            if (table.getId(row) == 8) {
+                assertEquals(1455, table.getPriceCents(row));
+            }
+        }
+    }
+
+    /**
+     * Тестирование поиска продуктов по префиксу, с опечаткой, по словоформе и по диапазону цен.
+     */
+    @Test
+    void testSearchProducts() throws Exception {
+        ProductTable prefix = productDao.searchProducts(
+                new ProductSearchCriteria("КОН", ProductSearchCriteria.Mode.PREFIX, null, null, 10, 0));
+        assertEquals(1, prefix.size());
+        assertEquals("Конфеты", prefix.getName(0));
+
+        ProductTable firstPage = productDao.searchProducts(
+                new ProductSearchCriteria("ко", ProductSearchCriteria.Mode.PREFIX, null, null, 1, 0));
+        assertEquals(1, firstPage.size());
+        assertEquals("Кола", firstPage.getName(0));
+
+        ProductTable fuzzy = productDao.searchProducts(
+                new ProductSearchCriteria("шоколат", ProductSearchCriteria.Mode.FUZZY, null, null, 10, 0));
+        assertTrue(fuzzy.size() >= 1);
+        assertEquals(10, fuzzy.getId(0));
+
+        ProductTable fullText = productDao.searchProducts(
+                new ProductSearchCriteria("мороженого", ProductSearchCriteria.Mode.FULL_TEXT, null, null, 10, 0));
+        assertEquals(1, fullText.size());
+        assertEquals(8, fullText.getId(0));
+
+        ProductTable priceRange = productDao.searchProducts(
+                new ProductSearchCriteria(null, null, 1400L, 1500L, 10, 0));
+        assertEquals(1, priceRange.size());
+        assertEquals(1455, priceRange.getPriceCents(0));
+
+        assertEquals(0, productDao.searchProducts(
+                new ProductSearchCriteria("%", ProductSearchCriteria.Mode.PREFIX, null, null, 10, 0)).size());
+    }
+
+    /**
+     * Тестирование получения продуктов по набору идентификаторов одним запросом.
+     */
+    @Test
+    void testGetProductsByIds() throws Exception {
+        Map<Integer, Product> products = productDao.getProductsByIds(List.of(1, 8, 1000));
+        assertEquals(2, products.size());
+        assertEquals(1455, products.get(8).getPriceCents());
+        assertFalse(products.containsKey(1000));
+        assertTrue(productDao.getProductsByIds(List.of()).isEmpty());
+    }
 }
@@ -1,6 +1,7 @@
 package dao;
 
 import database.ConnectionFactory;
+import model.columnar.UserTable;
 import model.entity.User;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -9,7 +10,9 @@ import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -65,7 +68,9 @@ public class UserDaoTest {
     @Test
     void testAddUser() throws Exception {
         User newUser = new User("New User", "newuser@example.com");
-        userDao.addUser(newUser);
+        User created = userDao.addUser(newUser);
+        assertTrue(created.getId() > 0, "Пользователю должен быть присвоен идентификатор");
+        assertEquals(created.getEmail(), userDao.getUserById(created.getId()).getEmail());
         List<User> users = userDao.getAllUsers();
         assertTrue(users.stream().anyMatch(u -> u.getEmail().equals("newuser@example.com")));
     }
@@ -105,4 +110,77 @@ public class UserDaoTest {
         List<User> users = userDao.getAllUsers();
         assertEquals(4, users.size()); // Verify one less user after deletion
     }
+
+    /**
+     * Тестирует частичное обновление пользователя.
+     * Проверяет, что меняется только переданное поле, а повторное обновление тем же значением не изменяет строку.
+     */
+    @Test
+    void testPatchUser() throws Exception {
+        User before = userDao.getUserById(3);
+        assertTrue(userDao.patchUser(3, null, "ivan.patched@gmail.ru"));
+        User after = userDao.getUserById(3);
+        assertEquals(before.getUsername(), after.getUsername());
+        assertEquals("ivan.patched@gmail.ru", after.getEmail());
+        assertFalse(userDao.patchUser(3, null, "ivan.patched@gmail.ru"), "Повторное обновление не должно менять строку");
+        assertFalse(userDao.patchUser(1000, "ghost", null), "Несуществующий пользователь не должен обновляться");
+    }
+
+    /**
+     * Тестирует получение всех пользователей в колоночном представлении.
+     * Проверяет, что таблица содержит тех же пользователей, что и список сущностей.
+     */
+    @Test
+    void testGetAllUsersTable() throws Exception {
+        List<User> users = userDao.getAllUsers();
+        UserTable table = userDao.getAllUsersTable();
+        assertEquals(users.size(), table.size());
+        assertEquals(users.get(0).getId(), table.getId(0));
+    }
+
+    /**
+     * Тестирует поиск пользователя по email без учёта регистра и по имени пользователя.
+     */
+    @Test
+    void testGetUserByEmailAndUsername() throws Exception {
+        User byEmail = userDao.getUserByEmail(" OLEG@mail.com ");
+        assertNotNull(byEmail);
+        assertEquals(2, byEmail.getId());
+        assertEquals(2, userDao.getUserByUsername("Oleg").getId());
+        assertNull(userDao.getUserByEmail("nobody@example.com"));
+        assertNull(userDao.getUserByUsername("nobody"));
+    }
+
+    /**
+     * Тестирует пакетный поиск пользователей по списку адресов: ненайденные адреса пропускаются.
+     */
+    @Test
+    void testGetUsersByEmails() throws Exception {
+        List<User> users = userDao.getUsersByEmails(List.of("oleg@mail.com", "ANTPKOV@gmail.com", "nobody@example.com"));
+        assertEquals(List.of(1, 2), users.stream().map(User::getId).toList());
+        assertTrue(userDao.getUsersByEmails(List.of()).isEmpty());
+    }
+
+    /**
+     * Тестирует, что уникальные индексы не допускают повторного email (без учёта регистра) и имени пользователя.
+     */
+    @Test
+    void testUniqueEmailAndUsername() {
+        SQLException duplicateEmail = assertThrows(SQLException.class,
+                () -> userDao.addUser(new User("Another Oleg", "Oleg@Mail.com")));
+        assertEquals(UserDao.UNIQUE_VIOLATION, duplicateEmail.getSQLState());
+        SQLException duplicateName = assertThrows(SQLException.class,
+                () -> userDao.addUser(new User("Oleg", "another.oleg@mail.com")));
+        assertEquals(UserDao.UNIQUE_VIOLATION, duplicateName.getSQLState());
+    }
+
+    /**
+     * Тестирует получение пользователей по набору идентификаторов одним запросом.
+     */
+    @Test
+    void testGetUsersByIds() throws Exception {
+        Map<Integer, User> users = userDao.getUsersByIds(List.of(2, 1000));
+        assertEquals(1, users.size());
+        assertEquals("Oleg", users.get(2).getUsername());
+    }
 }
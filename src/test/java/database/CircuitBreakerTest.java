@@ -0,0 +1,71 @@
+package database;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link CircuitBreaker}.
+ * Проверяет размыкание после серии ошибок, пробный запрос, замыкание после успешной пробы
+ * и истечение пробы, итог которой не был отмечен.
+ */
+class CircuitBreakerTest {
+
+    @Test
+    void testOpensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker("test.open", 2, 60_000);
+
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+        breaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest());
+        assertEquals(1, breaker.getRejected());
+    }
+
+    @Test
+    void testHalfOpenAllowsSingleProbe() {
+        CircuitBreaker breaker = new CircuitBreaker("test.probe", 1, 0);
+        breaker.recordFailure();
+
+        assertTrue(breaker.allowRequest(), "После паузы пропускается пробный запрос");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.allowRequest(), "Пока проба не завершилась, остальные запросы отклоняются");
+
+        breaker.recordSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.allowRequest());
+    }
+
+    @Test
+    void testUnreportedProbeExpires() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test.probeTimeout", 1, 0, 50);
+        breaker.recordFailure();
+
+        assertTrue(breaker.allowRequest());
+        assertFalse(breaker.allowRequest(), "Пока проба не завершилась, остальные запросы отклоняются");
+        Thread.sleep(100);
+
+        assertTrue(breaker.allowRequest(), "Проба без отмеченного итога не должна блокировать выключатель навсегда");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    void testReleasedProbeAllowsNextProbeOnlyForOwner() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test.probeRelease", 1, 0);
+        breaker.recordFailure();
+        assertTrue(breaker.allowRequest());
+
+        Thread other = new Thread(breaker::releaseProbe);
+        other.start();
+        other.join();
+        assertFalse(breaker.allowRequest(), "Чужой поток не может освободить пробу");
+
+        breaker.releaseProbe();
+        assertTrue(breaker.allowRequest(), "Освобождённая проба сразу разрешает следующую");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,86 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link QueryContext}.
+ * Проверяет установку таймаутов операторам, отмену выполняющихся запросов и удаление закрытых операторов.
+ */
+class QueryContextTest {
+
+    @AfterEach
+    void tearDown() {
+        QueryContext context = QueryContext.current();
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void testStatementsGetContextTimeout() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(connection.prepareStatement("SELECT 1")).thenReturn(statement);
+
+        try (QueryContext ignored = QueryContext.open(3)) {
+            assertSame(statement, QueryContext.wrap(connection).prepareStatement("SELECT 1"));
+        }
+
+        verify(statement).setQueryTimeout(3);
+        assertNull(QueryContext.current());
+    }
+
+    @Test
+    void testCancelStopsRunningAndRejectsNewStatements() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement running = mock(PreparedStatement.class);
+        PreparedStatement late = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(running, late);
+        Connection wrapped = QueryContext.wrap(connection);
+
+        try (QueryContext context = QueryContext.open(0)) {
+            wrapped.prepareStatement("SELECT pg_sleep(60)");
+            context.cancel();
+
+            verify(running).cancel();
+            verify(running, never()).setQueryTimeout(anyInt());
+            SQLException e = assertThrows(SQLException.class, () -> wrapped.prepareStatement("SELECT 1"));
+            assertEquals("57014", e.getSQLState());
+            verify(late).close();
+        }
+    }
+
+    @Test
+    void testClosedStatementsAreNotCancelled() throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement closed = mock(PreparedStatement.class);
+        PreparedStatement open = mock(PreparedStatement.class);
+        when(closed.isClosed()).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(closed, open);
+        Connection wrapped = QueryContext.wrap(connection);
+
+        try (QueryContext context = QueryContext.open(0)) {
+            wrapped.prepareStatement("INSERT INTO products (name, price) VALUES (?, ?)");
+            wrapped.prepareStatement("INSERT INTO products (name, price) VALUES (?, ?)");
+            context.cancel();
+
+            verify(open).cancel();
+            verify(closed, never()).cancel();
+            verify(closed, times(1)).isClosed();
+        }
+    }
+
+    @Test
+    void testTimeoutForEndpoint() {
+        assertEquals(2, QueryContext.timeoutFor("/products/autocomplete"));
+        assertEquals(30, QueryContext.timeoutFor("/unknown"));
+    }
+}
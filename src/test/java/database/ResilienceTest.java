@@ -0,0 +1,93 @@
+package database;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link Resilience}.
+ * Проверяет, какие ошибки повторяются для чтений и транзакций, и учёт итога операции в выключателе.
+ */
+class ResilienceTest {
+
+    @AfterEach
+    void tearDown() {
+        Resilience.breaker().recordSuccess();
+    }
+
+    @Test
+    void testReadRetriesConnectionFailure() throws SQLException {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = Resilience.read(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new SQLException("connection reset", "08006");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testTransactionRetriesOnlySerializationFailures() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SQLException.class, () -> Resilience.transaction(() -> {
+            attempts.incrementAndGet();
+            throw new SQLException("connection reset", "08006");
+        }));
+        assertEquals(1, attempts.get(), "Неизвестно, была ли транзакция зафиксирована, поэтому она не повторяется");
+
+        attempts.set(0);
+        assertThrows(SQLException.class, () -> Resilience.transaction(() -> {
+            attempts.incrementAndGet();
+            throw new SQLException("could not serialize access", "40001");
+        }));
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void testProgrammingErrorsAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SQLException.class, () -> Resilience.read(() -> {
+            attempts.incrementAndGet();
+            throw new SQLException("syntax error", "42601");
+        }));
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void testSuccessIsRecordedAfterOperationCompletes() throws SQLException {
+        CircuitBreaker breaker = Resilience.breaker();
+        breaker.recordFailure();
+        breaker.recordFailure();
+
+        assertThrows(SQLException.class, () -> Resilience.transaction(() -> {
+            assertEquals(2, breaker.getConsecutiveFailures(), "До завершения операции ошибки не сбрасываются");
+            throw new SQLException("terminating connection due to administrator command", "57P01");
+        }));
+        assertEquals(3, breaker.getConsecutiveFailures());
+
+        assertEquals("ok", Resilience.read(() -> "ok"));
+        assertEquals(0, breaker.getConsecutiveFailures());
+    }
+
+    @Test
+    void testPoolExhaustionIsNeitherRetriedNorCounted() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(PoolExhaustedException.class, () -> Resilience.read(() -> {
+            attempts.incrementAndGet();
+            throw new PoolExhaustedException("Connection is not available, request timed out after 2000ms", null);
+        }));
+        assertEquals(1, attempts.get(), "Повтор ожидания в занятом пуле только усилил бы перегрузку");
+        assertEquals(0, Resilience.breaker().getConsecutiveFailures());
+    }
+}
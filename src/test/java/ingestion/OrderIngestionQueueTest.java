@@ -0,0 +1,163 @@
+package ingestion;
+
+import dao.OrderDao;
+import model.entity.Order;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link OrderIngestionQueue}.
+ * Проверяет группировку заказов в одну транзакцию, отказ при переполнении очереди
+ * сохранение заказов по одному только при ошибке данных и отмену заказов, не дождавшихся записи.
+ */
+class OrderIngestionQueueTest {
+    private OrderIngestionQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    /**
+     * Заказы, накопившиеся в очереди во время записи предыдущей группы,
+     * должны быть сохранены одним вызовом addOrders.
+     */
+    @Test
+    void testQueuedOrdersAreWrittenAsOneBatch() throws Exception {
+        OrderDao orderDao = mock(OrderDao.class);
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        when(orderDao.addOrders(anyList(), anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            if (firstBatchStarted.getCount() > 0) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            }
+            int[] ids = new int[orders.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = orders.get(i).getId();
+            }
+            return ids;
+        });
+        queue = new OrderIngestionQueue(orderDao, 100, 50, 10);
+
+        CompletableFuture<Integer> first = queue.submit(new Order(1));
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> second = queue.submit(new Order(2));
+        CompletableFuture<Integer> third = queue.submit(new Order(3));
+        releaseFirstBatch.countDown();
+
+        assertEquals(1, first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, second.get(5, TimeUnit.SECONDS));
+        assertEquals(3, third.get(5, TimeUnit.SECONDS));
+        verify(orderDao, times(2)).addOrders(anyList(), anyList());
+    }
+
+    /**
+     * При заполненной очереди новый заказ должен быть отклонён.
+     */
+    @Test
+    void testSubmitIsRejectedWhenQueueIsFull() throws Exception {
+        OrderDao orderDao = mock(OrderDao.class);
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        when(orderDao.addOrders(anyList(), anyList())).thenAnswer(invocation -> {
+            writerBlocked.countDown();
+            releaseWriter.await(5, TimeUnit.SECONDS);
+            return new int[((List<?>) invocation.getArgument(0)).size()];
+        });
+        queue = new OrderIngestionQueue(orderDao, 1, 10, 10);
+
+        queue.submit(new Order(1));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+        queue.submit(new Order(2));
+
+        assertThrows(RejectedExecutionException.class, () -> queue.submit(new Order(3)));
+        releaseWriter.countDown();
+    }
+
+    /**
+     * Если группа отклонена из-за данных, заказы сохраняются по одному вместе со своими ключами,
+     * и ошибка одного заказа не влияет на остальные.
+     */
+    @Test
+    void testBatchRejectedForDataFallsBackToSingleWrites() throws Exception {
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.addOrders(anyList(), anyList()))
+                .thenThrow(new SQLException("violates foreign key constraint", "23503"));
+        Order good = new Order(1);
+        Order bad = new Order(2);
+        when(orderDao.addOrder(good, "key-1")).thenReturn(11);
+        when(orderDao.addOrder(bad, null)).thenThrow(new SQLException("bad order", "23503"));
+        queue = new OrderIngestionQueue(orderDao, 10, 10, 10);
+
+        assertEquals(11, queue.submitAndAwait(good, "key-1", 5000));
+        assertThrows(SQLException.class, () -> queue.submitAndAwait(bad, 5000));
+    }
+
+    /**
+     * Если группа не сохранена из-за ошибки соединения, она могла быть зафиксирована,
+     * поэтому заказы не записываются повторно по одному.
+     */
+    @Test
+    void testBatchWithUnknownOutcomeIsNotRewritten() throws Exception {
+        OrderDao orderDao = mock(OrderDao.class);
+        when(orderDao.addOrders(anyList(), anyList()))
+                .thenThrow(new SQLException("An I/O error occurred while sending to the backend", "08006"));
+        queue = new OrderIngestionQueue(orderDao, 10, 10, 10);
+
+        SQLException error = assertThrows(SQLException.class, () -> queue.submitAndAwait(new Order(1), "key-1", 5000));
+        assertEquals("08006", error.getSQLState());
+        verify(orderDao, never()).addOrder(any(), any());
+    }
+
+    /**
+     * Заказ, не дождавшийся записи в очереди, должен быть отменён и не записан,
+     * а заказ, уже попавший в записываемую группу, — дописан, и вызывающий получает его future.
+     */
+    @Test
+    void testTimedOutOrderIsCancelledOnlyWhileQueued() throws Exception {
+        OrderDao orderDao = mock(OrderDao.class);
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch releaseWriter = new CountDownLatch(1);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        when(orderDao.addOrders(anyList(), anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            writerBlocked.countDown();
+            releaseWriter.await(5, TimeUnit.SECONDS);
+            int[] ids = new int[orders.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = orders.get(i).getId();
+                written.add(ids[i]);
+            }
+            return ids;
+        });
+        queue = new OrderIngestionQueue(orderDao, 10, 10, 10);
+
+        OrderPendingException inFlight = assertThrows(OrderPendingException.class,
+                () -> queue.submitAndAwait(new Order(1), 200));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+        assertThrows(RejectedExecutionException.class, () -> queue.submitAndAwait(new Order(2), 50));
+        assertEquals(0, queue.size());
+        releaseWriter.countDown();
+
+        assertEquals(1, inFlight.getResult().get(5, TimeUnit.SECONDS));
+        CompletableFuture<Integer> next = queue.submit(new Order(3));
+        assertEquals(3, next.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of(1, 3), written);
+    }
+}
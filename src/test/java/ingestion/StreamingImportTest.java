@@ -0,0 +1,114 @@
+package ingestion;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link StreamingImport}.
+ * Проверяет запись пакетами и отклонение некорректных данных без чтения остатка тела.
+ */
+class StreamingImportTest {
+
+    @Test
+    void testImportsInBatches() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        long imported = StreamingImport.run(body("[{\"v\":1},{\"v\":2},{\"v\":3},{\"v\":4},{\"v\":5}]"), 2,
+                StreamingImportTest::parseValue, batch -> batchSizes.add(batch.size()));
+
+        assertEquals(5, imported);
+        assertEquals(List.of(2, 2, 1), batchSizes);
+    }
+
+    /**
+     * Ошибка в элементе отклоняет запрос сразу: уже записанные пакеты учитываются,
+     * а остаток тела не читается, даже если он бесконечен.
+     */
+    @Test
+    void testRejectsInvalidItemWithoutReadingRest() {
+        InputStream endless = new SequenceInputStream(body("[{\"v\":1},{\"v\":2},{\"v\":-1},"), new InputStream() {
+            @Override
+            public int read() {
+                return ' ';
+            }
+        });
+        List<Integer> values = new ArrayList<>();
+
+        ImportException e = assertThrows(ImportException.class, () -> StreamingImport.run(endless, 2,
+                StreamingImportTest::parseValue, batch -> values.addAll(batch)));
+
+        assertEquals(2, e.getImported());
+        assertEquals(List.of(1, 2), values);
+        assertTrue(e.getMessage().contains("Элемент 2"), e.getMessage());
+    }
+
+    @Test
+    void testRejectsMalformedJson() {
+        assertEquals(0, assertThrows(ImportException.class, () -> StreamingImport.run(body("{\"v\":1}"), 10,
+                StreamingImportTest::parseValue, batch -> { })).getImported());
+        assertThrows(ImportException.class, () -> StreamingImport.run(body("[{\"v\":1},"), 10,
+                StreamingImportTest::parseValue, batch -> { }));
+        assertThrows(ImportException.class, () -> StreamingImport.run(body("[{\"v\":1} x"), 10,
+                StreamingImportTest::parseValue, batch -> { }));
+        assertThrows(ImportException.class, () -> StreamingImport.run(body("[1]"), 10,
+                StreamingImportTest::parseValue, batch -> { }));
+        assertThrows(ImportException.class, () -> StreamingImport.run(body("[] []"), 10,
+                StreamingImportTest::parseValue, batch -> { }));
+    }
+
+    @Test
+    void testBatchWriterRejection() {
+        ImportException e = assertThrows(ImportException.class, () -> StreamingImport.run(body("[{\"v\":1}]"), 10,
+                StreamingImportTest::parseValue, batch -> {
+                    throw new IllegalArgumentException("Пользователь не найден");
+                }));
+        assertEquals("Пользователь не найден", e.getMessage());
+        assertEquals(0, e.getImported());
+    }
+
+    @Test
+    void testDatabaseDataErrorIsImportError() {
+        List<Integer> values = new ArrayList<>();
+        ImportException e = assertThrows(ImportException.class, () -> StreamingImport.run(
+                body("[{\"v\":1},{\"v\":2},{\"v\":3}]"), 2, StreamingImportTest::parseValue, batch -> {
+                    if (batch.contains(3)) {
+                        throw new SQLException("нарушение внешнего ключа", "23503");
+                    }
+                    values.addAll(batch);
+                }));
+        assertEquals(2, e.getImported());
+        assertEquals(List.of(1, 2), values);
+
+        assertThrows(SQLException.class, () -> StreamingImport.run(body("[{\"v\":1}]"), 10,
+                StreamingImportTest::parseValue, batch -> {
+                    throw new SQLException("соединение разорвано", "08006");
+                }));
+    }
+
+    private static Integer parseValue(JsonParser parser) throws IOException {
+        int value = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            value = parser.getIntValue();
+        }
+        if (value < 0) {
+            throw new IllegalArgumentException("Отрицательное значение");
+        }
+        return value;
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,51 @@
+package logging;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link RateLimitedLogger}.
+ * Проверяет ограничение количества записей за окно и сообщение о пропущенных записях.
+ */
+class RateLimitedLoggerTest {
+
+    @Test
+    void testLimitsRecordsPerKey() {
+        Logger logger = mock(Logger.class);
+        RateLimitedLogger rateLimited = new RateLimitedLogger(logger, 2, 60_000);
+        RuntimeException error = new RuntimeException("boom");
+
+        assertTrue(rateLimited.error("a", "Ошибка", error));
+        assertTrue(rateLimited.error("a", "Ошибка", error));
+        assertFalse(rateLimited.error("a", "Ошибка", error));
+        assertFalse(rateLimited.warn("a", "Ошибка"));
+        assertTrue(rateLimited.warn("b", "Другая ошибка"));
+
+        verify(logger, times(2)).error("Ошибка", error);
+        verify(logger).warn("Другая ошибка");
+        assertEquals(2, rateLimited.getSuppressed());
+    }
+
+    @Test
+    void testReportsSuppressedInNextWindow() throws InterruptedException {
+        Logger logger = mock(Logger.class);
+        RateLimitedLogger rateLimited = new RateLimitedLogger(logger, 1, 50);
+
+        rateLimited.warn("db", "База данных недоступна");
+        rateLimited.warn("db", "База данных недоступна");
+        rateLimited.warn("db", "База данных недоступна");
+        Thread.sleep(80);
+        assertTrue(rateLimited.warn("db", "База данных недоступна"));
+
+        verify(logger).warn("База данных недоступна");
+        verify(logger).warn(anyString(), eq("База данных недоступна"), eq(2L));
+        verify(logger, never()).error(anyString(), any(Throwable.class));
+        assertEquals(0, rateLimited.getSuppressed());
+    }
+}
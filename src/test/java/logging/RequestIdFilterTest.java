@@ -0,0 +1,47 @@
+package logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link RequestIdFilter}.
+ * Проверяет, что идентификатор запроса доступен в MDC во время обработки и возвращается клиенту.
+ */
+class RequestIdFilterTest {
+    private final RequestIdFilter filter = new RequestIdFilter();
+    private final HttpServletRequest request = mock(HttpServletRequest.class);
+    private final HttpServletResponse response = mock(HttpServletResponse.class);
+
+    @Test
+    void testPropagatesIncomingRequestId() throws Exception {
+        when(request.getHeader(RequestIdFilter.HEADER)).thenReturn("lb-42.abc");
+        AtomicReference<String> seen = new AtomicReference<>();
+        FilterChain chain = (req, res) -> seen.set(RequestIdFilter.current());
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals("lb-42.abc", seen.get());
+        verify(response).setHeader(RequestIdFilter.HEADER, "lb-42.abc");
+        assertNull(MDC.get(RequestIdFilter.MDC_KEY));
+    }
+
+    @Test
+    void testGeneratesRequestIdForUnsafeHeader() throws Exception {
+        when(request.getHeader(RequestIdFilter.HEADER)).thenReturn("bad id\n{\"level\":\"ERROR\"}");
+        AtomicReference<String> seen = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> seen.set(RequestIdFilter.current()));
+
+        assertTrue(seen.get().matches("[0-9a-f]{32}"), seen.get());
+        verify(response).setHeader(RequestIdFilter.HEADER, seen.get());
+        assertNotEquals(RequestIdFilter.generate(), RequestIdFilter.generate());
+    }
+}
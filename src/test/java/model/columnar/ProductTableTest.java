@@ -0,0 +1,56 @@
+package model.columnar;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import model.dto.ProductDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link ProductTable}.
+ * Проверяет хранение строк, дедупликацию названий и совместимость JSON-формата с {@link ProductDto}.
+ */
+class ProductTableTest {
+
+    /**
+     * Повторяющиеся названия должны храниться в словаре один раз,
+     * а значения строк — возвращаться без изменений после роста массивов.
+     */
+    @Test
+    void testRowsAndNameDeduplication() {
+        ProductTable.Builder builder = new ProductTable.Builder(1);
+        for (int i = 0; i < 100; i++) {
+            builder.add(i + 1, i % 2 == 0 ? "Кола" : "Молоко", 150 + i, i);
+        }
+        ProductTable table = builder.build();
+
+        assertEquals(100, table.size());
+        assertEquals(2, table.distinctNames());
+        assertEquals(51, table.getId(50));
+        assertEquals("Кола", table.getName(50));
+        assertEquals(200, table.getPriceCents(50));
+        assertEquals(200, table.getPriceCents(50));
+        assertThrows(IndexOutOfBoundsException.class, () -> table.getId(100));
+    }
+
+    /**
+     * Потоковая сериализация таблицы должна давать тот же JSON, что и Gson для списка DTO.
+     */
+    @Test
+    void testWriteJsonMatchesDtoSerialization() throws Exception {
+        ProductTable table = new ProductTable.Builder()
+                .add(1, "Кола", 150, 0)
+                .add(2, "Молоко", 550, 3)
+                .build();
+        StringWriter out = new StringWriter();
+        table.writeJson(new JsonWriter(out));
+
+        String expected = new Gson().toJson(List.of(new ProductDto(1, "Кола", 150, 0),
+                new ProductDto(2, "Молоко", 550, 3)));
+        assertEquals(expected, out.toString());
+    }
+}
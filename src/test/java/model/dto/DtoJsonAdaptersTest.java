@@ -0,0 +1,71 @@
+package model.dto;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+import util.Json;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link DtoJsonAdapters}.
+ * Сравнивает вывод адаптеров без рефлексии с рефлективной сериализацией Gson,
+ * чтобы формат ответов не изменился.
+ */
+class DtoJsonAdaptersTest {
+    private final Gson reflective = new Gson();
+    private final Gson gson = Json.gson();
+
+    @Test
+    void testSerializationMatchesReflectiveGson() {
+        ProductDto product = new ProductDto(7, "Сыр \"Российский\"", 12345, 3);
+        UserDto user = new UserDto(2, "user2", "user2@example.com");
+        OrderDto order = new OrderDto(5, 2, List.of(
+                new OrderDto.ProductInfo(1, "Кола", 150),
+                new OrderDto.ProductInfo(2, null, 5)));
+        order.setProductIds(Arrays.asList(1, null, 2));
+        order.setTotalCents(155);
+
+        assertEquals(reflective.toJson(product), gson.toJson(product));
+        assertEquals(reflective.toJson(new ProductDto(1, null, -99)), gson.toJson(new ProductDto(1, null, -99)));
+        assertEquals(reflective.toJson(user), gson.toJson(user));
+        assertEquals(reflective.toJson(new UserDto()), gson.toJson(new UserDto()));
+        assertEquals(reflective.toJson(order), gson.toJson(order));
+        assertEquals(reflective.toJson(new OrderDto()), gson.toJson(new OrderDto()));
+        assertEquals(reflective.toJson(List.of(product, product)), gson.toJson(List.of(product, product)));
+    }
+
+    @Test
+    void testDeserializationMatchesReflectiveGson() {
+        String json = "{\"id\":\"5\",\"userId\":2,\"unknown\":{\"a\":[1,2]},\"productIds\":[3,1],"
+                + "\"products\":[{\"productId\":1,\"name\":\"Кола\",\"price\":\"1.5\"}],\"total\":1.50}";
+        OrderDto expected = reflective.fromJson(json, OrderDto.class);
+        OrderDto actual = gson.fromJson(json, OrderDto.class);
+
+        assertEquals(reflective.toJson(expected), gson.toJson(actual));
+        assertEquals(5, actual.getId());
+        assertEquals(List.of(3, 1), actual.getProductIds());
+        assertEquals(150, actual.getProducts().get(0).getPriceCents());
+
+        ProductDto product = gson.fromJson("{\"name\":\"Кола\",\"price\":9.9,\"version\":null}", ProductDto.class);
+        assertEquals("Кола", product.getName());
+        assertEquals(990, product.getPriceCents());
+        assertEquals(0, product.getVersion());
+
+        UserDto user = gson.fromJson("{\"username\":\"user1\",\"email\":null}", UserDto.class);
+        assertEquals("user1", user.getUsername());
+        assertNull(user.getEmail());
+        assertNull(gson.fromJson("null", UserDto.class));
+    }
+
+    @Test
+    void testMalformedInputIsRejected() {
+        assertThrows(JsonSyntaxException.class,
+                () -> gson.fromJson("{\"name\":\"Кола\",\"price\":1.999}", ProductDto.class));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("{\"id\":\"abc\"}", UserDto.class));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("{\"userId\":[1]}", OrderDto.class));
+    }
+}
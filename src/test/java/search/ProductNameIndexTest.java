@@ -0,0 +1,109 @@
+package search;
+
+import model.columnar.ProductTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link ProductNameIndex}.
+ * Проверяет поиск по префиксу, ограничение количества подсказок и обновление индекса при записи,
+ * в том числе пакетом изменений.
+ */
+class ProductNameIndexTest {
+    private ProductNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductNameIndex();
+        index.startLoading();
+        index.finishLoading(new ProductTable.Builder()
+                .add(1, "Кола", 150, 0)
+                .add(5, "Колбаса", 854, 0)
+                .add(9, "Конфеты", 250, 0)
+                .add(2, "Молоко", 550, 0)
+                .add(12, "Ёжик  в тумане", 100, 0)
+                .build());
+    }
+
+    private static List<String> names(List<ProductNameIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(ProductNameIndex.Suggestion::getName).collect(Collectors.toList());
+    }
+
+    @Test
+    void testCompleteByPrefix() {
+        assertTrue(index.isLoaded());
+        assertEquals(List.of("Кола", "Колбаса", "Конфеты"), names(index.complete("ко", 10)));
+        assertEquals(List.of("Кола", "Колбаса"), names(index.complete(" КОЛ", 10)));
+        assertEquals(List.of("Кола"), names(index.complete("ко", 1)));
+        assertEquals(List.of("Ёжик  в тумане"), names(index.complete("ежик в", 10)));
+        assertTrue(index.complete("хлеб", 10).isEmpty());
+        assertTrue(index.complete("", 10).isEmpty());
+    }
+
+    @Test
+    void testPutAndRemove() {
+        index.put(13, "Коньяк");
+        index.put(1, "Лимонад");
+        index.remove(5);
+
+        assertEquals(List.of("Конфеты", "Коньяк"), names(index.complete("ко", 10)));
+        assertEquals(1, index.complete("лим", 10).get(0).getId());
+        assertEquals(5, index.size());
+    }
+
+    /**
+     * Пакет изменений должен добавлять новые продукты и заменять названия существующих
+     * так же, как последовательные вызовы put.
+     */
+    @Test
+    void testPutAll() {
+        index.putAll(Map.of(13, "Коньяк", 5, "Ананас", 14, "Кола", 2, "Молоко"));
+
+        assertEquals(List.of("Кола", "Кола", "Конфеты", "Коньяк"), names(index.complete("ко", 10)));
+        assertEquals(List.of(1, 14), index.complete("кола", 10).stream()
+                .map(ProductNameIndex.Suggestion::getId).collect(Collectors.toList()));
+        assertEquals(5, index.complete("ана", 10).get(0).getId());
+        assertEquals(7, index.size());
+
+        index.remove(14);
+        assertEquals(List.of("Кола", "Конфеты", "Коньяк"), names(index.complete("ко", 10)));
+    }
+
+    /**
+     * Изменения, сделанные во время загрузки, не должны затираться загруженным снимком таблицы.
+     */
+    @Test
+    void testChangesDuringLoadAreKept() {
+        ProductNameIndex loading = new ProductNameIndex();
+        loading.startLoading();
+        loading.put(20, "Квас");
+        loading.remove(1);
+        loading.finishLoading(new ProductTable.Builder().add(1, "Кола", 150, 0).build());
+
+        assertEquals(List.of("Квас"), names(loading.complete("к", 10)));
+    }
+
+    /**
+     * После неудачной загрузки накопленные изменения сбрасываются: следующая загрузка
+     * берёт состояние из таблицы, а не из изменений, сделанных до неё.
+     */
+    @Test
+    void testAbortLoadingDropsChanges() {
+        ProductNameIndex loading = new ProductNameIndex();
+        loading.startLoading();
+        loading.put(20, "Квас");
+        loading.abortLoading();
+        assertFalse(loading.isLoaded());
+
+        loading.startLoading();
+        loading.finishLoading(new ProductTable.Builder().add(1, "Кола", 150, 0).build());
+
+        assertEquals(List.of("Кола"), names(loading.complete("к", 10)));
+    }
+}
@@ -0,0 +1,70 @@
+package servlet;
+
+import database.DatabaseHealth;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link HealthServlet}.
+ * Проверяет статус ответа и содержимое диагностики при доступной и недоступной базе данных.
+ */
+class HealthServletTest {
+    private HealthServlet servlet;
+    private DatabaseHealth mockDatabaseHealth;
+    private HttpServletRequest mockRequest;
+    private HttpServletResponse mockResponse;
+    private StringWriter responseWriter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servlet = new HealthServlet();
+        mockDatabaseHealth = mock(DatabaseHealth.class);
+        Field field = HealthServlet.class.getDeclaredField("databaseHealth");
+        field.setAccessible(true);
+        field.set(servlet, mockDatabaseHealth);
+        mockRequest = mock(HttpServletRequest.class);
+        mockResponse = mock(HttpServletResponse.class);
+        responseWriter = new StringWriter();
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(responseWriter));
+    }
+
+    @Test
+    void testHealthyDatabase() throws Exception {
+        DatabaseHealth.Status status = new DatabaseHealth.Status();
+        status.setReachable(true);
+        status.setLatencyMillis(2);
+        status.setCacheHitRatio(0.99);
+        status.getReplicas().add(new DatabaseHealth.Replica("replica1", 0.5));
+        when(mockDatabaseHealth.check(anyInt())).thenReturn(status);
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        String body = responseWriter.toString();
+        assertThat(body, containsString("\"status\":\"UP\""));
+        assertThat(body, containsString("\"replayLagSeconds\":0.5"));
+        assertThat(body, containsString("\"bufferCacheHitRatio\":0.99"));
+    }
+
+    @Test
+    void testUnreachableDatabase() throws Exception {
+        DatabaseHealth.Status status = new DatabaseHealth.Status();
+        status.setError("Connection refused");
+        when(mockDatabaseHealth.check(anyInt())).thenReturn(status);
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(responseWriter.toString(), containsString("\"error\":\"Connection refused\""));
+    }
+}
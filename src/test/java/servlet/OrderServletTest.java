@@ -1,23 +1,33 @@
 package servlet;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.google.gson.Gson;
 import converter.OrderConverter;
 import dao.OrderDao;
+import ingestion.OrderIngestionQueue;
+import ingestion.OrderPendingException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
 import jakarta.servlet.http.*;
+import model.dto.DtoBinaryCodec;
 import model.dto.OrderDto;
 import model.entity.Order;
 import model.entity.Product;
 import model.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import util.BinaryFormat;
 
 import java.io.*;
 import java.lang.reflect.Field;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Тестовый класс для {@link OrderServlet}, обеспечивающий проверку функциональности обработки заказов.
@@ -78,7 +88,7 @@ public class OrderServletTest {
         User user = new User(1, "Test User", "test@example.com");
         order.setUser(user);
         List<Product> products = new ArrayList<>();
-        products.add(new Product(1, "Test Product", 100.00));
+        products.add(new Product(1, "Test Product", 10000));
         order.setProducts(products);
         try {
             when(mockOrderDao.getOrderById(1)).thenReturn(order);
@@ -124,4 +134,161 @@ public class OrderServletTest {
         verify(mockPrintWriter).println("Заказ успешно создан");
         verify(mockPrintWriter).flush();
     }
-}
\ No newline at end of file
+
+    /**
+     * Тестирование повторного POST-запроса с тем же заголовком {@code Idempotency-Key}.
+     * Проверяет, что при найденном ключе сервлет возвращает исходный результат,
+     * не выполняя повторно конвертацию DTO и сохранение заказа.
+     * @throws Exception если возникают ошибки ввода-вывода или доступа к базе данных
+     */
+    @Test
+    public void testDoPostReplaysIdempotentRequest() throws Exception {
+        when(mockRequest.getHeader(OrderServlet.IDEMPOTENCY_KEY_HEADER)).thenReturn("order-key-1");
+        when(mockOrderDao.findOrderIdByIdempotencyKey("order-key-1")).thenReturn(7);
+
+        servlet.doPost(mockRequest, mockResponse);
+
+        verify(mockResponse).setHeader(OrderServlet.IDEMPOTENT_REPLAYED_HEADER, "true");
+        verify(mockResponse).setStatus(HttpServletResponse.SC_CREATED);
+        verify(mockOrderConverter, never()).convertDTOToEntity(any());
+        verify(mockOrderDao, never()).addOrder(any(), any());
+    }
+
+    /**
+     * Тестирование того, что ключ идемпотентности созданного заказа кэшируется в памяти
+     * и повторный запрос обслуживается без обращения к базе данных.
+     * @throws Exception если возникают ошибки ввода-вывода или доступа к базе данных
+     */
+    @Test
+    public void testDoPostCachesIdempotencyKey() throws Exception {
+        when(mockRequest.getHeader(OrderServlet.IDEMPOTENCY_KEY_HEADER)).thenReturn("order-key-2");
+        when(mockOrderDao.findOrderIdByIdempotencyKey("order-key-2")).thenReturn(null);
+        OrderDto orderDto = new OrderDto();
+        when(mockGson.fromJson(any(Reader.class), eq(OrderDto.class))).thenReturn(orderDto);
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader("{}")));
+        Order order = new Order();
+        when(mockOrderConverter.convertDTOToEntity(orderDto)).thenReturn(order);
+        when(mockOrderDao.addOrder(order, "order-key-2")).thenReturn(8);
+
+        servlet.doPost(mockRequest, mockResponse);
+        servlet.doPost(mockRequest, mockResponse);
+
+        verify(mockOrderDao, times(1)).addOrder(order, "order-key-2");
+        verify(mockOrderDao, times(1)).findOrderIdByIdempotencyKey("order-key-2");
+    }
+
+    /**
+     * Тестирование заказа из очереди группового приёма, который не подтверждён вовремя, но уже записывается.
+     * Клиент должен получить 202 с ключом идемпотентности, сохраняемым вместе с заказом,
+     * а повтор с этим ключом — созданный заказ без повторной записи.
+     * @throws Exception если возникают ошибки ввода-вывода или доступа к базе данных
+     */
+    @Test
+    public void testDoPostReturnsAcceptedForOrderStillBeingWritten() throws Exception {
+        OrderIngestionQueue ingestionQueue = mock(OrderIngestionQueue.class);
+        Field queueField = OrderServlet.class.getDeclaredField("ingestionQueue");
+        queueField.setAccessible(true);
+        queueField.set(servlet, ingestionQueue);
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        OrderDto orderDto = new OrderDto();
+        Order order = new Order();
+        when(mockGson.fromJson(any(Reader.class), eq(OrderDto.class))).thenReturn(orderDto);
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader("{}")));
+        when(mockOrderConverter.convertDTOToEntity(orderDto)).thenReturn(order);
+        when(ingestionQueue.submitAndAwait(eq(order), anyString(), anyLong()))
+                .thenThrow(new OrderPendingException(result));
+
+        servlet.doPost(mockRequest, mockResponse);
+
+        ArgumentCaptor<String> key = ArgumentCaptor.forClass(String.class);
+        verify(mockResponse).setStatus(HttpServletResponse.SC_ACCEPTED);
+        verify(mockResponse).setHeader(eq(OrderServlet.IDEMPOTENCY_KEY_HEADER), key.capture());
+        verify(ingestionQueue).submitAndAwait(eq(order), eq(key.getValue()), anyLong());
+
+        result.complete(42);
+        HttpServletResponse retryResponse = mock(HttpServletResponse.class);
+        when(retryResponse.getWriter()).thenReturn(mockPrintWriter);
+        when(mockRequest.getHeader(OrderServlet.IDEMPOTENCY_KEY_HEADER)).thenReturn(key.getValue());
+
+        servlet.doPost(mockRequest, retryResponse);
+
+        verify(retryResponse).setStatus(HttpServletResponse.SC_CREATED);
+        verify(retryResponse).setHeader("Location", "/orders?id=42");
+        verify(mockOrderDao, never()).addOrder(any(), any());
+        verify(ingestionQueue, times(1)).submitAndAwait(any(), anyString(), anyLong());
+    }
+
+    /**
+     * Тестирование истории заказов пользователя: полная страница должна содержать ссылку на следующую страницу.
+     */
+    @Test
+    public void testDoGetOrderHistory() throws Exception {
+        when(mockRequest.getParameter("userId")).thenReturn("1");
+        when(mockRequest.getParameter("afterId")).thenReturn("3");
+        when(mockRequest.getParameter("limit")).thenReturn("2");
+        Order first = new Order(5);
+        Order second = new Order(8);
+        when(mockOrderDao.getOrdersByUserId(1, 3, 2)).thenReturn(List.of(first, second));
+        when(mockOrderConverter.convertEntityToDto(any(Order.class))).thenReturn(new OrderDto());
+        when(mockGson.toJson((Object) any())).thenReturn("[{},{}]");
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        verify(mockResponse).setHeader("Link", "</orders?userId=1&afterId=8&limit=2>; rel=\"next\"");
+        verify(mockPrintWriter).println("[{},{}]");
+    }
+
+    /**
+     * Клиент, запросивший CBOR заголовком {@code Accept}, получает историю заказов в двоичном формате, а не JSON.
+     */
+    @Test
+    public void testDoGetOrderHistoryInCbor() throws Exception {
+        when(mockRequest.getParameter("userId")).thenReturn("1");
+        when(mockRequest.getHeader("Accept")).thenReturn("application/cbor");
+        Order order = new Order(5);
+        when(mockOrderDao.getOrdersByUserId(1, 0, OrderServlet.DEFAULT_HISTORY_LIMIT)).thenReturn(List.of(order));
+        OrderDto orderDto = new OrderDto(5, 1, List.of(new OrderDto.ProductInfo(1, "Test Product", 10000)));
+        orderDto.setTotalCents(10000);
+        when(mockOrderConverter.convertEntityToDto(order)).thenReturn(orderDto);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        when(mockResponse.getOutputStream()).thenReturn(new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                body.write(b);
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        });
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setContentType("application/cbor");
+        verify(mockResponse).setHeader("Vary", "Accept");
+        verify(mockGson, never()).toJson((Object) any());
+        try (JsonParser parser = BinaryFormat.CBOR.createParser(body.toByteArray())) {
+            List<OrderDto> orders = DtoBinaryCodec.readOrders(parser);
+            assertEquals(1, orders.size());
+            assertEquals(10000, orders.get(0).getTotalCents());
+            assertEquals("Test Product", orders.get(0).getProducts().get(0).getName());
+        }
+    }
+
+    @Test
+    public void testDoGetOrderHistoryWithInvalidLimit() throws Exception {
+        when(mockRequest.getParameter("userId")).thenReturn("1");
+        when(mockRequest.getParameter("limit")).thenReturn("0");
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(mockOrderDao, never()).getOrdersByUserId(anyInt(), anyInt(), anyInt());
+    }
+}
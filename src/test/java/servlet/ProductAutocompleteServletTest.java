@@ -0,0 +1,121 @@
+package servlet;
+
+import dao.ProductDao;
+import dao.ProductSearchCriteria;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import model.columnar.ProductTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import search.ProductNameIndex;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс тестов для {@link ProductAutocompleteServlet}.
+ * Проверяет выдачу подсказок из индекса в памяти и запасной путь через базу данных до загрузки индекса.
+ */
+public class ProductAutocompleteServletTest {
+    private ProductAutocompleteServlet servlet;
+    private ProductDao mockProductDao;
+    private ProductNameIndex nameIndex;
+    private HttpServletRequest mockRequest;
+    private HttpServletResponse mockResponse;
+    private StringWriter responseWriter;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        mockProductDao = mock(ProductDao.class);
+        nameIndex = new ProductNameIndex();
+        servlet = new ProductAutocompleteServlet();
+
+        Field daoField = ProductAutocompleteServlet.class.getDeclaredField("productDao");
+        daoField.setAccessible(true);
+        daoField.set(servlet, mockProductDao);
+
+        Field indexField = ProductAutocompleteServlet.class.getDeclaredField("nameIndex");
+        indexField.setAccessible(true);
+        indexField.set(servlet, nameIndex);
+
+        mockRequest = mock(HttpServletRequest.class);
+        mockResponse = mock(HttpServletResponse.class);
+        responseWriter = new StringWriter();
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(responseWriter));
+    }
+
+    /**
+     * После загрузки индекса подсказки выдаются из памяти без обращения к базе данных.
+     */
+    @Test
+    public void testDoGetFromIndex() throws Exception {
+        when(mockProductDao.getAllProductsTable()).thenReturn(new ProductTable.Builder()
+                .add(1, "Кола", 150, 0)
+                .add(2, "Молоко", 550, 0)
+                .build());
+        servlet.init();
+        when(mockRequest.getParameter("q")).thenReturn("ко");
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        verify(mockProductDao, never()).searchProducts(any());
+        assertEquals("[{\"id\":1,\"name\":\"Кола\"}]", responseWriter.toString().trim());
+    }
+
+    /**
+     * Пока индекс не загружен, подсказки ищутся в базе данных по префиксу.
+     */
+    @Test
+    public void testDoGetFallsBackToDatabase() throws Exception {
+        when(mockRequest.getParameter("q")).thenReturn("мол");
+        when(mockRequest.getParameter("limit")).thenReturn("5");
+        when(mockProductDao.searchProducts(any(ProductSearchCriteria.class)))
+                .thenReturn(new ProductTable.Builder().add(2, "Молоко", 550, 0).build());
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        assertEquals("[{\"id\":2,\"name\":\"Молоко\"}]", responseWriter.toString().trim());
+    }
+
+    @Test
+    public void testDoGetWithInvalidLimit() throws Exception {
+        when(mockRequest.getParameter("q")).thenReturn("ко");
+        when(mockRequest.getParameter("limit")).thenReturn("1000");
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+    }
+
+    /**
+     * Если индекс не удалось загрузить при старте, загрузка повторяется в фоне.
+     */
+    @Test
+    public void testInitRetriesFailedLoad() throws Exception {
+        when(mockProductDao.getAllProductsTable())
+                .thenThrow(new SQLException("database is down"))
+                .thenReturn(new ProductTable.Builder().add(1, "Кола", 150, 0).build());
+        try {
+            servlet.init();
+            assertFalse(nameIndex.isLoaded());
+
+            verify(mockProductDao, timeout(5000).times(2)).getAllProductsTable();
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!nameIndex.isLoaded() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(nameIndex.isLoaded());
+        } finally {
+            servlet.destroy();
+        }
+    }
+}
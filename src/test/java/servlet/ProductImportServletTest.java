@@ -0,0 +1,117 @@
+package servlet;
+
+import dao.ProductDao;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import model.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Класс тестов для {@link ProductImportServlet}.
+ * Проверяет потоковый импорт продуктов и отклонение некорректных элементов.
+ */
+public class ProductImportServletTest {
+    private ProductImportServlet servlet;
+    private ProductDao mockProductDao;
+    private HttpServletRequest mockRequest;
+    private HttpServletResponse mockResponse;
+    private StringWriter responseWriter;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        mockProductDao = mock(ProductDao.class);
+        servlet = new ProductImportServlet();
+        Field daoField = ProductImportServlet.class.getDeclaredField("productDao");
+        daoField.setAccessible(true);
+        daoField.set(servlet, mockProductDao);
+
+        mockRequest = mock(HttpServletRequest.class);
+        mockResponse = mock(HttpServletResponse.class);
+        responseWriter = new StringWriter();
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(responseWriter));
+    }
+
+    @Test
+    public void testImportProducts() throws Exception {
+        setBody("[{\"name\":\"Кола\",\"price\":1.50},{\"id\":99,\"name\":\"Сыр\",\"price\":\"250\",\"extra\":[1]}]");
+        // Пакет переиспользуется после записи, поэтому его содержимое копируется в момент вызова.
+        List<Product> imported = new ArrayList<>();
+        doAnswer(invocation -> {
+            imported.addAll(invocation.getArgument(0));
+            return new int[0];
+        }).when(mockProductDao).addProducts(anyList());
+
+        servlet.doPost(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        assertEquals("{\"imported\":2}", responseWriter.toString().trim());
+        assertEquals(2, imported.size());
+        assertEquals("Кола", imported.get(0).getName());
+        assertEquals(150, imported.get(0).getPriceCents());
+        assertEquals(25000, imported.get(1).getPriceCents());
+    }
+
+    @Test
+    public void testRejectsInvalidProduct() throws Exception {
+        setBody("[{\"name\":\"Кола\",\"price\":1.50},{\"name\":\" \",\"price\":1}]");
+
+        servlet.doPost(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(mockProductDao, never()).addProducts(anyList());
+        assertEquals("{\"imported\":0,\"error\":\"Элемент 1: Не указано название продукта\"}",
+                responseWriter.toString().trim());
+    }
+
+    @Test
+    public void testDatabaseDataErrorReturnsImportedCount() throws Exception {
+        setBody("[{\"name\":\"Кола\",\"price\":1.50}]");
+        when(mockProductDao.addProducts(anyList())).thenThrow(new SQLException("повторяющееся значение", "23505"));
+
+        servlet.doPost(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        assertEquals("{\"imported\":0,\"error\":\"Данные отклонены базой данных: повторяющееся значение\"}",
+                responseWriter.toString().trim());
+    }
+
+    private void setBody(String json) throws Exception {
+        ByteArrayInputStream in = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+        when(mockRequest.getInputStream()).thenReturn(new ServletInputStream() {
+            @Override
+            public int read() {
+                return in.read();
+            }
+
+            @Override
+            public boolean isFinished() {
+                return in.available() == 0;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+        });
+    }
+}
@@ -7,10 +7,14 @@ import static org.mockito.Mockito.*;
 
 import com.google.gson.Gson;
 import dao.ProductDao;
+import dao.ProductSearchCriteria;
+import database.DatabaseUnavailableException;
 import jakarta.servlet.http.*;
+import model.columnar.ProductTable;
 import model.dto.ProductDto;
 import model.entity.Product;
 import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
 
 import java.io.*;
 import java.lang.reflect.Field;
@@ -63,13 +67,13 @@ public class ProductServletTest {
     @Test
     public void testDoGetSingleProduct() throws Exception {
         when(mockRequest.getParameter("id")).thenReturn("1");
-        Product mockProduct = new Product(1, "Test Product", 100.0);
+        Product mockProduct = new Product(1, "Test Product", 10000);
         when(mockProductDao.getProductById(1)).thenReturn(mockProduct);
 
         servlet.doGet(mockRequest, mockResponse);
 
         verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
-        assertEquals(gson.toJson(new ProductDto(1, "Test Product", 100.0)), responseWriter.toString().trim());
+        assertEquals(gson.toJson(new ProductDto(1, "Test Product", 10000)), responseWriter.toString().trim());
     }
 
     /**
@@ -80,31 +84,77 @@ public class ProductServletTest {
     @Test
     public void testDoGetAllProducts() throws Exception {
         when(mockRequest.getParameter("id")).thenReturn(null);
-        List<Product> products = List.of(new Product(1, "Test Product", 100.0));
-        when(mockProductDao.getAllProducts()).thenReturn(products);
+        ProductTable products = new ProductTable.Builder().add(1, "Test Product", 10000, 0).build();
+        when(mockProductDao.getAllProductsTable()).thenReturn(products);
 
         servlet.doGet(mockRequest, mockResponse);
 
         verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
         assertThat(responseWriter.toString().trim(), containsString("Test Product"));
+        assertEquals(gson.toJson(List.of(new ProductDto(1, "Test Product", 10000))), responseWriter.toString().trim());
+    }
+
+    /**
+     * Тестирует поиск продуктов: параметры строки запроса передаются в DAO, а результаты возвращаются списком.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoGetSearchProducts() throws Exception {
+        when(mockRequest.getParameter("q")).thenReturn("кол");
+        when(mockRequest.getParameter("mode")).thenReturn("fuzzy");
+        when(mockRequest.getParameter("maxPrice")).thenReturn("2.50");
+        when(mockRequest.getParameter("limit")).thenReturn("5");
+        ProductTable products = new ProductTable.Builder().add(1, "Кола", 150, 0).build();
+        ArgumentCaptor<ProductSearchCriteria> criteria = ArgumentCaptor.forClass(ProductSearchCriteria.class);
+        when(mockProductDao.searchProducts(criteria.capture())).thenReturn(products);
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        verify(mockProductDao, never()).getAllProductsTable();
+        assertEquals("кол", criteria.getValue().getQuery());
+        assertEquals(ProductSearchCriteria.Mode.FUZZY, criteria.getValue().getMode());
+        assertEquals(Long.valueOf(250), criteria.getValue().getMaxPriceCents());
+        assertEquals(5, criteria.getValue().getLimit());
+        assertEquals(gson.toJson(List.of(new ProductDto(1, "Кола", 150))), responseWriter.toString().trim());
+    }
+
+    /**
+     * Тестирует, что некорректные параметры поиска отклоняются с кодом 400 без обращения к базе данных.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoGetSearchProductsWithInvalidLimit() throws Exception {
+        when(mockRequest.getParameter("q")).thenReturn("кол");
+        when(mockRequest.getParameter("limit")).thenReturn("1000");
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verify(mockProductDao, never()).searchProducts(any());
     }
 
     /**
      * Тестирует добавление нового продукта через POST запрос.
-     * Проверяет, что сервлет корректно обрабатывает входные данные и устанавливает статус CREATED после добавления продукта.
+     * Проверяет, что сервлет корректно обрабатывает входные данные, устанавливает статус CREATED после добавления продукта
+     * и возвращает созданный продукт с идентификатором и ссылкой на него в заголовке Location.
      * @throws Exception если возникнут ошибки ввода/вывода.
      */
     @Test
     public void testDoPost() throws Exception {
-        ProductDto newProduct = new ProductDto(0, "New Product", 150.0);
+        ProductDto newProduct = new ProductDto(0, "New Product", 15000);
         String jsonInput = gson.toJson(newProduct);
         BufferedReader reader = new BufferedReader(new StringReader(jsonInput));
         when(mockRequest.getReader()).thenReturn(reader);
+        when(mockRequest.getContextPath()).thenReturn("/app");
+        when(mockProductDao.addProduct(any(Product.class))).thenReturn(new Product(42, "New Product", 15000));
 
         servlet.doPost(mockRequest, mockResponse);
 
         verify(mockProductDao).addProduct(any(Product.class));
         verify(mockResponse).setStatus(HttpServletResponse.SC_CREATED);
+        verify(mockResponse).setHeader("Location", "/app/products?id=42");
+        assertEquals(gson.toJson(new ProductDto(42, "New Product", 15000)), responseWriter.toString().trim());
     }
 
     /**
@@ -114,7 +164,7 @@ public class ProductServletTest {
      */
     @Test
     public void testDoPut() throws Exception {
-        ProductDto productDto = new ProductDto(1, "Updated Product", 150.0);
+        ProductDto productDto = new ProductDto(1, "Updated Product", 15000);
         String jsonInput = gson.toJson(productDto);
         BufferedReader reader = new BufferedReader(new StringReader(jsonInput));
         when(mockRequest.getReader()).thenReturn(reader);
@@ -125,6 +175,90 @@ public class ProductServletTest {
         verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
     }
 
+    /**
+     * Тестирует условное обновление продукта через PUT запрос с заголовком If-Match.
+     * Проверяет, что при совпадении версии продукт обновляется и возвращается новый ETag.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoPutWithMatchingVersion() throws Exception {
+        ProductDto productDto = new ProductDto(1, "Updated Product", 15000);
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader(gson.toJson(productDto))));
+        when(mockRequest.getHeader("If-Match")).thenReturn("\"3\"");
+        when(mockProductDao.updateProduct(any(Product.class), eq(3))).thenReturn(true);
+
+        servlet.doPut(mockRequest, mockResponse);
+
+        verify(mockProductDao, never()).updateProduct(any(Product.class));
+        verify(mockResponse).setHeader("ETag", "\"4\"");
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+    }
+
+    /**
+     * Тестирует условное обновление продукта, версия которого уже изменилась.
+     * Проверяет, что сервлет возвращает статус PRECONDITION_FAILED и актуальный ETag.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoPutWithStaleVersion() throws Exception {
+        ProductDto productDto = new ProductDto(1, "Updated Product", 15000);
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader(gson.toJson(productDto))));
+        when(mockRequest.getHeader("If-Match")).thenReturn("\"3\"");
+        when(mockProductDao.updateProduct(any(Product.class), eq(3))).thenReturn(false);
+        when(mockProductDao.getProductById(1)).thenReturn(new Product(1, "Concurrent Product", 12000, 5));
+
+        servlet.doPut(mockRequest, mockResponse);
+
+        verify(mockResponse).setHeader("ETag", "\"5\"");
+        verify(mockResponse).setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+    }
+
+    /**
+     * Тестирует условное обновление со слабым ETag.
+     * Проверяет, что If-Match сравнивает версии строго и слабый ETag не совпадает даже с текущей версией.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoPutWithWeakETag() throws Exception {
+        ProductDto productDto = new ProductDto(1, "Updated Product", 15000);
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader(gson.toJson(productDto))));
+        when(mockRequest.getHeader("If-Match")).thenReturn("W/\"3\"");
+        when(mockProductDao.getProductById(1)).thenReturn(new Product(1, "Test Product", 10000, 3));
+
+        servlet.doPut(mockRequest, mockResponse);
+
+        verify(mockProductDao, never()).updateProduct(any(Product.class), anyInt());
+        verify(mockProductDao, never()).updateProduct(any(Product.class));
+        verify(mockResponse).setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+    }
+
+    /**
+     * Тестирует условное обновление с {@code If-Match: *}.
+     * Проверяет, что существующий продукт обновляется при любой версии, а отсутствующий даёт PRECONDITION_FAILED.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoPutWithAnyETag() throws Exception {
+        ProductDto productDto = new ProductDto(1, "Updated Product", 15000);
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader(gson.toJson(productDto))));
+        when(mockRequest.getHeader("If-Match")).thenReturn("*");
+        when(mockProductDao.updateProduct(any(Product.class))).thenReturn(7);
+
+        servlet.doPut(mockRequest, mockResponse);
+
+        verify(mockResponse).setHeader("ETag", "\"7\"");
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+
+        HttpServletResponse missingResponse = mock(HttpServletResponse.class);
+        when(missingResponse.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader(gson.toJson(productDto))));
+        when(mockProductDao.updateProduct(any(Product.class))).thenReturn(null);
+
+        servlet.doPut(mockRequest, missingResponse);
+
+        verify(missingResponse).setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+    }
+
     /**
      * Тестирует удаление продукта по ID через DELETE запрос.
      * Проверяет, что сервлет корректно обрабатывает удаление и устанавливает соответствующий статус ответа.
@@ -155,4 +289,59 @@ public class ProductServletTest {
 
         verify(mockResponse).setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
     }
+
+    /**
+     * Тестирует ответ при недоступной базе данных.
+     * Проверяет, что сервлет возвращает статус SERVICE_UNAVAILABLE с заголовком Retry-After вместо внутренней ошибки.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoGetWithDatabaseUnavailable() throws Exception {
+        when(mockRequest.getParameter("id")).thenReturn("1");
+        when(mockProductDao.getProductById(1)).thenThrow(new DatabaseUnavailableException("База данных недоступна"));
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(mockResponse).setHeader(eq("Retry-After"), anyString());
+    }
+
+    /**
+     * Тестирует частичное обновление продукта через PATCH запрос, не меняющее данных.
+     * Проверяет, что сервлет сообщает об отсутствии изменений и возвращает статус OK.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoPatchWithoutChanges() throws Exception {
+        when(mockRequest.getMethod()).thenReturn("PATCH");
+        when(mockRequest.getParameter("id")).thenReturn("1");
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader("{\"price\":100.0}")));
+        when(mockProductDao.patchProduct(1, null, 10000L)).thenReturn(null);
+        when(mockProductDao.getProductById(1)).thenReturn(new Product(1, "Test Product", 10000, 2));
+
+        servlet.service(mockRequest, mockResponse);
+
+        verify(mockProductDao).patchProduct(1, null, 10000L);
+        verify(mockResponse).setHeader("ETag", "\"2\"");
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        assertEquals("Данные продукта не изменились", responseWriter.toString().trim());
+    }
+
+    /**
+     * Тестирует частичное обновление продукта через PATCH запрос.
+     * Проверяет, что сервлет возвращает новую версию в заголовке ETag для следующего условного обновления.
+     * @throws Exception если возникнут ошибки ввода/вывода.
+     */
+    @Test
+    public void testDoPatchReturnsETag() throws Exception {
+        when(mockRequest.getMethod()).thenReturn("PATCH");
+        when(mockRequest.getParameter("id")).thenReturn("1");
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader("{\"name\":\"Новое\"}")));
+        when(mockProductDao.patchProduct(1, "Новое", null)).thenReturn(4);
+
+        servlet.service(mockRequest, mockResponse);
+
+        verify(mockResponse).setHeader("ETag", "\"4\"");
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+    }
 }
\ No newline at end of file
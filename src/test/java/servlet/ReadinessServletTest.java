@@ -0,0 +1,55 @@
+package servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import startup.WarmUp;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Тестовый класс для {@link ReadinessServlet}.
+ * Проверяет, что готовность сообщается только после завершения прогрева.
+ */
+class ReadinessServletTest {
+    private ReadinessServlet servlet;
+    private WarmUp mockWarmUp;
+    private HttpServletRequest mockRequest;
+    private HttpServletResponse mockResponse;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        servlet = new ReadinessServlet();
+        mockWarmUp = mock(WarmUp.class);
+        Field warmUpField = ReadinessServlet.class.getDeclaredField("warmUp");
+        warmUpField.setAccessible(true);
+        warmUpField.set(servlet, mockWarmUp);
+        mockRequest = mock(HttpServletRequest.class);
+        mockResponse = mock(HttpServletResponse.class);
+        when(mockResponse.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+    }
+
+    @Test
+    void testNotReadyWhileWarmingUp() throws Exception {
+        when(mockWarmUp.isReady()).thenReturn(false);
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(mockResponse).setHeader("Retry-After", "1");
+    }
+
+    @Test
+    void testReadyAfterWarmUp() throws Exception {
+        when(mockWarmUp.isReady()).thenReturn(true);
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+    }
+}
@@ -8,12 +8,14 @@ import static org.mockito.Mockito.*;
 import com.google.gson.Gson;
 import dao.UserDao;
 import jakarta.servlet.http.*;
+import model.columnar.UserTable;
 import model.dto.UserDto;
 import model.entity.User;
 import org.junit.jupiter.api.*;
 
 import java.io.*;
 import java.lang.reflect.Field;
+import java.sql.SQLException;
 import java.util.List;
 
 /**
@@ -80,18 +82,20 @@ class UserServletTest {
     @Test
     void testDoGetAllUsers() throws Exception {
         when(mockRequest.getParameter("id")).thenReturn(null);
-        List<User> users = List.of(new User(1, "testUser", "test@example.com"));
-        when(mockUserDao.getAllUsers()).thenReturn(users);
+        UserTable users = new UserTable.Builder().add(1, "testUser", "test@example.com").build();
+        when(mockUserDao.getAllUsersTable()).thenReturn(users);
 
         servlet.doGet(mockRequest, mockResponse);
 
         verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
         assertThat(responseWriter.toString(), containsString("testUser"));
+        assertEquals(gson.toJson(List.of(new UserDto(1, "testUser", "test@example.com"))), responseWriter.toString().trim());
     }
 
     /**
      * Тестирует метод doPost для добавления нового пользователя.
-     * Проверяет, что пользователь добавляется в базу данных и сервлет устанавливает статус CREATED.
+     * Проверяет, что пользователь добавляется в базу данных, сервлет устанавливает статус CREATED
+     * и возвращает созданного пользователя с идентификатором и ссылкой на него в заголовке Location.
      * @throws Exception если возникают исключения в процессе выполнения.
      */
     @Test
@@ -99,11 +103,67 @@ class UserServletTest {
         UserDto newUser = new UserDto(0, "newUser", "new@example.com");
         String json = gson.toJson(newUser);
         when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader(json)));
+        when(mockUserDao.addUser(any(User.class))).thenReturn(new User(10, "newUser", "new@example.com"));
 
         servlet.doPost(mockRequest, mockResponse);
 
         verify(mockUserDao).addUser(any(User.class));
         verify(mockResponse).setStatus(HttpServletResponse.SC_CREATED);
+        verify(mockResponse).setHeader("Location", "/users?id=10");
+        assertEquals(gson.toJson(new UserDto(10, "newUser", "new@example.com")), responseWriter.toString().trim());
+    }
+
+    /**
+     * Тестирует, что попытка создать пользователя с занятым email отклоняется с кодом 409.
+     * @throws Exception если возникают исключения в процессе выполнения.
+     */
+    @Test
+    void testDoPostDuplicateEmail() throws Exception {
+        String json = gson.toJson(new UserDto(0, "newUser", "taken@example.com"));
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader(json)));
+        when(mockUserDao.addUser(any(User.class)))
+                .thenThrow(new SQLException("duplicate key", UserDao.UNIQUE_VIOLATION));
+
+        servlet.doPost(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_CONFLICT);
+    }
+
+    /**
+     * Тестирует поиск одного пользователя по email и пакетный поиск по списку адресов.
+     * @throws Exception если возникают исключения в процессе выполнения.
+     */
+    @Test
+    void testDoGetByEmail() throws Exception {
+        when(mockRequest.getParameter("email")).thenReturn("test@example.com");
+        when(mockUserDao.getUserByEmail("test@example.com")).thenReturn(new User(1, "testUser", "test@example.com"));
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        verify(mockUserDao, never()).getAllUsersTable();
+        assertEquals(gson.toJson(new UserDto(1, "testUser", "test@example.com")), responseWriter.toString().trim());
+    }
+
+    @Test
+    void testDoGetByUsernameNotFound() throws Exception {
+        when(mockRequest.getParameter("username")).thenReturn("ghost");
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    @Test
+    void testDoGetByEmails() throws Exception {
+        when(mockRequest.getParameter("emails")).thenReturn("a@example.com, b@example.com,");
+        when(mockUserDao.getUsersByEmails(List.of("a@example.com", "b@example.com")))
+                .thenReturn(List.of(new User(1, "a", "a@example.com")));
+
+        servlet.doGet(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        assertEquals(gson.toJson(List.of(new UserDto(1, "a", "a@example.com"))), responseWriter.toString().trim());
     }
 
     /**
@@ -137,4 +197,54 @@ class UserServletTest {
         verify(mockUserDao).deleteUser(1);
         verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
     }
+
+    /**
+     * Тестирует метод doPatch для частичного обновления пользователя.
+     * Проверяет, что PATCH диспетчеризуется в doPatch, а в DAO передаются только полученные поля.
+     * @throws Exception если возникают исключения в процессе выполнения.
+     */
+    @Test
+    void testDoPatchUpdatesOnlySuppliedFields() throws Exception {
+        when(mockRequest.getMethod()).thenReturn("PATCH");
+        when(mockRequest.getParameter("id")).thenReturn("1");
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader("{\"email\":\"patched@example.com\"}")));
+        when(mockUserDao.patchUser(1, null, "patched@example.com")).thenReturn(true);
+
+        servlet.service(mockRequest, mockResponse);
+
+        verify(mockUserDao).patchUser(1, null, "patched@example.com");
+        verify(mockResponse).setStatus(HttpServletResponse.SC_OK);
+        assertEquals("Пользователь успешно обновлен", responseWriter.toString().trim());
+    }
+
+    /**
+     * Тестирует метод doPatch для несуществующего пользователя.
+     * Проверяет, что при отсутствии изменённых строк и пользователя сервлет возвращает статус NOT_FOUND.
+     * @throws Exception если возникают исключения в процессе выполнения.
+     */
+    @Test
+    void testDoPatchMissingUser() throws Exception {
+        when(mockRequest.getParameter("id")).thenReturn("99");
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader("{\"username\":\"ghost\"}")));
+
+        servlet.doPatch(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_NOT_FOUND);
+    }
+
+    /**
+     * Тестирует метод doPatch с явным значением null в поле.
+     * Проверяет, что запрос отклоняется со статусом BAD_REQUEST без обращения к базе данных.
+     * @throws Exception если возникают исключения в процессе выполнения.
+     */
+    @Test
+    void testDoPatchRejectsNullField() throws Exception {
+        when(mockRequest.getParameter("id")).thenReturn("1");
+        when(mockRequest.getReader()).thenReturn(new BufferedReader(new StringReader("{\"username\":null}")));
+
+        servlet.doPatch(mockRequest, mockResponse);
+
+        verify(mockResponse).setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        verifyNoInteractions(mockUserDao);
+    }
 }
\ No newline at end of file
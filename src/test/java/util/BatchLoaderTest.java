@@ -0,0 +1,118 @@
+package util;
+
+import database.DatabaseUnavailableException;
+import database.QueryContext;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link BatchLoader}.
+ * Проверяет объединение одиночных запросов из разных потоков в пакеты, распространение ошибок
+ * и ограничение ожидания и выполнения пакета сроком запроса.
+ */
+class BatchLoaderTest {
+
+    @Test
+    void testConcurrentLoadsAreBatched() throws Exception {
+        List<Collection<Integer>> calls = new CopyOnWriteArrayList<>();
+        int callers = 20;
+        try (BatchLoader<Integer, String> loader = new BatchLoader<>("test.batch", keys -> {
+            calls.add(new ArrayList<>(keys));
+            Map<Integer, String> values = new HashMap<>();
+            for (Integer key : keys) {
+                if (key % 5 != 0) {
+                    values.put(key, "value-" + key);
+                }
+            }
+            return values;
+        }, 50, TimeUnit.MILLISECONDS.toMicros(200), 2)) {
+            ExecutorService executor = Executors.newFixedThreadPool(callers);
+            try {
+                List<Future<String>> results = new ArrayList<>();
+                for (int i = 0; i < callers; i++) {
+                    int key = i % 10;
+                    results.add(executor.submit(() -> loader.load(key)));
+                }
+                for (int i = 0; i < callers; i++) {
+                    int key = i % 10;
+                    assertEquals(key % 5 == 0 ? null : "value-" + key, results.get(i).get(5, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(callers, loader.getKeys());
+            assertTrue(loader.getBatches() < callers, "Запросы должны объединяться в пакеты");
+            for (Collection<Integer> call : calls) {
+                assertEquals(call.size(), call.stream().distinct().count(), "Ключи пакета не должны повторяться");
+            }
+        }
+    }
+
+    @Test
+    void testBatchErrorIsPropagated() throws Exception {
+        try (BatchLoader<Integer, String> loader = new BatchLoader<>("test.error", keys -> {
+            throw new SQLException("boom", "08006");
+        }, 10, 100, 1)) {
+            SQLException error = assertThrows(SQLException.class, () -> loader.load(1));
+            assertEquals("08006", error.getSQLState());
+        }
+    }
+
+    @Test
+    void testUnavailableDatabaseErrorKeepsItsType() throws Exception {
+        try (BatchLoader<Integer, String> loader = new BatchLoader<>("test.unavailable", keys -> {
+            throw new DatabaseUnavailableException("down");
+        }, 10, 100, 1)) {
+            assertThrows(DatabaseUnavailableException.class, () -> loader.load(1));
+        }
+    }
+
+    @Test
+    void testLoadIsBoundedByQueryContextDeadline() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger batchTimeout = new AtomicInteger(-1);
+        try (BatchLoader<Integer, String> loader = new BatchLoader<>("test.deadline", keys -> {
+            batchTimeout.set(QueryContext.current().getTimeoutSeconds());
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        }, 10, 100, 1);
+             QueryContext ignored = QueryContext.open(1)) {
+            long start = System.nanoTime();
+            SQLException error = assertThrows(SQLException.class, () -> loader.load(1));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(QueryContext.QUERY_CANCELED, error.getSQLState());
+            assertTrue(elapsedMillis < 3000, "Ожидание должно завершиться по сроку запроса: " + elapsedMillis);
+            assertEquals(1, batchTimeout.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testClosedLoaderRejectsLoads() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>("test.closed", keys -> Map.of(), 10, 100, 1);
+        loader.close();
+        assertThrows(SQLException.class, () -> loader.load(1));
+        assertFalse(BatchLoader.all().contains(loader));
+    }
+}
@@ -0,0 +1,76 @@
+package util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import model.dto.DtoBinaryCodec;
+import model.dto.OrderDto;
+import model.dto.ProductDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link BinaryFormat} и {@link DtoBinaryCodec}.
+ * Проверяет выбор формата по заголовку Accept и кодирование DTO без потери данных.
+ */
+class BinaryFormatTest {
+
+    @Test
+    void testNegotiate() {
+        assertNull(BinaryFormat.negotiate(null));
+        assertNull(BinaryFormat.negotiate("*/*"));
+        assertNull(BinaryFormat.negotiate("application/json"));
+        assertEquals(BinaryFormat.CBOR, BinaryFormat.negotiate("application/cbor"));
+        assertEquals(BinaryFormat.SMILE, BinaryFormat.negotiate("Application/X-Jackson-Smile, */*;q=0.1"));
+        assertEquals(BinaryFormat.CBOR, BinaryFormat.negotiate("application/cbor, */*"));
+        assertEquals(BinaryFormat.SMILE,
+                BinaryFormat.negotiate("application/cbor;q=0.5, application/x-jackson-smile;q=0.8"));
+        assertEquals(BinaryFormat.CBOR, BinaryFormat.negotiate("application/json;q=0.5, application/cbor"));
+        assertNull(BinaryFormat.negotiate("application/json, application/cbor"));
+        assertNull(BinaryFormat.negotiate("application/cbor;q=0"));
+        assertNull(BinaryFormat.negotiate("application/cbor;q=abc"));
+        assertNull(BinaryFormat.negotiate("application/cbor;q=0.5, */*"));
+    }
+
+    @Test
+    void testOrderRoundTrip() throws IOException {
+        OrderDto order = new OrderDto(5, 2, List.of(
+                new OrderDto.ProductInfo(1, "Кола", 150),
+                new OrderDto.ProductInfo(2, "Сыр", 99_999_999_99L)));
+        order.setProductIds(List.of(1, 2));
+        order.setTotalCents(150 + 99_999_999_99L);
+
+        for (BinaryFormat format : BinaryFormat.values()) {
+            byte[] data = encode(format, generator -> DtoBinaryCodec.writeOrders(generator, List.of(order, order)));
+            try (JsonParser parser = format.createParser(data)) {
+                List<OrderDto> decoded = DtoBinaryCodec.readOrders(parser);
+                assertEquals(2, decoded.size());
+                assertEquals(Json.gson().toJson(order), Json.gson().toJson(decoded.get(1)), format.name());
+            }
+            assertTrue(data.length < Json.gson().toJson(List.of(order, order)).getBytes().length, format.name());
+        }
+    }
+
+    @Test
+    void testProductRoundTrip() throws IOException {
+        ProductDto product = new ProductDto(7, "Кола", -5, 3);
+        for (BinaryFormat format : BinaryFormat.values()) {
+            byte[] data = encode(format, generator -> DtoBinaryCodec.writeProduct(generator, product));
+            try (JsonParser parser = format.createParser(data)) {
+                assertEquals(Json.gson().toJson(product), Json.gson().toJson(DtoBinaryCodec.readProduct(parser)));
+            }
+        }
+    }
+
+    private static byte[] encode(BinaryFormat format, ServletUtils.BinaryBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = format.createGenerator(out)) {
+            body.write(generator);
+        }
+        return out.toByteArray();
+    }
+}
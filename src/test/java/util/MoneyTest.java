@@ -0,0 +1,54 @@
+package util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import model.dto.ProductDto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link Money} и {@link MoneyAdapter}.
+ * Проверяет точный разбор и форматирование сумм в копейках.
+ */
+class MoneyTest {
+
+    @Test
+    void testParse() {
+        assertEquals(1000, Money.parse("10"));
+        assertEquals(990, Money.parse("9.9"));
+        assertEquals(150, Money.parse("1.50"));
+        assertEquals(-99, Money.parse("-0.99"));
+        assertEquals(150, Money.parse("1.500"));
+        assertEquals(15000, Money.parse("1.5E2"));
+    }
+
+    @Test
+    void testParseRejectsInexactValues() {
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.999"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("1.5E-3"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse("abc"));
+        assertThrows(IllegalArgumentException.class, () -> Money.parse(""));
+    }
+
+    @Test
+    void testFormat() {
+        assertEquals("1.50", Money.format(150));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-0.99", Money.format(-99));
+        assertEquals("0.30", Money.format(Money.parse("0.10") + Money.parse("0.20")));
+    }
+
+    /**
+     * Цена сериализуется как десятичное число с двумя знаками и разбирается обратно без потерь.
+     */
+    @Test
+    void testJsonRoundTrip() {
+        Gson gson = new Gson();
+        String json = gson.toJson(new ProductDto(1, "Кола", 150));
+        assertTrue(json.contains("\"price\":1.50"), json);
+        assertEquals(150, gson.fromJson(json, ProductDto.class).getPriceCents());
+        assertThrows(JsonSyntaxException.class,
+                () -> gson.fromJson("{\"name\":\"Кола\",\"price\":1.999}", ProductDto.class));
+    }
+}
@@ -0,0 +1,202 @@
+package util;
+
+import database.DatabaseUnavailableException;
+import database.QueryContext;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тестовый класс для {@link SingleFlight}.
+ * Проверяет, что одновременные вызовы по одному ключу выполняют одну загрузку и получают общий результат или ошибку,
+ * что присоединившиеся вызовы получают копии значения и что после {@link SingleFlight#forget(Object)}
+ * новые вызовы не присоединяются к прежней загрузке, а также ожидание присоединившихся вызовов в пределах их срока.
+ */
+class SingleFlightTest {
+
+    @Test
+    void testConcurrentCallsAreCollapsed() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test.collapse");
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1, () -> {
+                    loads.incrementAndGet();
+                    awaitUninterruptibly(release);
+                    return "value";
+                })));
+            }
+            while (singleFlight.getExecutions() + singleFlight.getCollapsed() < callers) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, singleFlight.getExecutions());
+        assertEquals(callers - 1, singleFlight.getCollapsed());
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void testErrorIsSharedAndNotCached() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test.error");
+        SQLException error = new SQLException("boom", "08006");
+
+        SQLException thrown = assertThrows(SQLException.class, () -> singleFlight.execute(1, () -> {
+            throw error;
+        }));
+        assertSame(error, thrown);
+        assertEquals("ok", singleFlight.execute(1, () -> "ok"));
+        assertEquals(2, singleFlight.getExecutions());
+        assertTrue(SingleFlight.all().contains(singleFlight));
+    }
+
+    @Test
+    void testForgetStartsNewLoadAndJoinersGetCopies() throws Exception {
+        SingleFlight<Integer, StringBuilder> singleFlight = new SingleFlight<>("test.forget", StringBuilder::new);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringBuilder stale = new StringBuilder("before write");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<StringBuilder> owner = executor.submit(() -> singleFlight.execute(1, () -> {
+                started.countDown();
+                awaitUninterruptibly(release);
+                return stale;
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<StringBuilder> joiner = executor.submit(() -> singleFlight.execute(1, () -> {
+                throw new AssertionError("joiner must not load");
+            }));
+            while (singleFlight.getCollapsed() < 1) {
+                Thread.sleep(5);
+            }
+
+            singleFlight.forget(1);
+            assertEquals("after write", singleFlight.execute(1, () -> new StringBuilder("after write")).toString());
+
+            release.countDown();
+            assertSame(stale, owner.get(5, TimeUnit.SECONDS));
+            StringBuilder joined = joiner.get(5, TimeUnit.SECONDS);
+            assertNotSame(stale, joined);
+            assertEquals("before write", joined.toString());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, singleFlight.getInFlight());
+    }
+
+    @Test
+    void testJoinerGetsOriginalExceptionType() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test.unavailable");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> owner = executor.submit(() -> singleFlight.execute(1, () -> {
+                started.countDown();
+                awaitUninterruptibly(release);
+                throw new DatabaseUnavailableException("down");
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> joiner = executor.submit(() -> singleFlight.execute(1, () -> "unused"));
+            while (singleFlight.getCollapsed() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            ExecutionException ownerError = assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS));
+            ExecutionException joinerError = assertThrows(ExecutionException.class, () -> joiner.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(DatabaseUnavailableException.class, ownerError.getCause());
+            assertInstanceOf(DatabaseUnavailableException.class, joinerError.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testJoinerWaitIsBoundedByOwnDeadline() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test.joinerDeadline");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> owner = executor.submit(() -> singleFlight.execute(1, () -> {
+                started.countDown();
+                awaitUninterruptibly(release);
+                return "slow";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            long start = System.nanoTime();
+            try (QueryContext ignored = QueryContext.open(1)) {
+                SQLException error = assertThrows(SQLException.class, () -> singleFlight.execute(1, () -> "unused"));
+                assertEquals(QueryContext.QUERY_CANCELED, error.getSQLState());
+            }
+            assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) < 3,
+                    "Присоединившийся вызов не должен ждать дольше своего срока");
+            assertFalse(owner.isDone());
+            release.countDown();
+            assertEquals("slow", owner.get(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testJoinerRetriesWhenOwnerQueryIsCancelled() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>("test.ownerCancelled");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> owner = executor.submit(() -> singleFlight.execute(1, () -> {
+                started.countDown();
+                awaitUninterruptibly(release);
+                throw new SQLException("canceling statement due to user request", QueryContext.QUERY_CANCELED);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<String> joiner = executor.submit(() -> singleFlight.execute(1, () -> "reloaded"));
+            while (singleFlight.getCollapsed() < 1) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            ExecutionException ownerError = assertThrows(ExecutionException.class, () -> owner.get(5, TimeUnit.SECONDS));
+            assertEquals(QueryContext.QUERY_CANCELED, ((SQLException) ownerError.getCause()).getSQLState());
+            assertEquals("reloaded", joiner.get(5, TimeUnit.SECONDS));
+            assertEquals(2, singleFlight.getExecutions());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
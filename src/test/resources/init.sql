@@ -1,6 +1,7 @@
 CREATE SCHEMA IF NOT EXISTS public;
 SET search_path TO public;
 
+DROP TABLE IF EXISTS public.idempotency_keys CASCADE;
 DROP TABLE IF EXISTS public.order_products CASCADE;
 DROP TABLE IF EXISTS public.orders CASCADE;
 DROP TABLE IF EXISTS public.products CASCADE;
@@ -13,23 +14,34 @@ CREATE TABLE users
     email    VARCHAR(255) NOT NULL
 );
 
+CREATE UNIQUE INDEX users_username_key ON users (username);
+CREATE UNIQUE INDEX users_email_lower_key ON users (lower(email));
+
 CREATE TABLE products
 (
-    id    SERIAL PRIMARY KEY,
-    name  VARCHAR(255)   NOT NULL,
-    price NUMERIC(10, 2) NOT NULL
+    id      SERIAL PRIMARY KEY,
+    name    VARCHAR(255)   NOT NULL,
+    price   NUMERIC(10, 2) NOT NULL,
+    version INT            NOT NULL DEFAULT 0
 );
 CREATE TABLE orders
 (
     id      SERIAL PRIMARY KEY,
     user_id INT NOT NULL REFERENCES public.users (id)
 );
+CREATE INDEX orders_user_id_id_idx ON orders (user_id, id);
 CREATE TABLE order_products
 (
     order_id   INT NOT NULL REFERENCES public.orders (id),
     product_id INT NOT NULL REFERENCES public.products (id),
     PRIMARY KEY (order_id, product_id)
 );
+CREATE TABLE idempotency_keys
+(
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    order_id        INT       NOT NULL REFERENCES public.orders (id) ON DELETE CASCADE,
+    created_at      TIMESTAMP NOT NULL DEFAULT now()
+);
 INSERT INTO public.users (username, email)
 VALUES ('Anton', 'antpkov@gmail.com'),
        ('Oleg', 'oleg@mail.com'),
@@ -69,3 +81,9 @@ VALUES (1, 1),
        (4, 10),
        (4, 11),
        (4, 12);
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX products_name_prefix_idx ON products (lower(name) text_pattern_ops);
+CREATE INDEX products_name_trgm_idx ON products USING GIN (lower(name) gin_trgm_ops);
+CREATE INDEX products_name_tsv_idx ON products USING GIN (to_tsvector('russian', name));
+CREATE INDEX products_price_idx ON products (price);